@@ -0,0 +1,103 @@
+package iscteiul.ista.battleship;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Utilitários partilhados pelos benchmarks para construir frotas e listas de tiros.
+ */
+final class BenchmarkFleets {
+
+    /**
+     * Composição da frota padrão (ver README): 1 galeão, 1 fragata,
+     * 2 naus, 3 caravelas e 4 barcas.
+     */
+    static final String[] STANDARD_MIX = { "galeao", "fragata", "nau", "nau", "caravela", "caravela",
+            "caravela", "barca", "barca", "barca", "barca" };
+
+    /**
+     * Orientações válidas para colocação de navios.
+     */
+    static final Compass[] BEARINGS = { Compass.NORTH, Compass.SOUTH, Compass.EAST, Compass.WEST };
+
+    private BenchmarkFleets() {
+    }
+
+    /**
+     * Constrói aleatoriamente os primeiros {@code count} navios da frota padrão,
+     * repetindo cada colocação até ser aceite por {@link Fleet#addShip(IShip)}.
+     *
+     * @param random gerador de números aleatórios
+     * @param count número de navios a colocar
+     * @return lista de navios mutuamente compatíveis
+     */
+    static List<Ship> randomShips(Random random, int count) {
+        while (true) {
+            Fleet fleet = new Fleet();
+            List<Ship> ships = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                Ship placed = null;
+                for (int attempt = 0; attempt < 1000 && placed == null; attempt++) {
+                    Ship s = Ship.buildShip(STANDARD_MIX[i], BEARINGS[random.nextInt(BEARINGS.length)],
+                            Position.of(random.nextInt(IFleet.BOARD_SIZE), random.nextInt(IFleet.BOARD_SIZE)));
+                    if (fleet.addShip(s))
+                        placed = s;
+                }
+                if (placed == null)
+                    break;
+                ships.add(placed);
+            }
+            if (ships.size() == count)
+                return ships;
+        }
+    }
+
+    /**
+     * Constrói uma frota nova com os navios indicados.
+     * Os navios têm de ser novos ou nunca atingidos para o jogo começar do zero.
+     *
+     * @param ships navios a adicionar
+     * @return frota com todos os navios
+     */
+    static Fleet fleetOf(List<? extends IShip> ships) {
+        Fleet fleet = new Fleet();
+        for (IShip s : ships)
+            fleet.addShip(s);
+        return fleet;
+    }
+
+    /**
+     * Volta a construir os navios indicados (mesma categoria, orientação e origem),
+     * sem nenhum tiro registado.
+     *
+     * @param ships navios de referência
+     * @return cópias intactas dos navios
+     */
+    static List<Ship> rebuild(List<Ship> ships) {
+        List<Ship> copies = new ArrayList<>(ships.size());
+        for (Ship s : ships)
+            copies.add(Ship.buildShip(s.getCategory().toLowerCase(), s.getBearing(), (Position) s.getPosition()));
+        return copies;
+    }
+
+    /**
+     * Devolve todas as células do tabuleiro por ordem aleatória.
+     *
+     * @param random gerador de números aleatórios
+     * @return posições baralhadas
+     */
+    static Position[] shuffledBoard(Random random) {
+        Position[] cells = new Position[BitBoard.CELLS];
+        for (int r = 0; r < IFleet.BOARD_SIZE; r++)
+            for (int c = 0; c < IFleet.BOARD_SIZE; c++)
+                cells[BitBoard.index(r, c)] = Position.of(r, c);
+        for (int i = cells.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            Position tmp = cells[i];
+            cells[i] = cells[j];
+            cells[j] = tmp;
+        }
+        return cells;
+    }
+}
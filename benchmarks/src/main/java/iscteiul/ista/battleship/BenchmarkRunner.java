@@ -0,0 +1,25 @@
+package iscteiul.ista.battleship;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Executa todos os benchmarks do motor de jogo com o profiler de GC ativo,
+ * reportando o débito e a taxa de alocação ({@code gc.alloc.rate.norm}) de cada um.
+ * <p>
+ * Um argumento opcional filtra os benchmarks por expressão regular.
+ * </p>
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(args.length > 0 ? args[0] : "iscteiul.ista.battleship.*")
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
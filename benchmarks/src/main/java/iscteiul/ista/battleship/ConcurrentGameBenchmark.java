@@ -0,0 +1,103 @@
+package iscteiul.ista.battleship;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compara o débito de tiros de {@link ConcurrentGame} com o de um {@link Game}
+ * protegido por um único lock ({@link SynchronizedGame}), com várias threads a
+ * jogar em cooperação sobre o mesmo jogo.
+ * <p>
+ * Cada thread percorre o tabuleiro por uma ordem própria; quando o último navio
+ * é afundado, a thread que o afundou substitui o jogo partilhado por um novo,
+ * pelo que a medição inclui tiros na água, acertos, afundamentos e tiros
+ * repetidos (células já atacadas por outras threads). O número de threads pode
+ * ser alterado com a opção {@code -t} do JMH.
+ * </p>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class ConcurrentGameBenchmark {
+
+    /** Passos primos com a dimensão do tabuleiro, para percorrer todas as células. */
+    private static final int[] STEPS = { 1, 3, 7, 9, 11, 13, 17, 19, 21, 23, 27, 29, 31, 33, 37, 39 };
+
+    @State(Scope.Benchmark)
+    public static class Shared {
+
+        @Param({ "concurrent", "synchronized" })
+        String impl;
+
+        FleetGenerator generator;
+        AtomicReference<IGame> game;
+
+        @Setup
+        public void setUp() {
+            generator = new FleetGenerator(42);
+            game = new AtomicReference<>(newGame());
+        }
+
+        IGame newGame() {
+            Fleet fleet;
+            synchronized (generator) {
+                fleet = generator.next();
+            }
+            return impl.equals("concurrent") ? new ConcurrentGame(fleet) : new SynchronizedGame(new Game(fleet));
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Player {
+
+        final int[] shot = new int[1];
+        final int[] result = new int[1];
+        SplittableRandom random;
+        IGame current;
+        int start, step, cursor;
+
+        @Setup
+        public void setUp() {
+            random = new SplittableRandom(Thread.currentThread().getId());
+        }
+
+        int nextCell(IGame game) {
+            if (game != current || cursor == BitBoard.CELLS) {
+                current = game;
+                start = random.nextInt(BitBoard.CELLS);
+                step = STEPS[random.nextInt(STEPS.length)];
+                cursor = 0;
+            }
+            return (start + step * cursor++) % BitBoard.CELLS;
+        }
+    }
+
+    @Benchmark
+    public int coopFire(Shared shared, Player player) {
+        IGame game = shared.game.get();
+        int cell = player.nextCell(game);
+        player.shot[0] = Position.pack(cell / IFleet.BOARD_SIZE, cell % IFleet.BOARD_SIZE);
+        game.fireSalvo(player.shot, player.result);
+
+        if (ShotResult.kind(player.result[0]) == ShotResult.SUNK && game.getRemainingShips() == 0)
+            shared.game.compareAndSet(game, shared.newGame());
+        return player.result[0];
+    }
+}
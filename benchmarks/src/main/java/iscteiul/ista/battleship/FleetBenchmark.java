@@ -0,0 +1,90 @@
+package iscteiul.ista.battleship;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Mede as operações de {@link Fleet} e {@link Ship} usadas na colocação de
+ * navios e nos testes de acerto: {@code addShip}, {@code shipAt},
+ * {@code tooCloseTo} e {@code buildShip}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class FleetBenchmark {
+
+    @Param({ "1", "6", "11" })
+    int ships;
+
+    private List<Ship> layout;
+    private Fleet fleet;
+    private Ship[] rejected;
+    private Position[] board;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(7);
+        layout = BenchmarkFleets.randomShips(random, ships);
+        fleet = BenchmarkFleets.fleetOf(layout);
+        board = BenchmarkFleets.shuffledBoard(random);
+
+        rejected = new Ship[layout.size()];
+        for (int i = 0; i < layout.size(); i++) {
+            Ship s = layout.get(i);
+            rejected[i] = Ship.buildShip("barca", Compass.NORTH, (Position) s.getPosition());
+        }
+    }
+
+    @Benchmark
+    public Fleet addShipAccepted() {
+        Fleet f = new Fleet();
+        for (Ship s : layout)
+            f.addShip(s);
+        return f;
+    }
+
+    @Benchmark
+    public void addShipRejected(Blackhole bh) {
+        for (Ship s : rejected)
+            bh.consume(fleet.addShip(s));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(100) // BitBoard.CELLS para o tabuleiro de 10x10
+    public void shipAt(Blackhole bh) {
+        for (Position p : board)
+            bh.consume(fleet.shipAt(p));
+    }
+
+    @Benchmark
+    public void tooCloseTo(Blackhole bh) {
+        for (Ship a : layout)
+            for (Ship b : layout)
+                bh.consume(a.tooCloseTo(b));
+    }
+
+    @Benchmark
+    public void buildShip(Blackhole bh) {
+        for (Ship s : layout)
+            bh.consume(Ship.buildShip(s.getCategory().toLowerCase(), s.getBearing(), (Position) s.getPosition()));
+    }
+}
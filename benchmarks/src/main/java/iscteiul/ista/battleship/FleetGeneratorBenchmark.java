@@ -0,0 +1,66 @@
+package iscteiul.ista.battleship;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import iscteiul.ista.battleship.PlacementCatalog.Placement;
+
+/**
+ * Mede o débito do {@link FleetGenerator}, por thread e com todas as threads
+ * disponíveis (cada uma com o seu gerador obtido por {@code split}).
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FleetGeneratorBenchmark {
+
+    private static final AtomicLong SEEDS = new AtomicLong(2024);
+
+    @State(Scope.Thread)
+    public static class Generator {
+        FleetGenerator generator;
+        Placement[] layout;
+
+        @Setup
+        public void setUp() {
+            generator = new FleetGenerator(SEEDS.incrementAndGet());
+            layout = new Placement[PlacementCatalog.STANDARD_FLEET.length];
+        }
+    }
+
+    @Benchmark
+    public int layout(Generator g) {
+        return g.generator.nextLayout(g.layout);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public int layoutAllCores(Generator g) {
+        return g.generator.nextLayout(g.layout);
+    }
+
+    @Benchmark
+    public Fleet fleet(Generator g) {
+        return g.generator.next();
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public Fleet fleetAllCores(Generator g) {
+        return g.generator.next();
+    }
+}
@@ -0,0 +1,51 @@
+package iscteiul.ista.battleship;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Mede um ciclo completo: gerar uma frota aleatória padrão e jogar até ao
+ * afundamento de todos os navios, disparando sobre as células por ordem aleatória.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class FullGameBenchmark {
+
+    private Random random;
+    private FleetGenerator generator;
+    private Position[] order;
+
+    @Setup
+    public void setUp() {
+        random = new Random(2024);
+        generator = new FleetGenerator(2024);
+        order = BenchmarkFleets.shuffledBoard(random);
+    }
+
+    @Benchmark
+    public int randomFleetAndFullGame() {
+        Game game = new Game(generator.next());
+        int offset = random.nextInt(order.length);
+        int shots = 0;
+        while (game.getRemainingShips() > 0) {
+            game.fire(order[(offset + shots) % order.length]);
+            shots++;
+        }
+        return shots;
+    }
+}
@@ -0,0 +1,109 @@
+package iscteiul.ista.battleship;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Mede {@link Game#fire(IPosition)} para cada tipo de resultado:
+ * acerto, água, tiro repetido e tiro inválido.
+ * <p>
+ * O parâmetro {@code ships} controla a densidade da frota, de modo a
+ * evidenciar custos que cresçam com o número de navios.
+ * </p>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class GameFireBenchmark {
+
+    /** Número de células disparadas por invocação. */
+    private static final int SHOTS = 10;
+
+    @Param({ "4", "7", "11" })
+    int ships;
+
+    private List<Ship> layout;
+    private Position[] hitTargets;
+    private Position[] missTargets;
+    private Position[] invalidTargets;
+    private Game game;
+    private Game playedGame;
+
+    @Setup(Level.Trial)
+    public void setUpTrial() {
+        Random random = new Random(42);
+        layout = BenchmarkFleets.randomShips(random, ships);
+
+        List<Position> hits = new ArrayList<>();
+        List<Position> misses = new ArrayList<>();
+        Fleet fleet = BenchmarkFleets.fleetOf(layout);
+        for (Position p : BenchmarkFleets.shuffledBoard(random))
+            (fleet.shipAt(p) != null ? hits : misses).add(p);
+
+        hitTargets = new Position[SHOTS];
+        missTargets = new Position[SHOTS];
+        invalidTargets = new Position[SHOTS];
+        for (int i = 0; i < SHOTS; i++) {
+            hitTargets[i] = hits.get(i);
+            missTargets[i] = misses.get(i);
+            invalidTargets[i] = Position.of(-1 - i, IFleet.BOARD_SIZE + i);
+        }
+
+        playedGame = new Game(BenchmarkFleets.fleetOf(BenchmarkFleets.rebuild(layout)));
+        for (Position p : BenchmarkFleets.shuffledBoard(random))
+            playedGame.fire(p);
+    }
+
+    @Setup(Level.Invocation)
+    public void setUpInvocation() {
+        game = new Game(BenchmarkFleets.fleetOf(BenchmarkFleets.rebuild(layout)));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SHOTS)
+    public void hit(Blackhole bh) {
+        for (Position p : hitTargets)
+            bh.consume(game.fire(p));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SHOTS)
+    public void miss(Blackhole bh) {
+        for (Position p : missTargets)
+            bh.consume(game.fire(p));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SHOTS)
+    public void repeated(Blackhole bh) {
+        for (Position p : missTargets)
+            bh.consume(playedGame.fire(p));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SHOTS)
+    public void invalid(Blackhole bh) {
+        for (Position p : invalidTargets)
+            bh.consume(playedGame.fire(p));
+    }
+}
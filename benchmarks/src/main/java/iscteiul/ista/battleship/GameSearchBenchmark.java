@@ -0,0 +1,110 @@
+package iscteiul.ista.battleship;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Mede os nós por segundo de uma pesquisa exaustiva a dois tiros de profundidade,
+ * a partir de um jogo a meio, como a de um jogador automático (expectimax).
+ * <p>
+ * {@code makeUnmake} experimenta cada tiro no próprio jogo e desfá-lo com
+ * {@link Game#unfire()}; {@code deepCopy} copia a frota e o jogo em cada nó,
+ * como era necessário antes de existir {@link Game#unfire()}.
+ * </p>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class GameSearchBenchmark {
+
+    /** Tiros já disparados no jogo de partida. */
+    private static final int PLAYED = 30;
+
+    /** Células ainda por atacar no jogo de partida (100 células no tabuleiro). */
+    private static final int OPEN = 100 - PLAYED;
+
+    /** Nós visitados por pesquisa: cada tiro do primeiro nível e cada resposta no segundo. */
+    private static final int NODES = OPEN + OPEN * (OPEN - 1);
+
+    private List<Ship> layout;
+    private Game game;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(2025);
+        layout = new ArrayList<>();
+        for (IShip s : new FleetGenerator(2025).next().getShips())
+            layout.add((Ship) s);
+
+        game = new Game(BenchmarkFleets.fleetOf(BenchmarkFleets.rebuild(layout)));
+        game.enableUndo();
+        Position[] order = BenchmarkFleets.shuffledBoard(random);
+        for (int i = 0; i < PLAYED; i++)
+            game.fire(order[i]);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NODES)
+    public int makeUnmake() {
+        int score = 0;
+        for (int first = 0; first < BitBoard.CELLS; first++) {
+            if (game.getFiredCells().get(first))
+                continue;
+            game.fire(first / IFleet.BOARD_SIZE, first % IFleet.BOARD_SIZE);
+            for (int second = 0; second < BitBoard.CELLS; second++) {
+                if (game.getFiredCells().get(second))
+                    continue;
+                game.fire(second / IFleet.BOARD_SIZE, second % IFleet.BOARD_SIZE);
+                score += game.getHits() + game.getSunkShips();
+                game.unfire();
+            }
+            game.unfire();
+        }
+        return score;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NODES)
+    public int deepCopy() {
+        int score = 0;
+        for (int first = 0; first < BitBoard.CELLS; first++) {
+            if (game.getFiredCells().get(first))
+                continue;
+            Game child = copyOf(game);
+            child.fire(first / IFleet.BOARD_SIZE, first % IFleet.BOARD_SIZE);
+            for (int second = 0; second < BitBoard.CELLS; second++) {
+                if (child.getFiredCells().get(second))
+                    continue;
+                Game leaf = copyOf(child);
+                leaf.fire(second / IFleet.BOARD_SIZE, second % IFleet.BOARD_SIZE);
+                score += leaf.getHits() + leaf.getSunkShips();
+            }
+        }
+        return score;
+    }
+
+    /**
+     * Copia um jogo e a sua frota: navios novos, com os tiros do jogo original reaplicados.
+     */
+    private Game copyOf(Game original) {
+        return Game.restore(BenchmarkFleets.fleetOf(BenchmarkFleets.rebuild(layout)), original.getFiredCells(),
+                original.getInvalidShots(), original.getRepeatedShots());
+    }
+}
@@ -0,0 +1,71 @@
+package iscteiul.ista.battleship;
+
+import java.util.List;
+
+/**
+ * Invólucro que torna um {@link IGame} seguro entre threads com um único lock
+ * sobre todas as operações. Serve de referência para {@link ConcurrentGameBenchmark}.
+ */
+public class SynchronizedGame implements IGame {
+
+    private final IGame game;
+
+    public SynchronizedGame(IGame game) {
+        this.game = game;
+    }
+
+    @Override
+    public synchronized IShip fire(IPosition pos) {
+        return game.fire(pos);
+    }
+
+    @Override
+    public synchronized int fire(int row, int column) {
+        return game.fire(row, column);
+    }
+
+    @Override
+    public synchronized int fireSalvo(int[] shots, int[] results) {
+        return game.fireSalvo(shots, results);
+    }
+
+    @Override
+    public synchronized List<IPosition> getShots() {
+        return game.getShots();
+    }
+
+    @Override
+    public synchronized int getRepeatedShots() {
+        return game.getRepeatedShots();
+    }
+
+    @Override
+    public synchronized int getInvalidShots() {
+        return game.getInvalidShots();
+    }
+
+    @Override
+    public synchronized int getHits() {
+        return game.getHits();
+    }
+
+    @Override
+    public synchronized int getSunkShips() {
+        return game.getSunkShips();
+    }
+
+    @Override
+    public synchronized int getRemainingShips() {
+        return game.getRemainingShips();
+    }
+
+    @Override
+    public synchronized void printValidShots() {
+        game.printValidShots();
+    }
+
+    @Override
+    public synchronized void printFleet() {
+        game.printFleet();
+    }
+}
@@ -1,17 +1,42 @@
 package iscteiul.ista;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import iscteiul.ista.battleship.BatchRunner;
 import iscteiul.ista.battleship.Fleet;
 import iscteiul.ista.battleship.Tasks;
 
 /**
+ * Ponto de entrada do jogo.
+ * <p>
+ * Sem argumentos, corre uma sessão interativa sobre a consola. Com
+ * {@code --batch <diretoria|glob> [saida]}, corre cada ficheiro de comandos
+ * encontrado como uma sessão independente, em paralelo, e escreve o registo
+ * agregado de todas as sessões em {@code saida} (ou na consola).
+ * </p>
+ *
  * @author britoeabreu
  * @author adrianolopes
  * @author miguelgoulao
  */
 public class App
 {
-    public static void main( String[] args )
+    public static void main( String[] args ) throws IOException, InterruptedException
     {
+        if (args.length > 1 && args[0].equals("--batch")) {
+            batch(args[1], args.length > 2 ? Paths.get(args[2]) : null);
+            return;
+        }
 
         System.out.printf("\n***  Battleship Game ***\n");
 
@@ -20,4 +45,28 @@ public class App
         //	Tasks.taskC();
         //	Tasks.taskD();
     }
+
+    /**
+     * Corre em paralelo os ficheiros de comandos indicados.
+     *
+     * @param target diretoria ou padrão glob dos ficheiros de comandos
+     * @param output ficheiro de saída; {@code null} para a consola
+     */
+    private static void batch(String target, Path output) throws IOException, InterruptedException
+    {
+        List<Path> scripts = BatchRunner.resolve(target);
+        ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        long start = System.nanoTime();
+        try (Writer out = output != null
+                ? Files.newBufferedWriter(output, StandardCharsets.UTF_8)
+                : new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8)))
+        {
+            int failed = new BatchRunner(executor).run(scripts, out);
+            out.flush();
+            System.err.printf("%d sessoes (%d com erro) em %.2f s\n",
+                    scripts.size(), failed, (System.nanoTime() - start) / 1e9);
+        } finally {
+            executor.shutdown();
+        }
+    }
 }
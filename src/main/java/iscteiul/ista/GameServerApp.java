@@ -0,0 +1,52 @@
+package iscteiul.ista;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+
+import iscteiul.ista.battleship.GameServer;
+import iscteiul.ista.battleship.LoadGenerator;
+
+/**
+ * Ponto de entrada do servidor de jogo em rede e do respetivo gerador de carga.
+ * <p>
+ * Utilização:
+ * <ul>
+ *     <li>{@code GameServerApp server [porto] [ciclos]} – serve sessões até ser terminado</li>
+ *     <li>{@code GameServerApp load [maquina] [porto] [sessoes] [rajadas] [reflexao_ms]} –
+ *         abre as sessões contra um servidor e mede a latência dos comandos</li>
+ * </ul>
+ * Por omissão o servidor escuta no porto 7777 com um ciclo de eventos por processador
+ * e o gerador abre 10 000 sessões de 20 rajadas, com 100 ms de reflexão.
+ * </p>
+ */
+public class GameServerApp
+{
+    public static void main( String[] args ) throws IOException, InterruptedException
+    {
+        String mode = args.length > 0 ? args[0] : "server";
+        if (mode.equals("load"))
+        {
+            String host = args.length > 1 ? args[1] : "localhost";
+            int port = args.length > 2 ? Integer.parseInt(args[2]) : 7777;
+            int sessions = args.length > 3 ? Integer.parseInt(args[3]) : 10_000;
+            int rounds = args.length > 4 ? Integer.parseInt(args[4]) : 20;
+            long think = args.length > 5 ? Long.parseLong(args[5]) : 100;
+
+            LoadGenerator generator = new LoadGenerator(new InetSocketAddress(host, port),
+                    sessions, rounds, think, 2024);
+            System.out.println(generator.run());
+            return;
+        }
+
+        int port = args.length > 1 ? Integer.parseInt(args[1]) : 7777;
+        int loops = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        GameServer server = new GameServer(new InetSocketAddress(port), loops);
+        server.start();
+        System.out.printf("\n***  Battleship Server: porto %d, %d ciclos  ***\n", server.getPort(), loops);
+        while (true)
+        {
+            Thread.sleep(10_000);
+            System.out.printf("sessoes abertas: %d\n", server.getSessionCount());
+        }
+    }
+}
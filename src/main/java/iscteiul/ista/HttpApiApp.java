@@ -0,0 +1,72 @@
+package iscteiul.ista;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import iscteiul.ista.battleship.GameHttpApi;
+import iscteiul.ista.battleship.HttpLoadGenerator;
+
+/**
+ * Ponto de entrada da API HTTP/JSON do jogo.
+ * <p>
+ * Utilização:
+ * <ul>
+ *     <li>{@code HttpApiApp server [porto]} – serve a API com uma thread por pedido</li>
+ *     <li>{@code HttpApiApp bench [clientes] [pedidos] [threads]} – mede pedidos/s e latência
+ *         da API local com uma thread por pedido e com uma reserva fixa de threads de plataforma</li>
+ * </ul>
+ * </p>
+ */
+public class HttpApiApp
+{
+    public static void main( String[] args ) throws IOException, InterruptedException
+    {
+        // o HttpServer escreve cabeçalhos e corpo em separado; sem TCP_NODELAY cada
+        // resposta pequena espera pelo ACK atrasado do cliente (~40 ms)
+        if (System.getProperty("sun.net.httpserver.nodelay") == null)
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+
+        String mode = args.length > 0 ? args[0] : "server";
+        if (mode.equals("bench"))
+        {
+            int clients = args.length > 1 ? Integer.parseInt(args[1]) : 64;
+            int requests = args.length > 2 ? Integer.parseInt(args[2]) : 500;
+            int threads = args.length > 3 ? Integer.parseInt(args[3]) : 8;
+
+            System.out.printf("\n***  Battleship HTTP: %d clientes, %d pedidos cada  ***\n", clients, requests);
+            // primeira passagem só para aquecer o JIT
+            bench("aquecimento", GameHttpApi.perRequestExecutor(), clients, requests);
+            bench("thread por pedido", GameHttpApi.perRequestExecutor(), clients, requests);
+            bench("reserva de " + threads, Executors.newFixedThreadPool(threads), clients, requests);
+            return;
+        }
+
+        int port = args.length > 1 ? Integer.parseInt(args[1]) : 8080;
+        GameHttpApi api = new GameHttpApi(new InetSocketAddress(port), GameHttpApi.perRequestExecutor());
+        api.start();
+        System.out.printf("\n***  Battleship HTTP: porto %d  ***\n", api.getPort());
+    }
+
+    /**
+     * Corre o gerador de carga contra uma API local servida pelo executor indicado.
+     */
+    private static void bench(String name, ExecutorService executor, int clients, int requests)
+            throws IOException, InterruptedException
+    {
+        GameHttpApi api = new GameHttpApi(new InetSocketAddress("localhost", 0), executor);
+        api.start();
+        try
+        {
+            URI base = URI.create("http://localhost:" + api.getPort());
+            System.out.printf("%s: %s\n", name, new HttpLoadGenerator(base, clients, requests, 2024).run());
+        }
+        finally
+        {
+            api.close();
+            executor.shutdown();
+        }
+    }
+}
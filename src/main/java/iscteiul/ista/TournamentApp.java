@@ -0,0 +1,83 @@
+package iscteiul.ista;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.LongFunction;
+
+import iscteiul.ista.battleship.HuntTargetShooter;
+import iscteiul.ista.battleship.IShooter;
+import iscteiul.ista.battleship.ProbabilityShooter;
+import iscteiul.ista.battleship.RandomShooter;
+import iscteiul.ista.battleship.TargetingEngine;
+import iscteiul.ista.battleship.Tournament;
+import iscteiul.ista.battleship.TournamentResult;
+
+/**
+ * Ponto de entrada para torneios automáticos, sem interação.
+ * <p>
+ * Utilização: {@code TournamentApp [jogos] [estrategia] [semente] [--scaling]}, onde a
+ * estratégia é {@code random}, {@code hunt} (por omissão) ou {@code prob}. Com
+ * {@code --scaling} o mesmo torneio é repetido com 1, 2, 4 e N threads.
+ * </p>
+ */
+public class TournamentApp
+{
+    public static void main( String[] args )
+    {
+        long games = 100_000;
+        String strategy = "hunt";
+        long seed = 2024;
+        boolean scaling = false;
+
+        List<String> positional = new ArrayList<>();
+        for (String arg : args) {
+            if (arg.equals("--scaling"))
+                scaling = true;
+            else
+                positional.add(arg);
+        }
+        if (positional.size() > 0)
+            games = Long.parseLong(positional.get(0));
+        if (positional.size() > 1)
+            strategy = positional.get(1);
+        if (positional.size() > 2)
+            seed = Long.parseLong(positional.get(2));
+
+        LongFunction<IShooter> shooters = shooters(strategy);
+        System.out.printf("\n***  Battleship Tournament: %d jogos, estrategia %s  ***\n", games, strategy);
+
+        int cores = Runtime.getRuntime().availableProcessors();
+        int[] levels = scaling ? new int[] { 1, 2, 4, cores } : new int[] { cores };
+        for (int threads : levels) {
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            try {
+                TournamentResult result = new Tournament(pool, shooters, seed).play(games);
+                System.out.printf("threads=%d %s\n", threads, result);
+            } finally {
+                pool.shutdown();
+            }
+        }
+    }
+
+    /**
+     * Devolve a fábrica de atiradores de uma estratégia.
+     *
+     * @param strategy nome da estratégia
+     * @return fábrica que cria um atirador a partir de uma semente
+     */
+    private static LongFunction<IShooter> shooters(String strategy)
+    {
+        switch (strategy) {
+            case "random":
+                return RandomShooter::new;
+            case "hunt":
+                return HuntTargetShooter::new;
+            case "prob":
+                return seed -> new ProbabilityShooter(new TargetingEngine(ForkJoinPool.commonPool(),
+                        5, 2_000, 2.58, seed));
+            default:
+                throw new IllegalArgumentException("Estrategia desconhecida: " + strategy);
+        }
+    }
+}
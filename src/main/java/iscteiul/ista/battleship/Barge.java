@@ -32,8 +32,8 @@ public class Barge extends Ship {
     /**
      * Constructs a Barge with a given bearing and initial position.
      * <p>
-     * Since a Barge occupies only one cell, its position list
-     * contains only the starting position.
+     * Since a Barge occupies only one cell, its shape template
+     * places it on the starting position for every bearing.
      * </p>
      *
      * @param bearing the orientation of the ship (not relevant for size 1,
@@ -42,7 +42,6 @@ public class Barge extends Ship {
      */
     public Barge(Compass bearing, IPosition pos) {
         super(Barge.NAME, bearing, pos);
-        getPositions().add(new Position(pos.getRow(), pos.getColumn()));
     }
 
     /**
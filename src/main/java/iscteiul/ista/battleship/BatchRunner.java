@@ -0,0 +1,159 @@
+package iscteiul.ista.battleship;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.apache.logging.log4j.message.ParameterizedMessage;
+
+/**
+ * Executa ficheiros de comandos (a linguagem de {@link Tasks#taskD()}) sem consola,
+ * cada um como uma sessão independente, em paralelo.
+ * <p>
+ * As mensagens de cada sessão são guardadas em memória e escritas num único
+ * destino, pela ordem dos ficheiros, cada bloco precedido do nome do ficheiro e
+ * seguido de uma linha de resumo com o estado final do jogo. O resultado é assim
+ * o mesmo qualquer que seja o número de threads.
+ * </p>
+ */
+public class BatchRunner {
+
+    /** Executor onde correm as sessões. */
+    private final ExecutorService executor;
+
+    /**
+     * Constrói um executor de sessões.
+     *
+     * @param executor executor onde correm as sessões
+     */
+    public BatchRunner(ExecutorService executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Corre todas as sessões e escreve o registo agregado.
+     *
+     * @param scripts ficheiros de comandos
+     * @param out destino do registo agregado
+     * @return número de sessões que terminaram com erro
+     * @throws IOException se a escrita no destino falhar
+     * @throws InterruptedException se a thread for interrompida enquanto espera pelas sessões
+     */
+    public int run(List<Path> scripts, Appendable out) throws IOException, InterruptedException {
+        List<Future<Session>> sessions = new ArrayList<>(scripts.size());
+        for (Path script : scripts)
+            sessions.add(executor.submit(() -> runScript(script)));
+
+        int failed = 0;
+        for (int i = 0; i < scripts.size(); i++) {
+            out.append("== ").append(scripts.get(i).toString()).append(" ==\n");
+            try {
+                Session session = sessions.get(i).get();
+                out.append(session.log);
+                if (session.failed)
+                    failed++;
+            } catch (ExecutionException e) {
+                failed++;
+                out.append("ERRO: ").append(String.valueOf(e.getCause())).append('\n');
+            }
+        }
+        return failed;
+    }
+
+    /**
+     * Corre uma sessão a partir de um ficheiro de comandos.
+     *
+     * @param script ficheiro de comandos
+     * @return mensagens da sessão, seguidas do resumo ou do erro que a interrompeu
+     * @throws IOException se o ficheiro não puder ser aberto
+     */
+    static Session runScript(Path script) throws IOException {
+        StringBuilder log = new StringBuilder(1024);
+        try (InputStream in = Files.newInputStream(script)) {
+            IGame game;
+            try {
+                game = Tasks.playSession(new CommandReader(in),
+                        (pattern, params) -> log.append(ParameterizedMessage.format(pattern, params)).append('\n'),
+                        false);
+            } catch (RuntimeException e) {
+                log.append("ERRO: ").append(e).append('\n');
+                return new Session(log.toString(), true);
+            }
+
+            if (game != null)
+                log.append("Resultado: Hits: ").append(game.getHits())
+                        .append(" Inv: ").append(game.getInvalidShots())
+                        .append(" Rep: ").append(game.getRepeatedShots())
+                        .append(" Restam ").append(game.getRemainingShips()).append(" navios.\n");
+        }
+        return new Session(log.toString(), false);
+    }
+
+    /**
+     * Resultado de uma sessão: as mensagens escritas e se terminou com erro.
+     */
+    static final class Session {
+
+        /** Mensagens da sessão. */
+        final String log;
+
+        /** Indica se a sessão foi interrompida por um erro. */
+        final boolean failed;
+
+        Session(String log, boolean failed) {
+            this.log = log;
+            this.failed = failed;
+        }
+    }
+
+    /**
+     * Obtém os ficheiros de comandos indicados por uma diretoria ou por um padrão glob.
+     * <p>
+     * Uma diretoria devolve os ficheiros que contém diretamente. Um padrão
+     * (ex: {@code sessoes/2024-*.txt} ou {@code arquivo/**.cmd}) é procurado a
+     * partir da sua maior parte sem caracteres especiais. Os ficheiros são
+     * devolvidos por ordem alfabética.
+     * </p>
+     *
+     * @param target diretoria ou padrão glob
+     * @return ficheiros encontrados
+     * @throws IOException se as diretorias não puderem ser percorridas
+     */
+    public static List<Path> resolve(String target) throws IOException {
+        Path path = Paths.get(target);
+        if (Files.isDirectory(path))
+            try (Stream<Path> files = Files.list(path)) {
+                return files.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+            }
+
+        int special = 0;
+        while (special < target.length() && "*?[{".indexOf(target.charAt(special)) < 0)
+            special++;
+        int slash = target.lastIndexOf('/', special);
+        Path base = slash < 0 ? Paths.get(".") : Paths.get(target.substring(0, slash + 1));
+        PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + target);
+
+        if (!Files.isDirectory(base))
+            return new ArrayList<>();
+        try (Stream<Path> files = Files.walk(base)) {
+            return files.filter(Files::isRegularFile)
+                    .filter(p -> matcher.matches(slash < 0 ? base.relativize(p) : p))
+                    .sorted()
+                    .collect(Collectors.toList());
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+}
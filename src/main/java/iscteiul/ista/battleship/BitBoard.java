@@ -0,0 +1,259 @@
+package iscteiul.ista.battleship;
+
+import java.util.Arrays;
+
+/**
+ * Conjunto compacto de células do tabuleiro, representado como um mapa de bits.
+ * <p>
+ * Cada célula corresponde a um bit, indexado por {@code linha * BOARD_SIZE + coluna}.
+ * Um tabuleiro de 10x10 cabe em dois {@code long}; tabuleiros maiores usam
+ * simplesmente mais palavras do vetor.
+ * </p>
+ */
+public final class BitBoard {
+
+    /**
+     * Número total de células do tabuleiro padrão.
+     */
+    public static final int CELLS = IFleet.BOARD_SIZE * IFleet.BOARD_SIZE;
+
+    /**
+     * Palavras de 64 bits que guardam o estado das células.
+     */
+    private final long[] words;
+
+    /**
+     * Constrói um mapa de bits vazio com capacidade para o tabuleiro padrão.
+     */
+    public BitBoard() {
+        this(CELLS);
+    }
+
+    /**
+     * Constrói um mapa de bits vazio com capacidade para {@code cells} células.
+     *
+     * @param cells número de células a representar
+     */
+    public BitBoard(int cells) {
+        assert cells >= 0;
+        this.words = new long[(cells + 63) >>> 6];
+    }
+
+    /**
+     * Calcula o índice linear de uma célula do tabuleiro padrão.
+     *
+     * @param row índice da linha
+     * @param column índice da coluna
+     * @return índice da célula
+     */
+    public static int index(int row, int column) {
+        return row * IFleet.BOARD_SIZE + column;
+    }
+
+    /**
+     * Lê o byte {@code i} do mapa de bits (células {@code 8i} a {@code 8i + 7}).
+     *
+     * @param i índice do byte
+     * @return valor do byte
+     */
+    byte getByte(int i) {
+        return (byte) (words[i >>> 3] >>> ((i & 7) << 3));
+    }
+
+    /**
+     * Acrescenta ao mapa de bits as células marcadas no byte {@code i}.
+     *
+     * @param i índice do byte
+     * @param value valor do byte
+     */
+    void orByte(int i, byte value) {
+        words[i >>> 3] |= (value & 0xFFL) << ((i & 7) << 3);
+    }
+
+    /**
+     * Indica se a célula com o índice dado está marcada.
+     *
+     * @param index índice da célula
+     * @return {@code true} se o bit estiver a 1
+     */
+    public boolean get(int index) {
+        return (words[index >>> 6] & (1L << index)) != 0;
+    }
+
+    /**
+     * Marca a célula com o índice dado.
+     *
+     * @param index índice da célula
+     */
+    public void set(int index) {
+        words[index >>> 6] |= 1L << index;
+    }
+
+    /**
+     * Marca a célula com o índice dado, caso ainda não esteja marcada.
+     *
+     * @param index índice da célula
+     * @return {@code true} se a célula foi marcada por esta chamada;
+     *         {@code false} se já estava marcada
+     */
+    public boolean testAndSet(int index) {
+        long bit = 1L << index;
+        long word = words[index >>> 6];
+        if ((word & bit) != 0)
+            return false;
+        words[index >>> 6] = word | bit;
+        return true;
+    }
+
+    /**
+     * Desmarca a célula com o índice dado.
+     *
+     * @param index índice da célula
+     */
+    public void clear(int index) {
+        words[index >>> 6] &= ~(1L << index);
+    }
+
+    /**
+     * Indica se este mapa de bits tem alguma célula em comum com outro.
+     *
+     * @param other mapa de bits com a mesma capacidade
+     * @return {@code true} se a interseção não for vazia
+     */
+    public boolean intersects(BitBoard other) {
+        for (int i = 0; i < words.length; i++)
+            if ((words[i] & other.words[i]) != 0)
+                return true;
+        return false;
+    }
+
+    /**
+     * Acrescenta a este mapa de bits todas as células marcadas noutro.
+     *
+     * @param other mapa de bits com a mesma capacidade
+     */
+    public void or(BitBoard other) {
+        for (int i = 0; i < words.length; i++)
+            words[i] |= other.words[i];
+    }
+
+    /**
+     * Remove deste mapa de bits todas as células marcadas noutro.
+     *
+     * @param other mapa de bits com a mesma capacidade
+     */
+    public void andNot(BitBoard other) {
+        for (int i = 0; i < words.length; i++)
+            words[i] &= ~other.words[i];
+    }
+
+    /**
+     * Indica se todas as células marcadas noutro mapa de bits também estão marcadas neste.
+     *
+     * @param other mapa de bits com a mesma capacidade
+     * @return {@code true} se {@code other} estiver contido neste mapa de bits
+     */
+    public boolean containsAll(BitBoard other) {
+        for (int i = 0; i < words.length; i++)
+            if ((other.words[i] & ~words[i]) != 0)
+                return false;
+        return true;
+    }
+
+    /**
+     * Substitui o conteúdo deste mapa de bits pelo de outro, sem alocar memória.
+     *
+     * @param other mapa de bits com a mesma capacidade
+     */
+    public void copyFrom(BitBoard other) {
+        System.arraycopy(other.words, 0, words, 0, words.length);
+    }
+
+    /**
+     * Devolve o índice da primeira célula marcada a partir de {@code from}, inclusive.
+     *
+     * @param from índice inicial
+     * @return índice da célula marcada; -1 se não existir nenhuma
+     */
+    public int nextSetBit(int from) {
+        int w = from >>> 6;
+        if (w >= words.length)
+            return -1;
+        long word = words[w] & (-1L << from);
+        while (true) {
+            if (word != 0)
+                return (w << 6) + Long.numberOfTrailingZeros(word);
+            if (++w == words.length)
+                return -1;
+            word = words[w];
+        }
+    }
+
+    /**
+     * Desmarca todas as células.
+     */
+    public void clear() {
+        Arrays.fill(words, 0L);
+    }
+
+    /**
+     * Indica se nenhuma célula está marcada.
+     *
+     * @return {@code true} se todos os bits estiverem a 0
+     */
+    public boolean isEmpty() {
+        for (long w : words)
+            if (w != 0)
+                return false;
+        return true;
+    }
+
+    /**
+     * Devolve o número de células marcadas.
+     *
+     * @return total de bits a 1
+     */
+    public int cardinality() {
+        int count = 0;
+        for (long w : words)
+            count += Long.bitCount(w);
+        return count;
+    }
+
+    /**
+     * Compara este mapa de bits com outro objeto.
+     *
+     * @param other objeto a comparar
+     * @return {@code true} se for um mapa de bits com as mesmas células marcadas
+     */
+    @Override
+    public boolean equals(Object other) {
+        return this == other || (other instanceof BitBoard && Arrays.equals(words, ((BitBoard) other).words));
+    }
+
+    /**
+     * Calcula o código hash do mapa de bits.
+     *
+     * @return valor hash baseado nas células marcadas
+     */
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(words);
+    }
+
+    /**
+     * Devolve representação textual do mapa de bits.
+     *
+     * @return índices das células marcadas
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("{");
+        for (int i = nextSetBit(0); i >= 0; i = nextSetBit(i + 1)) {
+            if (sb.length() > 1)
+                sb.append(", ");
+            sb.append(i);
+        }
+        return sb.append('}').toString();
+    }
+}
@@ -0,0 +1,274 @@
+package iscteiul.ista.battleship;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.CharBuffer;
+import java.util.List;
+
+/**
+ * Desenha tabuleiros de texto num buffer reutilizável e envia-os de uma só vez
+ * para qualquer {@link Appendable}.
+ * <p>
+ * O quadro é composto em memória (uma linha de texto por linha do tabuleiro) e
+ * só depois escrito, com uma única chamada ao destino. Em modo diferencial
+ * ({@link #writeDiff(Appendable)}) apenas as células que mudaram desde o quadro
+ * anterior são enviadas, precedidas das sequências ANSI que posicionam o cursor,
+ * o que é adequado a terminais que mostram o jogo continuamente.
+ * </p>
+ * <p>
+ * Depois de criados os buffers, desenhar e escrever um quadro não aloca memória
+ * quando o destino é um {@link Writer} (ou, para quadros completos, um {@link PrintStream}).
+ * </p>
+ */
+public final class BoardRenderer {
+
+    /** Célula de água, ou ainda desconhecida. */
+    public static final char WATER = '.';
+
+    /** Célula de um navio ainda não atingida. */
+    public static final char SHIP = '#';
+
+    /** Tiro na água. */
+    public static final char MISS = 'o';
+
+    /** Tiro que atingiu um navio ainda a flutuar. */
+    public static final char HIT = 'X';
+
+    /** Célula de um navio afundado. */
+    public static final char SUNK = '*';
+
+    /** Carácter de escape que inicia as sequências ANSI. */
+    private static final char ESC = 0x1B;
+
+    /** Fim de linha da plataforma, o mesmo que {@code println} escreve. */
+    static final String NEWLINE = System.lineSeparator();
+
+    /** Dimensão do tabuleiro. */
+    private final int size;
+
+    /** Caracteres ocupados por cada linha do quadro, incluindo o fim de linha. */
+    private final int stride;
+
+    /** Linha e coluna do terminal (a partir de 1) onde fica o canto superior esquerdo do tabuleiro. */
+    private final int originRow, originColumn;
+
+    /** Quadro atual: {@code size} linhas de {@code size} células seguidas do fim de linha. */
+    private final char[] frame;
+
+    /** Último quadro enviado em modo diferencial. */
+    private final char[] previous;
+
+    /** Indica se já foi enviado algum quadro em modo diferencial. */
+    private boolean hasPrevious;
+
+    /** Texto do próximo envio diferencial. */
+    private final StringBuilder diff = new StringBuilder();
+
+    /** Buffer de caracteres usado para escrever o texto diferencial. */
+    private char[] output = new char[0];
+
+    /**
+     * Constrói um desenhador para o tabuleiro padrão, desenhado no canto superior esquerdo do terminal.
+     */
+    public BoardRenderer() {
+        this(IFleet.BOARD_SIZE, 1, 1);
+    }
+
+    /**
+     * Constrói um desenhador.
+     *
+     * @param size dimensão do tabuleiro
+     * @param originRow linha do terminal (a partir de 1) do canto superior esquerdo, em modo diferencial
+     * @param originColumn coluna do terminal (a partir de 1) do canto superior esquerdo, em modo diferencial
+     */
+    public BoardRenderer(int size, int originRow, int originColumn) {
+        assert size > 0 && originRow > 0 && originColumn > 0;
+
+        this.size = size;
+        this.stride = size + NEWLINE.length();
+        this.originRow = originRow;
+        this.originColumn = originColumn;
+        this.frame = new char[size * stride];
+        this.previous = new char[frame.length];
+        clear(WATER);
+    }
+
+    /**
+     * Preenche todas as células do quadro com o mesmo carácter.
+     *
+     * @param fill carácter de preenchimento
+     */
+    public void clear(char fill) {
+        for (int row = 0; row < size; row++) {
+            int start = row * stride;
+            for (int col = 0; col < size; col++)
+                frame[start + col] = fill;
+            NEWLINE.getChars(0, NEWLINE.length(), frame, start + size);
+        }
+    }
+
+    /**
+     * Marca uma célula do quadro.
+     *
+     * @param row linha
+     * @param column coluna
+     * @param marker carácter a desenhar
+     * @throws IllegalArgumentException se a célula estiver fora do tabuleiro
+     */
+    public void set(int row, int column, char marker) {
+        if (row < 0 || row >= size || column < 0 || column >= size)
+            throw new IllegalArgumentException("ERROR! cell outside the board: " + row + ", " + column);
+        frame[row * stride + column] = marker;
+    }
+
+    /**
+     * Marca um conjunto de posições do quadro.
+     *
+     * @param positions posições a marcar
+     * @param marker carácter a desenhar
+     * @throws IllegalArgumentException se alguma posição estiver fora do tabuleiro
+     */
+    public void mark(List<? extends IPosition> positions, char marker) {
+        for (int i = 0; i < positions.size(); i++)
+            set(positions.get(i).getRow(), positions.get(i).getColumn(), marker);
+    }
+
+    /**
+     * Marca as células de um mapa de bits do tabuleiro padrão.
+     *
+     * @param cells células a marcar
+     * @param marker carácter a desenhar
+     */
+    public void mark(BitBoard cells, char marker) {
+        for (int i = cells.nextSetBit(0); i >= 0; i = cells.nextSetBit(i + 1))
+            set(i / IFleet.BOARD_SIZE, i % IFleet.BOARD_SIZE, marker);
+    }
+
+    /**
+     * Desenha o estado completo de um jogo: tiros na água ({@link #MISS}), navios
+     * atingidos ({@link #HIT}) e afundados ({@link #SUNK}) e, se pedido, as células
+     * dos navios ainda não atingidas ({@link #SHIP}).
+     *
+     * @param game jogo a desenhar
+     * @param showFleet {@code true} para mostrar os navios ainda escondidos
+     */
+    public void draw(Game game, boolean showFleet) {
+        assert size == IFleet.BOARD_SIZE;
+
+        IFleet fleet = game.getFleet();
+        BitBoard fired = game.getFiredCells();
+        List<IShip> ships = fleet.getShips();
+        for (int row = 0; row < size; row++)
+            for (int col = 0; col < size; col++) {
+                boolean shot = fired.get(BitBoard.index(row, col));
+                int ship = fleet.shipIndexAt(row, col);
+                char marker;
+                if (ship < 0)
+                    marker = shot ? MISS : WATER;
+                else if (shot)
+                    marker = ships.get(ship).stillFloating() ? HIT : SUNK;
+                else
+                    marker = showFleet ? SHIP : WATER;
+                set(row, col, marker);
+            }
+    }
+
+    /**
+     * Escreve o quadro completo no destino, numa única chamada.
+     *
+     * @param out destino
+     * @throws UncheckedIOException se a escrita falhar
+     */
+    public void writeTo(Appendable out) {
+        write(out, frame, frame.length);
+    }
+
+    /**
+     * Escreve apenas as células que mudaram desde o último envio diferencial,
+     * cada sequência de células contíguas precedida do posicionamento do cursor
+     * (ANSI {@code ESC[linha;colunaH}). O primeiro envio limpa o ecrã e desenha o
+     * quadro completo. No fim, o cursor fica na linha a seguir ao tabuleiro.
+     *
+     * @param out destino
+     * @return número de células enviadas
+     * @throws UncheckedIOException se a escrita falhar
+     */
+    public int writeDiff(Appendable out) {
+        diff.setLength(0);
+        if (!hasPrevious)
+            diff.append(ESC).append("[2J");
+
+        int changed = 0;
+        for (int row = 0; row < size; row++) {
+            int start = row * stride;
+            int cursor = -1;
+            for (int col = 0; col < size; col++) {
+                char c = frame[start + col];
+                if (hasPrevious && previous[start + col] == c)
+                    continue;
+                if (cursor != col)
+                    diff.append(ESC).append('[').append(originRow + row).append(';')
+                            .append(originColumn + col).append('H');
+                diff.append(c);
+                cursor = col + 1;
+                changed++;
+            }
+        }
+        if (changed > 0 || !hasPrevious)
+            diff.append(ESC).append('[').append(originRow + size).append(";1H");
+
+        System.arraycopy(frame, 0, previous, 0, frame.length);
+        hasPrevious = true;
+
+        if (output.length < diff.length())
+            output = new char[Math.max(diff.length(), 2 * output.length)];
+        diff.getChars(0, diff.length(), output, 0);
+        write(out, output, diff.length());
+        return changed;
+    }
+
+    /**
+     * Esquece o último quadro enviado, para que o próximo envio diferencial redesenhe tudo.
+     */
+    public void reset() {
+        hasPrevious = false;
+    }
+
+    /**
+     * Devolve o quadro atual como texto.
+     *
+     * @return linhas do tabuleiro
+     */
+    @Override
+    public String toString() {
+        return new String(frame);
+    }
+
+    /**
+     * Envia caracteres para um destino, sem cópias quando este é um {@link Writer}
+     * ou quando o vetor completo é enviado para um {@link PrintStream}.
+     *
+     * @param out destino
+     * @param chars caracteres a enviar
+     * @param length número de caracteres
+     */
+    private static void write(Appendable out, char[] chars, int length) {
+        try {
+            if (out instanceof Writer) {
+                ((Writer) out).write(chars, 0, length);
+            } else if (out instanceof PrintStream) {
+                PrintStream stream = (PrintStream) out;
+                if (length == chars.length)
+                    stream.print(chars);
+                else
+                    stream.append(CharBuffer.wrap(chars, 0, length));
+            } else {
+                out.append(CharBuffer.wrap(chars, 0, length));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
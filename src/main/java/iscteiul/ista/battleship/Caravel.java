@@ -22,7 +22,7 @@ public class Caravel extends Ship {
 
     /**
      * Constrói uma nova Caravela com uma orientação e posição inicial específicas.
-     * O método calcula e preenche a lista de posições ocupadas pelo navio com base no seu tamanho.
+     * As posições ocupadas pelo navio são obtidas do modelo pré-calculado ({@link ShipShape}) para a orientação dada.
      * * @param bearing a direção (norte, sul, este, oeste) para onde a Caravela está virada.
      * @param pos a posição inicial (ponto de origem) para posicionar o navio.
      * @throws NullPointerException se o bearing for nulo.
@@ -34,21 +34,8 @@ public class Caravel extends Ship {
         if (bearing == null)
             throw new NullPointerException("ERROR! invalid bearing for the caravel");
 
-        switch (bearing) {
-            case NORTH:
-            case SOUTH:
-                for (int r = 0; r < SIZE; r++)
-                    getPositions().add(new Position(pos.getRow() + r, pos.getColumn()));
-                break;
-            case EAST:
-            case WEST:
-                for (int c = 0; c < SIZE; c++)
-                    getPositions().add(new Position(pos.getRow(), pos.getColumn() + c));
-                break;
-            default:
-                throw new IllegalArgumentException("ERROR! invalid bearing for the caravel");
-        }
-
+        if (getShape() == null)
+            throw new IllegalArgumentException("ERROR! invalid bearing for the caravel");
     }
 
     /**
@@ -26,8 +26,8 @@ public class Carrack extends Ship {
     /**
      * Constrói uma Carrack com uma determinada orientação e posição inicial.
      * <p>
-     * As posições ocupadas pelo navio são calculadas automaticamente
-     * com base na orientação:
+     * As posições ocupadas pelo navio são obtidas do modelo pré-calculado
+     * ({@link ShipShape}) para a orientação:
      * <ul>
      *     <li>NORTH ou SOUTH – ocupa 3 posições consecutivas na vertical</li>
      *     <li>EAST ou WEST – ocupa 3 posições consecutivas na horizontal</li>
@@ -41,24 +41,8 @@ public class Carrack extends Ship {
     public Carrack(Compass bearing, IPosition pos) throws IllegalArgumentException {
         super(Carrack.NAME, bearing, pos);
 
-        switch (bearing) {
-            case NORTH:
-            case SOUTH:
-                for (int r = 0; r < SIZE; r++) {
-                    getPositions().add(new Position(pos.getRow() + r, pos.getColumn()));
-                }
-                break;
-
-            case EAST:
-            case WEST:
-                for (int c = 0; c < SIZE; c++) {
-                    getPositions().add(new Position(pos.getRow(), pos.getColumn() + c));
-                }
-                break;
-
-            default:
-                throw new IllegalArgumentException("ERROR! Invalid bearing for Carrack.");
-        }
+        if (getShape() == null)
+            throw new IllegalArgumentException("ERROR! Invalid bearing for Carrack.");
     }
 
     /**
@@ -0,0 +1,110 @@
+package iscteiul.ista.battleship;
+
+/**
+ * Categorias de navios do jogo, pela ordem em que a frota é listada no estado
+ * ({@link Fleet#printStatus()}): do maior para o menor.
+ * <p>
+ * Cada categoria tem o nome apresentado ao jogador (o valor de
+ * {@link IShip#getCategory()}) e a palavra usada nos comandos de colocação.
+ * </p>
+ */
+public enum Category {
+
+    /** Galeão: 5 células em T. */
+    GALEAO("Galeao", "galeao"),
+
+    /** Fragata: 4 células em linha. */
+    FRAGATA("Fragata", "fragata"),
+
+    /** Nau: 3 células em linha. */
+    NAU("Nau", "nau"),
+
+    /** Caravela: 2 células em linha. */
+    CARAVELA("Caravela", "caravela"),
+
+    /** Barca: 1 célula. */
+    BARCA("Barca", "barca");
+
+    /** Nome apresentado ao jogador. */
+    private final String name;
+
+    /** Palavra usada nos comandos de colocação. */
+    private final String keyword;
+
+    Category(String name, String keyword) {
+        this.name = name;
+        this.keyword = keyword;
+    }
+
+    /**
+     * @return nome apresentado ao jogador (ex: "Galeao")
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return palavra usada nos comandos de colocação (ex: "galeao")
+     */
+    public String getKeyword() {
+        return keyword;
+    }
+
+    /**
+     * Obtém a categoria com um dado nome, sem alocar memória.
+     *
+     * @param name nome da categoria, tal como devolvido por {@link IShip#getCategory()}
+     * @return a categoria; {@code null} se o nome não corresponder a nenhuma
+     */
+    public static Category of(String name) {
+        if (name == null)
+            return null;
+        switch (name) {
+            case "Galeao":
+                return GALEAO;
+            case "Fragata":
+                return FRAGATA;
+            case "Nau":
+                return NAU;
+            case "Caravela":
+                return CARAVELA;
+            case "Barca":
+                return BARCA;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Obtém a categoria com uma dada palavra de colocação, sem alocar memória.
+     *
+     * @param keyword palavra usada nos comandos de colocação (ex: "galeao")
+     * @return a categoria; {@code null} se a palavra não corresponder a nenhuma
+     */
+    public static Category ofKeyword(String keyword) {
+        if (keyword == null)
+            return null;
+        switch (keyword) {
+            case "galeao":
+                return GALEAO;
+            case "fragata":
+                return FRAGATA;
+            case "nau":
+                return NAU;
+            case "caravela":
+                return CARAVELA;
+            case "barca":
+                return BARCA;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * @return nome apresentado ao jogador
+     */
+    @Override
+    public String toString() {
+        return name;
+    }
+}
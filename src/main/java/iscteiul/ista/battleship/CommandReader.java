@@ -0,0 +1,277 @@
+package iscteiul.ista.battleship;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.InputMismatchException;
+import java.util.NoSuchElementException;
+
+/**
+ * Leitor de comandos do jogo, alternativa leve ao {@link java.util.Scanner}.
+ * <p>
+ * Lê os bytes da entrada através de um buffer próprio e separa-os em palavras
+ * delimitadas por espaços em branco, sem expressões regulares. A palavra atual
+ * fica guardada num vetor de bytes reutilizado, e pode ser comparada com
+ * palavras-chave, convertida num inteiro ou reduzida ao seu primeiro carácter
+ * sem criar objetos {@code String}. Os comandos do jogo são todos ASCII.
+ * </p>
+ * <p>
+ * Tal como o {@code Scanner}, pedir uma palavra depois do fim da entrada lança
+ * {@link NoSuchElementException} e ler um inteiro mal formado lança
+ * {@link InputMismatchException}.
+ * </p>
+ */
+public final class CommandReader {
+
+    /** Tamanho do buffer de leitura. */
+    private static final int BUFFER_SIZE = 8192;
+
+    /** Entrada de bytes; {@code null} se a leitura for feita a partir de um canal. */
+    private final InputStream stream;
+
+    /** Canal de entrada; {@code null} se a leitura for feita a partir de um {@code InputStream}. */
+    private final ReadableByteChannel channel;
+
+    /** Buffer de leitura. */
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+
+    /** Vista do buffer de leitura usada com canais. */
+    private final ByteBuffer view;
+
+    /** Posição do próximo byte por ler e número de bytes válidos no buffer. */
+    private int position, limit;
+
+    /** Indica se a entrada já chegou ao fim. */
+    private boolean eof;
+
+    /** Bytes da palavra atual. */
+    private byte[] token = new byte[32];
+
+    /** Comprimento da palavra atual. */
+    private int length;
+
+    /**
+     * Constrói um leitor sobre uma entrada de bytes.
+     *
+     * @param in entrada de bytes
+     */
+    public CommandReader(InputStream in) {
+        this.stream = in;
+        this.channel = null;
+        this.view = null;
+    }
+
+    /**
+     * Constrói um leitor sobre um canal de entrada, que deve estar em modo bloqueante.
+     *
+     * @param in canal de entrada
+     */
+    public CommandReader(ReadableByteChannel in) {
+        this.stream = null;
+        this.channel = in;
+        this.view = ByteBuffer.wrap(buffer);
+    }
+
+    /**
+     * Indica se ainda existe alguma palavra na entrada.
+     *
+     * @return {@code true} se existir mais uma palavra
+     */
+    public boolean hasNext() {
+        return skipWhitespace();
+    }
+
+    /**
+     * Avança para a próxima palavra da entrada.
+     *
+     * @throws NoSuchElementException se a entrada tiver chegado ao fim
+     */
+    public void next() {
+        if (!skipWhitespace())
+            throw new NoSuchElementException();
+
+        length = 0;
+        while (true) {
+            if (position == limit && !fill())
+                return;
+            byte b = buffer[position];
+            if (isWhitespace(b))
+                return;
+            if (length == token.length) {
+                byte[] larger = new byte[length * 2];
+                System.arraycopy(token, 0, larger, 0, length);
+                token = larger;
+            }
+            token[length++] = b;
+            position++;
+        }
+    }
+
+    /**
+     * Indica se a palavra atual é igual a uma palavra-chave ASCII.
+     *
+     * @param keyword palavra-chave
+     * @return {@code true} se forem iguais
+     */
+    public boolean is(String keyword) {
+        return matches(token, length, keyword);
+    }
+
+    /**
+     * Avança para a próxima palavra e procura-a numa lista de palavras-chave.
+     *
+     * @param keywords palavras-chave ASCII
+     * @return índice da palavra-chave igual à palavra lida; -1 se nenhuma for igual
+     * @throws NoSuchElementException se a entrada tiver chegado ao fim
+     */
+    public int nextKeyword(String[] keywords) {
+        next();
+        for (int i = 0; i < keywords.length; i++)
+            if (is(keywords[i]))
+                return i;
+        return -1;
+    }
+
+    /**
+     * Avança para a próxima palavra e devolve o seu primeiro carácter.
+     *
+     * @return primeiro carácter da palavra
+     * @throws NoSuchElementException se a entrada tiver chegado ao fim
+     */
+    public char nextChar() {
+        next();
+        return (char) (token[0] & 0xFF);
+    }
+
+    /**
+     * Avança para a próxima palavra e interpreta-a como um inteiro decimal.
+     *
+     * @return valor lido
+     * @throws NoSuchElementException se a entrada tiver chegado ao fim
+     * @throws InputMismatchException se a palavra não for um inteiro válido
+     */
+    public int nextInt() {
+        next();
+        return parseInt(token, length);
+    }
+
+    /**
+     * Indica se uma palavra é igual a uma palavra-chave ASCII.
+     *
+     * @param token bytes da palavra
+     * @param length comprimento da palavra
+     * @param keyword palavra-chave
+     * @return {@code true} se forem iguais
+     */
+    static boolean matches(byte[] token, int length, String keyword) {
+        if (keyword.length() != length)
+            return false;
+        for (int i = 0; i < length; i++)
+            if (token[i] != keyword.charAt(i))
+                return false;
+        return true;
+    }
+
+    /**
+     * Interpreta uma palavra como um inteiro decimal, com sinal opcional.
+     *
+     * @param token bytes da palavra
+     * @param length comprimento da palavra, maior do que zero
+     * @return valor lido
+     * @throws InputMismatchException se a palavra não for um inteiro válido
+     */
+    static int parseInt(byte[] token, int length) {
+        int i = 0;
+        boolean negative = false;
+        if (token[0] == '-' || token[0] == '+') {
+            negative = token[0] == '-';
+            i++;
+        }
+        if (i == length)
+            throw new InputMismatchException();
+
+        long value = 0;
+        for (; i < length; i++) {
+            int digit = token[i] - '0';
+            if (digit < 0 || digit > 9)
+                throw new InputMismatchException();
+            value = value * 10 + digit;
+            if (value > (long) Integer.MAX_VALUE + 1)
+                throw new InputMismatchException();
+        }
+        if (negative)
+            value = -value;
+        if (value > Integer.MAX_VALUE)
+            throw new InputMismatchException();
+        return (int) value;
+    }
+
+    /**
+     * Devolve a palavra atual como {@code String}, para mensagens de diagnóstico.
+     *
+     * @return palavra atual
+     */
+    public String token() {
+        return new String(token, 0, length, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Avança até ao próximo byte que não seja espaço em branco.
+     *
+     * @return {@code true} se existir esse byte; {@code false} no fim da entrada
+     */
+    private boolean skipWhitespace() {
+        while (true) {
+            if (position == limit && !fill())
+                return false;
+            if (!isWhitespace(buffer[position]))
+                return true;
+            position++;
+        }
+    }
+
+    /**
+     * Volta a encher o buffer de leitura.
+     *
+     * @return {@code true} se foram lidos novos bytes; {@code false} no fim da entrada
+     */
+    private boolean fill() {
+        if (eof)
+            return false;
+        try {
+            int n;
+            do {
+                if (stream != null) {
+                    n = stream.read(buffer, 0, buffer.length);
+                } else {
+                    view.clear();
+                    n = channel.read(view);
+                }
+            } while (n == 0);
+
+            if (n < 0) {
+                eof = true;
+                return false;
+            }
+            position = 0;
+            limit = n;
+            return true;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Indica se um byte é um espaço em branco (espaço, tabulação, mudança de linha,
+     * retorno, avanço de página ou separadores ASCII).
+     *
+     * @param b byte a verificar
+     * @return {@code true} se for um separador
+     */
+    static boolean isWhitespace(byte b) {
+        return b == ' ' || (b >= '\t' && b <= '\r') || (b >= 0x1C && b <= 0x1F);
+    }
+}
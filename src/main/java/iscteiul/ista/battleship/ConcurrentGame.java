@@ -0,0 +1,237 @@
+package iscteiul.ista.battleship;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Jogo de Battleship que pode ser partilhado por várias threads (jogadores em
+ * cooperação, robôs em paralelo) sem locks.
+ * <p>
+ * Cada célula é reclamada por compare-and-set no mapa de bits das células
+ * atacadas: de vários tiros simultâneos na mesma célula, exatamente um é
+ * resolvido e os restantes contam como repetidos. O dano de cada navio é
+ * também registado por compare-and-set ({@link Ship#hit(IPosition)}), pelo que
+ * exatamente um chamador observa o afundamento de cada navio. Os contadores
+ * usam {@link LongAdder} para não serem um ponto de contenção.
+ * </p>
+ * <p>
+ * Cada tiro é linearizável: o seu ponto de linearização é o compare-and-set que
+ * reclama a célula (ou a leitura que a encontra já reclamada). Os contadores e a
+ * lista de tiros são lidos sem bloquear os disparos, pelo que, durante uma rajada
+ * concorrente, podem refletir um estado intermédio; ficam exatos quando os
+ * disparos terminam.
+ * </p>
+ */
+public class ConcurrentGame implements IGame {
+
+    /** A frota de navios associada a este jogo. A disposição não pode mudar durante o jogo. */
+    private final IFleet fleet;
+
+    /** Mapa de bits das células já atacadas, atualizado por compare-and-set. */
+    private final AtomicLongArray firedCells;
+
+    /** Tiros válidos, pela ordem em que reclamaram uma posição no registo. */
+    private final AtomicReferenceArray<IPosition> shots;
+
+    /** Número de posições já reclamadas no registo de tiros. */
+    private final AtomicInteger shotCount = new AtomicInteger();
+
+    /* Contadores */
+    private final LongAdder countInvalidShots = new LongAdder();
+    private final LongAdder countRepeatedShots = new LongAdder();
+    private final LongAdder countHits = new LongAdder();
+    private final LongAdder countSinks = new LongAdder();
+
+    /**
+     * Constrói um jogo concorrente com uma frota específica, ainda sem tiros.
+     *
+     * @param fleet frota do jogo; os seus navios devem ser instâncias de {@link Ship}
+     */
+    public ConcurrentGame(IFleet fleet) {
+        this.fleet = fleet;
+        this.firedCells = new AtomicLongArray((BitBoard.CELLS + 63) >>> 6);
+        this.shots = new AtomicReferenceArray<>(BitBoard.CELLS);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public IShip fire(IPosition pos) {
+        int result = shoot(pos.getRow(), pos.getColumn());
+        if (ShotResult.kind(result) == ShotResult.SUNK)
+            return fleet.getShips().get(ShotResult.shipIndex(result));
+        return null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int fire(int row, int column) {
+        return shoot(row, column);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Cada tiro da rajada é linearizável, mas a rajada no seu conjunto não é
+     * atómica: os tiros de outras threads podem intercalar-se com os seus.
+     * </p>
+     */
+    @Override
+    public int fireSalvo(int[] shots, int[] results) {
+        assert results.length >= shots.length;
+
+        int sunk = 0;
+        for (int i = 0; i < shots.length; i++) {
+            results[i] = shoot(Position.unpackRow(shots[i]), Position.unpackColumn(shots[i]));
+            if (ShotResult.kind(results[i]) == ShotResult.SUNK)
+                sunk++;
+        }
+        return sunk;
+    }
+
+    /**
+     * Resolve um disparo sobre uma célula.
+     *
+     * @param row linha do tiro
+     * @param column coluna do tiro
+     * @return código do resultado ({@link ShotResult})
+     */
+    private int shoot(int row, int column) {
+        if (row < 0 || row >= IFleet.BOARD_SIZE || column < 0 || column >= IFleet.BOARD_SIZE) {
+            countInvalidShots.increment();
+            return ShotResult.INVALID;
+        }
+
+        int cell = BitBoard.index(row, column);
+        int word = cell >>> 6;
+        long bit = 1L << cell;
+        while (true) {
+            long current = firedCells.get(word);
+            if ((current & bit) != 0) {
+                countRepeatedShots.increment();
+                return ShotResult.REPEATED;
+            }
+            if (firedCells.compareAndSet(word, current, current | bit))
+                break;
+        }
+
+        Position pos = Position.of(row, column);
+        shots.set(shotCount.getAndIncrement(), pos);
+        int index = fleet.shipIndexAt(row, column);
+        if (index < 0)
+            return ShotResult.MISS;
+
+        countHits.increment();
+        if (((Ship) fleet.getShips().get(index)).hit(pos)) {
+            countSinks.increment();
+            return ShotResult.of(ShotResult.SUNK, index);
+        }
+        return ShotResult.of(ShotResult.HIT, index);
+    }
+
+    /**
+     * Devolve uma cópia dos tiros válidos, pela ordem em que foram registados.
+     * Um tiro cuja célula já foi reclamada mas que ainda não acabou de ser
+     * registado pode não aparecer.
+     *
+     * @return lista de posições
+     */
+    @Override
+    public List<IPosition> getShots() {
+        int n = shotCount.get();
+        List<IPosition> list = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            IPosition pos = shots.get(i);
+            if (pos != null)
+                list.add(pos);
+        }
+        return list;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getRepeatedShots() {
+        return countRepeatedShots.intValue();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getInvalidShots() {
+        return countInvalidShots.intValue();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getHits() {
+        return countHits.intValue();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getSunkShips() {
+        return countSinks.intValue();
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Lido do contador da frota ({@link IFleet#getFloatingCount()}), que os navios
+     * atualizam no mesmo compare-and-set que os afunda.
+     * </p>
+     */
+    @Override
+    public int getRemainingShips() {
+        return fleet.getFloatingCount();
+    }
+
+    /**
+     * Indica se uma célula já foi atacada.
+     *
+     * @param row linha
+     * @param column coluna
+     * @return {@code true} se a célula já tiver sido reclamada por um tiro
+     */
+    public boolean isFired(int row, int column) {
+        int cell = BitBoard.index(row, column);
+        return (firedCells.get(cell >>> 6) & (1L << cell)) != 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void printValidShots() {
+        BoardRenderer board = new BoardRenderer();
+        for (int row = 0; row < IFleet.BOARD_SIZE; row++)
+            for (int col = 0; col < IFleet.BOARD_SIZE; col++)
+                if (isFired(row, col))
+                    board.set(row, col, BoardRenderer.HIT);
+        board.writeTo(System.out);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void printFleet() {
+        BoardRenderer board = new BoardRenderer();
+        for (IShip s : fleet.getShips())
+            board.mark(s.getPositions(), BoardRenderer.SHIP);
+        board.writeTo(System.out);
+    }
+}
@@ -0,0 +1,58 @@
+package iscteiul.ista.battleship;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+
+/**
+ * Reserva de buffers diretos de tamanho fixo, para evitar alocar memória fora
+ * do heap a cada escrita pendente. Não é segura entre threads: cada ciclo de
+ * eventos do servidor tem a sua.
+ */
+final class DirectBufferPool {
+
+    /** Capacidade de cada buffer. */
+    private final int bufferSize;
+
+    /** Número máximo de buffers livres guardados. */
+    private final int maxIdle;
+
+    /** Buffers livres. */
+    private final ArrayDeque<ByteBuffer> idle = new ArrayDeque<>();
+
+    /**
+     * @param bufferSize capacidade de cada buffer
+     * @param maxIdle número máximo de buffers livres guardados; os restantes são descartados
+     */
+    DirectBufferPool(int bufferSize, int maxIdle) {
+        this.bufferSize = bufferSize;
+        this.maxIdle = maxIdle;
+    }
+
+    /**
+     * Obtém um buffer vazio, reutilizado se houver algum livre.
+     *
+     * @return buffer pronto a escrever
+     */
+    ByteBuffer acquire() {
+        ByteBuffer buffer = idle.pollFirst();
+        return buffer != null ? buffer : ByteBuffer.allocateDirect(bufferSize);
+    }
+
+    /**
+     * Devolve um buffer à reserva.
+     *
+     * @param buffer buffer obtido com {@link #acquire()}
+     */
+    void release(ByteBuffer buffer) {
+        buffer.clear();
+        if (idle.size() < maxIdle)
+            idle.addFirst(buffer);
+    }
+
+    /**
+     * @return número de buffers livres
+     */
+    int idle() {
+        return idle.size();
+    }
+}
@@ -4,7 +4,11 @@
 package iscteiul.ista.battleship;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
 
 /**
  * Representa uma frota de navios no jogo Battleship.
@@ -32,11 +36,63 @@ public class Fleet implements IFleet {
      */
     private List<IShip> ships;
 
+    /**
+     * Índice célula-navio: para cada célula ({@code linha * BOARD_SIZE + coluna})
+     * guarda a posição do navio na lista {@link #ships} mais um; 0 indica água.
+     */
+    private byte[] cellToShip;
+
+    /**
+     * Zona de exclusão: células ocupadas por um navio da frota ou adjacentes a
+     * um (incluindo diagonais), onde nenhum novo navio pode ser colocado.
+     */
+    private BitBoard exclusionZone;
+
+    /**
+     * Índice por categoria: vistas só de leitura dos navios de cada categoria,
+     * pela ordem de inserção. As listas são criadas quando chega o primeiro navio
+     * da categoria.
+     */
+    private final EnumMap<Category, List<IShip>> byCategory = new EnumMap<>(Category.class);
+
+    /** Listas modificáveis por trás das vistas de {@link #byCategory}. */
+    private final EnumMap<Category, List<IShip>> categoryLists = new EnumMap<>(Category.class);
+
+    /**
+     * Índices dos navios de categoria conhecida em {@link #ships}, ordenados por
+     * categoria e, dentro de cada uma, pela ordem de inserção.
+     */
+    private byte[] categoryOrder = new byte[0];
+
+    /**
+     * Número de navios da frota que ainda flutuam. Os navios {@link Ship} avisam a
+     * frota quando afundam ou voltam a flutuar ({@link #floatingChanged(Ship, boolean)}),
+     * pelo que o contador acompanha os tiros de qualquer jogo, mesmo em várias threads.
+     */
+    private final AtomicInteger floatingCount = new AtomicInteger();
+
+    /** Navios que ainda flutuam em cada categoria, pelo ordinal; mantido como {@link #floatingCount}. */
+    private final AtomicIntegerArray floatingByCategory = new AtomicIntegerArray(Category.values().length);
+
+    /**
+     * Número de navios da frota cujo estado não é seguido por {@link #floatingCount}: os que
+     * não são {@link Ship} e os que já pertenciam a outra frota, que continuam a avisar essa.
+     */
+    private int untrackedShips;
+
+    /** Texto do estado, reutilizado por {@link #printStatus()}. */
+    private StringBuilder statusText;
+
+    /** Início e fim da linha de cada navio dentro do texto do estado. */
+    private int[] lineBounds;
+
     /**
      * Cria uma nova frota vazia inicializando a lista de navios.
      */
     public Fleet() {
         ships = new ArrayList<>();
+        cellToShip = new byte[BOARD_SIZE * BOARD_SIZE];
+        exclusionZone = new BitBoard();
     }
 
     /**
@@ -60,33 +116,132 @@ public class Fleet implements IFleet {
         boolean result = false;
         if ((ships.size() <= FLEET_SIZE) && (isInsideBoard(s)) && (!colisionRisk(s))) {
             ships.add(s);
+            for (IPosition p : s.getPositions()) {
+                cellToShip[BitBoard.index(p.getRow(), p.getColumn())] = (byte) ships.size();
+                markExclusionZone(p);
+            }
+            index(s, ships.size() - 1);
+            track(s);
             result = true;
         }
         return result;
     }
 
+    /**
+     * Passa a seguir o estado de um navio acabado de inserir, para manter a contagem
+     * dos navios que flutuam.
+     * * @param s O navio.
+     */
+    private void track(IShip s) {
+        if (!(s instanceof Ship) || !((Ship) s).joinFleet(this)) {
+            untrackedShips++;
+            return;
+        }
+        if (s.stillFloating())
+            floatingChanged((Ship) s, true);
+    }
+
+    /**
+     * Indica se o estado de um navio da frota é seguido pelos contadores.
+     * * @param s O navio.
+     * @return {@code true} se o navio avisa esta frota das suas mudanças de estado.
+     */
+    private boolean isTracked(IShip s) {
+        return s instanceof Ship && ((Ship) s).reportsTo(this);
+    }
+
+    /**
+     * Regista que um navio da frota foi afundado ou voltou a flutuar.
+     * Chamado pelo próprio navio, uma vez por mudança de estado.
+     * * @param s O navio.
+     * @param floating {@code true} se o navio voltou a flutuar.
+     */
+    void floatingChanged(Ship s, boolean floating) {
+        int delta = floating ? 1 : -1;
+        floatingCount.addAndGet(delta);
+        Category category = s.getCategoryType();
+        if (category != null)
+            floatingByCategory.addAndGet(category.ordinal(), delta);
+    }
+
+    /**
+     * Acrescenta um navio acabado de inserir ao índice por categoria.
+     * * @param s O navio.
+     * @param shipIndex A posição do navio em {@link #ships}.
+     */
+    private void index(IShip s, int shipIndex) {
+        Category category = s.getCategoryType();
+        if (category == null)
+            return;
+
+        List<IShip> list = categoryLists.get(category);
+        if (list == null) {
+            list = new ArrayList<>(4);
+            categoryLists.put(category, list);
+            byCategory.put(category, Collections.unmodifiableList(list));
+        }
+        list.add(s);
+
+        // insere depois do último navio da mesma categoria ou de uma categoria anterior
+        int at = categoryOrder.length;
+        while (at > 0 && ships.get(categoryOrder[at - 1]).getCategoryType().compareTo(category) > 0)
+            at--;
+        byte[] order = new byte[categoryOrder.length + 1];
+        System.arraycopy(categoryOrder, 0, order, 0, at);
+        order[at] = (byte) shipIndex;
+        System.arraycopy(categoryOrder, at, order, at + 1, categoryOrder.length - at);
+        categoryOrder = order;
+    }
+
     /**
      * Filtra os navios da frota com base na sua categoria.
      * * @param category O nome da categoria a procurar (ex: "Caravela", "Nau").
-     * @return Uma lista de navios que pertencem à categoria especificada.
+     * @return Uma lista só de leitura dos navios que pertencem à categoria especificada.
      */
     @Override
     public List<IShip> getShipsLike(String category) {
-        List<IShip> shipsLike = new ArrayList<>();
-        for (IShip s : ships)
-            if (s.getCategory().equals(category))
-                shipsLike.add(s);
+        return getShipsLike(Category.of(category));
+    }
+
+    /**
+     * Devolve os navios de uma categoria, consultando o índice por categoria.
+     * * @param category A categoria pretendida.
+     * @return Uma lista só de leitura dos navios da categoria; vazia se não houver nenhum.
+     */
+    @Override
+    public List<IShip> getShipsLike(Category category) {
+        List<IShip> list = category == null ? null : byCategory.get(category);
+        return list != null ? list : Collections.emptyList();
+    }
 
-        return shipsLike;
+    /**
+     * Conta os navios de uma categoria que ainda flutuam, lendo o contador da
+     * categoria mantido pelos próprios navios, como {@link #getFloatingCount()}.
+     * * @param category A categoria pretendida.
+     * @return O número de navios da categoria com partes intactas.
+     */
+    @Override
+    public int countFloating(Category category) {
+        if (category == null)
+            return 0;
+        int count = floatingByCategory.get(category.ordinal());
+        if (untrackedShips > 0) {
+            List<IShip> list = getShipsLike(category);
+            for (int i = 0; i < list.size(); i++)
+                if (!isTracked(list.get(i)) && list.get(i).stillFloating())
+                    count++;
+        }
+        return count;
     }
 
     /**
      * Filtra os navios da frota que ainda não foram totalmente afundados.
+     * Para saber apenas quantos são, {@link #getFloatingCount()} não percorre a frota.
      * * @return Uma lista de navios que ainda têm partes intactas.
      */
     @Override
     public List<IShip> getFloatingShips() {
-        List<IShip> floatingShips = new ArrayList<>();
+        List<IShip> floatingShips = new ArrayList<>(getFloatingCount());
         for (IShip s : ships)
             if (s.stillFloating())
                 floatingShips.add(s);
@@ -94,6 +249,21 @@ public class Fleet implements IFleet {
         return floatingShips;
     }
 
+    /**
+     * Devolve o número de navios que ainda flutuam, lido do contador mantido pelos
+     * próprios navios. Só os navios que não avisam esta frota são verificados um a um.
+     * * @return O número de navios com partes intactas.
+     */
+    @Override
+    public int getFloatingCount() {
+        int count = floatingCount.get();
+        if (untrackedShips > 0)
+            for (IShip s : ships)
+                if (!isTracked(s) && s.stillFloating())
+                    count++;
+        return count;
+    }
+
     /**
      * Verifica se existe algum navio da frota a ocupar uma posição específica.
      * * @param pos A posição a verificar.
@@ -101,10 +271,22 @@ public class Fleet implements IFleet {
      */
     @Override
     public IShip shipAt(IPosition pos) {
-        for (int i = 0; i < ships.size(); i++)
-            if (ships.get(i).occupies(pos))
-                return ships.get(i);
-        return null;
+        int index = shipIndexAt(pos.getRow(), pos.getColumn());
+        return index < 0 ? null : ships.get(index);
+    }
+
+    /**
+     * Devolve o índice do navio que ocupa uma célula, lido do índice célula-navio.
+     * * @param row A linha da célula.
+     * @param column A coluna da célula.
+     * @return O índice do navio em {@link #getShips()}, ou -1 se a célula estiver vazia ou fora do tabuleiro.
+     */
+    @Override
+    public int shipIndexAt(int row, int column) {
+        if (row < 0 || row >= BOARD_SIZE || column < 0 || column >= BOARD_SIZE)
+            return -1;
+
+        return cellToShip[BitBoard.index(row, column)] - 1;
     }
 
     /**
@@ -124,25 +306,74 @@ public class Fleet implements IFleet {
      * @return {@code true} se houver risco de colisão; {@code false} se a posição for segura.
      */
     private boolean colisionRisk(IShip s) {
-        for (int i = 0; i < ships.size(); i++) {
-            if (ships.get(i).tooCloseTo(s))
+        BitBoard footprint = (s instanceof Ship) ? ((Ship) s).getFootprint() : null;
+        if (footprint != null)
+            return exclusionZone.intersects(footprint);
+
+        for (IPosition p : s.getPositions())
+            if (exclusionZone.get(BitBoard.index(p.getRow(), p.getColumn())))
                 return true;
-        }
         return false;
     }
 
+    /**
+     * Acrescenta à zona de exclusão uma célula ocupada e as suas vizinhas
+     * que estejam dentro do tabuleiro.
+     * * @param p A posição ocupada por um navio da frota.
+     */
+    private void markExclusionZone(IPosition p) {
+        int firstRow = Math.max(p.getRow() - 1, 0);
+        int lastRow = Math.min(p.getRow() + 1, BOARD_SIZE - 1);
+        int firstColumn = Math.max(p.getColumn() - 1, 0);
+        int lastColumn = Math.min(p.getColumn() + 1, BOARD_SIZE - 1);
+        for (int r = firstRow; r <= lastRow; r++)
+            for (int c = firstColumn; c <= lastColumn; c++)
+                exclusionZone.set(BitBoard.index(r, c));
+    }
+
     /**
      * Imprime o estado geral da frota, incluindo todos os navios, 
      * os que flutuam e a listagem por categorias pré-definidas.
+     * O texto é reutilizado entre chamadas e codificado pelo próprio {@link System#out}.
      */
     public void printStatus() {
-        printAllShips();
-        printFloatingShips();
-        printShipsByCategory("Galeao");
-        printShipsByCategory("Fragata");
-        printShipsByCategory("Nau");
-        printShipsByCategory("Caravela");
-        printShipsByCategory("Barca");
+        if (statusText == null)
+            statusText = new StringBuilder(1024);
+        statusText.setLength(0);
+        appendStatus(statusText);
+
+        System.out.append(statusText);
+        System.out.flush();
+    }
+
+    /**
+     * Acrescenta o texto de {@link #printStatus()}: todos os navios, os que flutuam
+     * e os navios de cada categoria, pela ordem de {@link Category}, um por linha,
+     * terminada pelo fim de linha da plataforma ({@link BoardRenderer#NEWLINE}).
+     * Cada navio é formatado uma única vez; as secções seguintes copiam a sua linha.
+     * * @param out O destino do texto.
+     */
+    @Override
+    public void appendStatus(StringBuilder out) {
+        int n = ships.size();
+        if (lineBounds == null || lineBounds.length < 2 * n)
+            lineBounds = new int[2 * Math.max(n, FLEET_SIZE + 1)];
+
+        for (int i = 0; i < n; i++) {
+            lineBounds[2 * i] = out.length();
+            IShip s = ships.get(i);
+            if (s instanceof Ship)
+                ((Ship) s).appendTo(out);
+            else
+                out.append(s.toString());
+            out.append(BoardRenderer.NEWLINE);
+            lineBounds[2 * i + 1] = out.length();
+        }
+        for (int i = 0; i < n; i++)
+            if (ships.get(i).stillFloating())
+                out.append(out, lineBounds[2 * i], lineBounds[2 * i + 1]);
+        for (byte i : categoryOrder)
+            out.append(out, lineBounds[2 * i], lineBounds[2 * i + 1]);
     }
 
     /**
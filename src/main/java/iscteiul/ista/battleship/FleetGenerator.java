@@ -0,0 +1,194 @@
+package iscteiul.ista.battleship;
+
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+import iscteiul.ista.battleship.PlacementCatalog.Placement;
+
+/**
+ * Gerador de frotas aleatórias legais.
+ * <p>
+ * As frotas respeitam as regras de {@link Fleet#addShip(IShip)} (navios dentro do
+ * tabuleiro e sem se tocarem) e têm, por omissão, a composição padrão: 1 galeão,
+ * 1 fragata, 2 naus, 3 caravelas e 4 barcas, em qualquer orientação. Os navios são
+ * colocados do maior para o mais pequeno, percorrendo as colocações possíveis de
+ * cada tipo por uma ordem aleatória; quando um navio não tem espaço, o gerador
+ * recua e experimenta a colocação seguinte do navio anterior, em vez de recomeçar.
+ * </p>
+ * <p>
+ * A geração trabalha apenas com os mapas de bits do {@link PlacementCatalog}, sem
+ * alocar objetos por frota; {@link #next()} constrói a {@link Fleet} no fim. Cada
+ * instância não é segura para várias threads: para gerar em paralelo, cada thread
+ * deve usar o seu próprio gerador, obtido com {@link #split()}.
+ * </p>
+ */
+public class FleetGenerator {
+
+    /** Gerador de números aleatórios (com semente, para reprodutibilidade). */
+    private final SplittableRandom random;
+
+    /** Tipos dos navios a colocar, pela ordem de colocação. */
+    private final String[] kinds;
+
+    /** Colocações possíveis de cada navio. */
+    private final Placement[][] candidates;
+
+    /** Zona de exclusão acumulada antes de colocar cada navio. */
+    private final BitBoard[] blocked;
+
+    /** Passos possíveis (primos com o número de colocações) da ordem aleatória de cada navio. */
+    private final int[][] steps;
+
+    /** Próxima colocação a experimentar para cada navio. */
+    private final int[] next;
+
+    /** Passo da ordem aleatória escolhida para cada navio. */
+    private final int[] step;
+
+    /** Número de colocações já experimentadas para cada navio. */
+    private final int[] tried;
+
+    /**
+     * Cria um gerador da frota padrão com a semente indicada.
+     *
+     * @param seed semente do gerador aleatório
+     */
+    public FleetGenerator(long seed) {
+        this(new SplittableRandom(seed), PlacementCatalog.STANDARD_FLEET);
+    }
+
+    /**
+     * Cria um gerador para uma composição de frota arbitrária.
+     *
+     * @param random gerador de números aleatórios
+     * @param kinds tipos dos navios (ex: "galeao", "barca"); convém estarem do maior para o mais pequeno
+     */
+    FleetGenerator(SplittableRandom random, String[] kinds) {
+        this.random = random;
+        this.kinds = kinds.clone();
+        this.candidates = new Placement[kinds.length][];
+        this.blocked = new BitBoard[kinds.length + 1];
+        this.steps = new int[kinds.length][];
+        this.next = new int[kinds.length];
+        this.step = new int[kinds.length];
+        this.tried = new int[kinds.length];
+
+        for (int i = 0; i < kinds.length; i++) {
+            candidates[i] = PlacementCatalog.placements(kinds[i]);
+            if (candidates[i] == null)
+                throw new IllegalArgumentException("ERROR! unknown ship kind " + kinds[i]);
+            steps[i] = coprimes(candidates[i].length);
+        }
+        for (int i = 0; i <= kinds.length; i++)
+            blocked[i] = new BitBoard();
+    }
+
+    /**
+     * Devolve um novo gerador independente deste, para uso noutra thread.
+     *
+     * @return gerador com a mesma composição de frota e um fluxo aleatório próprio
+     */
+    public FleetGenerator split() {
+        return new FleetGenerator(random.split(), kinds);
+    }
+
+    /**
+     * Gera uma frota aleatória legal. Quando várias orientações ocupam as mesmas
+     * células (uma Barca em qualquer orientação, uma Nau a Norte ou a Sul), a
+     * orientação do navio é escolhida ao acaso entre elas.
+     *
+     * @return frota com todos os navios colocados
+     */
+    public Fleet next() {
+        Placement[] layout = new Placement[kinds.length];
+        nextLayout(layout);
+
+        Fleet fleet = new Fleet();
+        for (Placement p : layout) {
+            boolean added = fleet.addShip(p.build(random.nextInt(p.variants())));
+            assert added;
+        }
+        return fleet;
+    }
+
+    /**
+     * Gera uma disposição aleatória legal sem construir navios.
+     *
+     * @param layout vetor onde é escrita a colocação de cada navio, pela ordem dos tipos
+     * @return número de colocações experimentadas (medida do trabalho de pesquisa)
+     */
+    int nextLayout(Placement[] layout) {
+        int attempts = 0;
+        int depth = 0;
+        blocked[0].clear();
+        restart(0);
+
+        while (depth < kinds.length) {
+            Placement[] options = candidates[depth];
+            Placement found = null;
+            while (found == null && tried[depth] < options.length) {
+                Placement p = options[next[depth]];
+                next[depth] += step[depth];
+                if (next[depth] >= options.length)
+                    next[depth] -= options.length;
+                tried[depth]++;
+                attempts++;
+                if (!p.footprint.intersects(blocked[depth]))
+                    found = p;
+            }
+
+            if (found != null) {
+                layout[depth] = found;
+                blocked[depth + 1].copyFrom(blocked[depth]);
+                blocked[depth + 1].or(found.halo);
+                depth++;
+                if (depth < kinds.length)
+                    restart(depth);
+            } else if (depth == 0) {
+                throw new IllegalStateException("ERROR! the fleet does not fit on the board");
+            } else {
+                depth--;
+            }
+        }
+        return attempts;
+    }
+
+    /**
+     * Escolhe uma nova ordem aleatória para as colocações de um navio: um ponto de
+     * partida e um passo primo com o número de colocações, o que percorre todas
+     * uma única vez.
+     *
+     * @param depth índice do navio
+     */
+    private void restart(int depth) {
+        next[depth] = random.nextInt(candidates[depth].length);
+        step[depth] = steps[depth][random.nextInt(steps[depth].length)];
+        tried[depth] = 0;
+    }
+
+    /**
+     * Devolve todos os passos entre 1 e {@code n} que são primos com {@code n}.
+     *
+     * @param n número de colocações
+     * @return passos válidos
+     */
+    private static int[] coprimes(int n) {
+        return IntStream.rangeClosed(1, n).filter(s -> gcd(s, n) == 1).toArray();
+    }
+
+    /**
+     * Máximo divisor comum.
+     *
+     * @param a primeiro valor
+     * @param b segundo valor
+     * @return maior divisor comum de {@code a} e {@code b}
+     */
+    private static int gcd(int a, int b) {
+        while (b != 0) {
+            int t = a % b;
+            a = b;
+            b = t;
+        }
+        return a;
+    }
+}
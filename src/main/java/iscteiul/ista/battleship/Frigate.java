@@ -22,8 +22,8 @@ public class Frigate extends Ship {
 
     /**
      * Constrói uma nova Fragata com uma orientação e posição inicial específicas.
-     * Este construtor calcula as posições ocupadas pelo navio no tabuleiro com base 
-     * no seu tamanho (4) e na direção fornecida.
+     * As posições ocupadas pelo navio no tabuleiro são obtidas do modelo
+     * pré-calculado ({@link ShipShape}) para a direção fornecida.
      * * @param bearing a direção (norte, sul, este, oeste) para a qual a Fragata está orientada.
      * @param pos a posição inicial (âncora) a partir da qual o navio é gerado.
      * @throws IllegalArgumentException se o bearing for inválido ou nulo.
@@ -31,24 +31,8 @@ public class Frigate extends Ship {
     public Frigate(Compass bearing, IPosition pos) throws IllegalArgumentException {
         super(Frigate.NAME, bearing, pos);
         
-        if (bearing == null) {
-             throw new IllegalArgumentException("ERROR! invalid bearing for the frigate");
-        }
-
-        switch (bearing) {
-            case NORTH:
-            case SOUTH:
-                for (int r = 0; r < SIZE; r++)
-                    getPositions().add(new Position(pos.getRow() + r, pos.getColumn()));
-                break;
-            case EAST:
-            case WEST:
-                for (int c = 0; c < SIZE; c++)
-                    getPositions().add(new Position(pos.getRow(), pos.getColumn() + c));
-                break;
-            default:
-                throw new IllegalArgumentException("ERROR! invalid bearing for the frigate");
-        }
+        if (getShape() == null)
+            throw new IllegalArgumentException("ERROR! invalid bearing for the frigate");
     }
 
     /**
@@ -23,8 +23,8 @@ public class Galleon extends Ship {
 
     /**
      * Constrói um novo Galeão com uma orientação e posição inicial específicas.
-     * Invoca métodos auxiliares de preenchimento dependendo da direção fornecida 
-     * para definir a forma do navio.
+     * A forma do navio é obtida por translação do modelo pré-calculado
+     * ({@link ShipShape}) para a direção fornecida.
      * * @param bearing a direção (norte, sul, este, oeste) para a qual o Galeão está virado.
      * @param pos a posição de referência para o posicionamento do navio.
      * @throws NullPointerException se o bearing for nulo.
@@ -36,23 +36,8 @@ public class Galleon extends Ship {
         if (bearing == null)
             throw new NullPointerException("ERROR! invalid bearing for the galleon");
 
-        switch (bearing) {
-            case NORTH:
-                fillNorth(pos);
-                break;
-            case EAST:
-                fillEast(pos);
-                break;
-            case SOUTH:
-                fillSouth(pos);
-                break;
-            case WEST:
-                fillWest(pos);
-                break;
-
-            default:
-                throw new IllegalArgumentException("ERROR! invalid bearing for the galleon");
-        }
+        if (getShape() == null)
+            throw new IllegalArgumentException("ERROR! invalid bearing for the galleon");
     }
 
     /**
@@ -65,53 +50,4 @@ public class Galleon extends Ship {
         return Galleon.SIZE;
     }
 
-    /**
-     * Preenche as posições do navio quando este está orientado a Norte.
-     * @param pos posição inicial de referência.
-     */
-    private void fillNorth(IPosition pos) {
-        for (int i = 0; i < 3; i++) {
-            getPositions().add(new Position(pos.getRow(), pos.getColumn() + i));
-        }
-        getPositions().add(new Position(pos.getRow() + 1, pos.getColumn() + 1));
-        getPositions().add(new Position(pos.getRow() + 2, pos.getColumn() + 1));
-    }
-
-    /**
-     * Preenche as posições do navio quando este está orientado a Sul.
-     * @param pos posição inicial de referência.
-     */
-    private void fillSouth(IPosition pos) {
-        for (int i = 0; i < 2; i++) {
-            getPositions().add(new Position(pos.getRow() + i, pos.getColumn()));
-        }
-        for (int j = 2; j < 5; j++) {
-            getPositions().add(new Position(pos.getRow() + 2, pos.getColumn() + j - 3));
-        }
-    }
-
-    /**
-     * Preenche as posições do navio quando este está orientado a Este.
-     * @param pos posição inicial de referência.
-     */
-    private void fillEast(IPosition pos) {
-        getPositions().add(new Position(pos.getRow(), pos.getColumn()));
-        for (int i = 1; i < 4; i++) {
-            getPositions().add(new Position(pos.getRow() + 1, pos.getColumn() + i - 3));
-        }
-        getPositions().add(new Position(pos.getRow() + 2, pos.getColumn()));
-    }
-
-    /**
-     * Preenche as posições do navio quando este está orientado a Oeste.
-     * @param pos posição inicial de referência.
-     */
-    private void fillWest(IPosition pos) {
-        getPositions().add(new Position(pos.getRow(), pos.getColumn()));
-        for (int i = 1; i < 4; i++) {
-            getPositions().add(new Position(pos.getRow() + 1, pos.getColumn() + i - 1));
-        }
-        getPositions().add(new Position(pos.getRow() + 2, pos.getColumn()));
-    }
-
 }
@@ -2,7 +2,8 @@
  * */
 package iscteiul.ista.battleship;
 
-import java.util.ArrayList;
+import java.util.AbstractList;
+import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -13,35 +14,86 @@ import java.util.List;
  * @version 1.0
  */
 public class Game implements IGame {
+
+    /** Capacidade inicial do histórico de disparos: chega para um jogo inteiro com repetições. */
+    private static final int HISTORY_CAPACITY = 256;
+
+    /** Marca, num registo do histórico, um disparo que alterou o estado de um navio. */
+    private static final int SHIP_CHANGED = 0x80;
     
     /** A frota de navios associada a este jogo. */
     private IFleet fleet;
     
-    /** Lista de posições onde já foram efetuados tiros válidos. */
+    /** Células ({@code linha * BOARD_SIZE + coluna}) dos tiros válidos, por ordem de disparo. */
+    private byte[] shotCells;
+
+    /** Número de tiros válidos em {@link #shotCells}. */
+    private int shotCount;
+
+    /** Vista só de leitura de {@link #shotCells} como posições, devolvida por {@link #getShots()}. */
     private List<IPosition> shots;
 
+    /**
+     * Histórico de disparos, para {@link #unfire()}: um byte por disparo com o tipo
+     * do resultado ({@link ShotResult#kind(int)}), mais {@link #SHIP_CHANGED} se o
+     * navio atingido mudou de estado. A célula dos tiros válidos já está em {@link #shotCells}.
+     * {@code null} enquanto {@link #enableUndo()} não for chamado, para que os jogos que
+     * nunca desfazem tiros não guardem um histórico que só cresce.
+     */
+    private byte[] history;
+
+    /** Número de disparos em {@link #history}. */
+    private int historySize;
+
+    /** Mapa de bits das células já atacadas, para deteção de tiros repetidos em O(1). */
+    private BitBoard firedCells;
+
     /** Contador de tiros disparados fora dos limites do tabuleiro. */
-    private Integer countInvalidShots;
+    private int countInvalidShots;
     
     /** Contador de tiros disparados em coordenadas já atacadas anteriormente. */
-    private Integer countRepeatedShots;
+    private int countRepeatedShots;
     
     /** Contador de tiros que atingiram uma parte de um navio. */
-    private Integer countHits;
+    private int countHits;
     
     /** Contador de navios que foram totalmente afundados. */
-    private Integer countSinks;
+    private int countSinks;
+
+    /** Diário onde são registados os tiros; {@code null} se o jogo não estiver a ser registado. */
+    private GameJournal journal;
+
+    /** Identificador deste jogo no diário. */
+    private long journalId;
+
+    /** Desenhador reutilizado pelos métodos de impressão; criado no primeiro uso. */
+    private BoardRenderer renderer;
 
     /**
      * Constrói uma nova instância de um jogo com uma frota específica.
      * * @param fleet A frota de navios ({@link IFleet}) que será utilizada no jogo.
      */
     public Game(IFleet fleet) {
-        shots = new ArrayList<>();
+        shotCells = new byte[BitBoard.CELLS];
+        shots = new AbstractList<IPosition>() {
+            @Override
+            public IPosition get(int i) {
+                if (i < 0 || i >= shotCount)
+                    throw new IndexOutOfBoundsException(i);
+                int cell = shotCells[i] & 0xFF;
+                return Position.of(cell / Fleet.BOARD_SIZE, cell % Fleet.BOARD_SIZE);
+            }
+
+            @Override
+            public int size() {
+                return shotCount;
+            }
+        };
+        firedCells = new BitBoard();
         countInvalidShots = 0;
         countRepeatedShots = 0;
-        countHits = 0; // Inicializado para evitar NullPointerException
-        countSinks = 0; // Inicializado para evitar NullPointerException
+        countHits = 0;
+        countSinks = 0;
         this.fleet = fleet;
     }
 
@@ -55,30 +107,244 @@ public class Game implements IGame {
      */
     @Override
     public IShip fire(IPosition pos) {
-        if (!validShot(pos)) {
+        int result = shoot(pos.getRow(), pos.getColumn());
+        if (ShotResult.kind(result) == ShotResult.SUNK)
+            return fleet.getShips().get(ShotResult.shipIndex(result));
+        return null;
+    }
+
+    /**
+     * Executa um disparo numa célula, sem alocar objetos: as posições vêm da cache
+     * de {@link Position#of(int, int)} e os tiros são guardados como índices de célula.
+     * * @param row A linha do tiro.
+     * @param column A coluna do tiro.
+     * @return O código do resultado ({@link ShotResult}).
+     */
+    @Override
+    public int fire(int row, int column) {
+        return shoot(row, column);
+    }
+
+    /**
+     * Executa uma rajada de disparos numa única passagem.
+     * Cada tiro é codificado com {@link Position#pack(int, int)} e o respetivo
+     * resultado ({@link ShotResult}) é escrito na mesma posição do vetor de resultados.
+     * * @param shots As coordenadas codificadas dos tiros.
+     * @param results O vetor onde são escritos os resultados; deve ter pelo menos o tamanho de {@code shots}.
+     * @return O número de navios afundados pela rajada.
+     */
+    @Override
+    public int fireSalvo(int[] shots, int[] results) {
+        assert results.length >= shots.length;
+
+        int sunk = 0;
+        for (int i = 0; i < shots.length; i++) {
+            results[i] = shoot(Position.unpackRow(shots[i]), Position.unpackColumn(shots[i]));
+            if (ShotResult.kind(results[i]) == ShotResult.SUNK)
+                sunk++;
+        }
+        return sunk;
+    }
+
+    /**
+     * Passa a registar este jogo num diário: a disposição da frota é escrita de
+     * imediato e cada tiro seguinte é registado com o respetivo resultado.
+     * * @param journal O diário onde o jogo é registado.
+     * @return O identificador atribuído ao jogo no diário.
+     * @throws IllegalStateException se o jogo já tiver tiros ou já estiver a ser registado.
+     */
+    public long recordTo(GameJournal journal) {
+        if (this.journal != null || shotCount > 0 || countInvalidShots + countRepeatedShots > 0)
+            throw new IllegalStateException("ERROR! game already started or already recorded");
+
+        this.journalId = journal.startGame(fleet);
+        this.journal = journal;
+        return journalId;
+    }
+
+    /**
+     * Resolve um disparo e, se o jogo estiver a ser registado, escreve o resultado no diário.
+     * * @param row A linha do tiro.
+     * @param column A coluna do tiro.
+     * @return O código do resultado ({@link ShotResult}).
+     */
+    private int shoot(int row, int column) {
+        int result = resolve(row, column);
+        if (journal != null)
+            journal.recordShot(journalId, row, column, result);
+        return result;
+    }
+
+    /**
+     * Resolve um disparo sobre uma célula, atualizando os navios e as estatísticas do jogo.
+     * * @param row A linha do tiro.
+     * @param column A coluna do tiro.
+     * @return O código do resultado ({@link ShotResult}).
+     */
+    private int resolve(int row, int column) {
+        if (!validShot(row, column)) {
             countInvalidShots++;
-        } else { // valid shot!
-            if (repeatedShot(pos)) {
-                countRepeatedShots++;
-            } else {
-                shots.add(pos);
-                IShip s = fleet.shipAt(pos);
-                if (s != null) {
-                    s.shoot(pos);
-                    countHits++;
-                    if (!s.stillFloating()) {
-                        countSinks++;
-                        return s;
-                    }
-                }
+            remember(ShotResult.INVALID);
+            return ShotResult.INVALID;
+        }
+        if (repeatedShot(row, column)) {
+            countRepeatedShots++;
+            remember(ShotResult.REPEATED);
+            return ShotResult.REPEATED;
+        }
+
+        Position pos = Position.of(row, column);
+        int cell = BitBoard.index(row, column);
+        firedCells.set(cell);
+        shotCells[shotCount++] = (byte) cell;
+        int index = fleet.shipIndexAt(row, column);
+        if (index < 0) {
+            remember(ShotResult.MISS);
+            return ShotResult.MISS;
+        }
+
+        IShip s = fleet.getShips().get(index);
+        int changed = SHIP_CHANGED;
+        if (s instanceof Ship) {
+            if (!((Ship) s).strike(pos))
+                changed = 0;
+        } else {
+            s.shoot(pos);
+        }
+        countHits++;
+        if (!s.stillFloating()) {
+            countSinks++;
+            remember(ShotResult.SUNK | changed);
+            return ShotResult.of(ShotResult.SUNK, index);
+        }
+        remember(ShotResult.HIT | changed);
+        return ShotResult.of(ShotResult.HIT, index);
+    }
+
+    /**
+     * Passa a guardar o histórico de disparos, para que possam ser desfeitos com
+     * {@link #unfire()}. Apenas os disparos feitos a partir desta chamada podem ser
+     * desfeitos; chamadas repetidas não têm efeito.
+     */
+    public void enableUndo() {
+        if (history == null)
+            history = new byte[HISTORY_CAPACITY];
+    }
+
+    /**
+     * Acrescenta um registo ao histórico de disparos, se este estiver ativo.
+     * * @param move O tipo do resultado, eventualmente com {@link #SHIP_CHANGED}.
+     */
+    private void remember(int move) {
+        if (history == null)
+            return;
+        if (historySize == history.length)
+            history = Arrays.copyOf(history, history.length * 2);
+        history[historySize++] = (byte) move;
+    }
+
+    /**
+     * Desfaz o último disparo ainda não desfeito, repondo exatamente o estado anterior:
+     * navio atingido, células atacadas, lista de tiros e contadores. Cada chamada custa O(1)
+     * e não aloca memória, pelo que uma pesquisa (expectimax, simulações de Monte Carlo)
+     * pode experimentar um tiro com {@link #fire(int, int)} e retirá-lo em seguida,
+     * sem copiar a frota. Requer {@link #enableUndo()}.
+     * * @return O código do resultado ({@link ShotResult}) do disparo desfeito.
+     * @throws IllegalStateException se o histórico não estiver ativo, se não houver disparos
+     * a desfazer, se o jogo estiver a ser registado num diário, ou se o navio atingido não
+     * puder ser reparado.
+     */
+    public int unfire() {
+        if (history == null)
+            throw new IllegalStateException("ERROR! undo is not enabled for this game");
+        if (journal != null)
+            throw new IllegalStateException("ERROR! cannot undo shots of a recorded game");
+        if (historySize == 0)
+            throw new IllegalStateException("ERROR! no shots to undo");
+
+        int move = history[historySize - 1] & 0xFF;
+        int kind = move & ~SHIP_CHANGED;
+        if (kind == ShotResult.INVALID) {
+            historySize--;
+            countInvalidShots--;
+            return ShotResult.INVALID;
+        }
+        if (kind == ShotResult.REPEATED) {
+            historySize--;
+            countRepeatedShots--;
+            return ShotResult.REPEATED;
+        }
+
+        int cell = shotCells[shotCount - 1] & 0xFF;
+        int row = cell / Fleet.BOARD_SIZE;
+        int column = cell % Fleet.BOARD_SIZE;
+        int index = fleet.shipIndexAt(row, column);
+        if (kind != ShotResult.MISS) {
+            IShip s = fleet.getShips().get(index);
+            if ((move & SHIP_CHANGED) != 0) {
+                if (!(s instanceof Ship))
+                    throw new IllegalStateException("ERROR! ship " + s + " cannot be repaired");
+                ((Ship) s).repair(Position.of(row, column));
             }
+            countHits--;
+            if (kind == ShotResult.SUNK)
+                countSinks--;
         }
-        return null;
+        historySize--;
+        shotCount--;
+        firedCells.clear(cell);
+        return kind == ShotResult.MISS ? ShotResult.MISS : ShotResult.of(kind, index);
+    }
+
+    /**
+     * Devolve o número de disparos que {@link #unfire()} ainda pode desfazer.
+     * * @return O tamanho do histórico de disparos; 0 se {@link #enableUndo()} não foi chamado.
+     */
+    public int getHistorySize() {
+        return historySize;
+    }
+
+    /**
+     * Reconstrói um jogo a partir das células atacadas e dos contadores de tiros
+     * inválidos e repetidos. Os tiros são reaplicados por ordem de célula, pelo que
+     * o estado dos navios, os acertos e os afundamentos ficam idênticos aos originais;
+     * apenas a ordem de {@link #getShots()} passa a ser a ordem das células, e o
+     * histórico de {@link #unfire()} começa vazio.
+     * * @param fleet A frota do jogo, com os navios ainda intactos.
+     * @param fired As células já atacadas.
+     * @param invalidShots O número de tiros inválidos.
+     * @param repeatedShots O número de tiros repetidos.
+     * @return O jogo reconstruído.
+     */
+    static Game restore(IFleet fleet, BitBoard fired, int invalidShots, int repeatedShots) {
+        Game game = new Game(fleet);
+        for (int i = fired.nextSetBit(0); i >= 0; i = fired.nextSetBit(i + 1))
+            game.resolve(i / Fleet.BOARD_SIZE, i % Fleet.BOARD_SIZE);
+        game.countInvalidShots = invalidShots;
+        game.countRepeatedShots = repeatedShots;
+        game.historySize = 0;
+        return game;
+    }
+
+    /**
+     * Obtém a frota associada a este jogo.
+     * * @return A frota do jogo.
+     */
+    IFleet getFleet() {
+        return fleet;
+    }
+
+    /**
+     * Obtém o mapa de bits das células já atacadas. Não deve ser alterado.
+     * * @return As células atacadas.
+     */
+    BitBoard getFiredCells() {
+        return firedCells;
     }
 
     /**
      * Obtém a lista de todas as posições atacadas (tiros válidos e não repetidos).
-     * * @return Uma lista de objetos {@link IPosition}.
+     * * @return Uma vista só de leitura, por ordem de disparo, que acompanha os tiros seguintes.
      */
     @Override
     public List<IPosition> getShots() {
@@ -122,57 +388,68 @@ public class Game implements IGame {
     }
 
     /**
-     * Calcula quantos navios da frota ainda estão a flutuar.
+     * Devolve quantos navios da frota ainda estão a flutuar, a partir do contador
+     * mantido pela frota ({@link IFleet#getFloatingCount()}).
      * * @return O número de navios restantes.
      */
     @Override
     public int getRemainingShips() {
-        List<IShip> floatingShips = fleet.getFloatingShips();
-        return floatingShips.size();
+        return fleet.getFloatingCount();
     }
 
     /**
      * Verifica se uma posição está dentro dos limites definidos para o tabuleiro.
-     * * @param pos A posição a validar.
+     * * @param row A linha a validar.
+     * @param column A coluna a validar.
      * @return true se a posição for válida, false caso contrário.
      */
-    private boolean validShot(IPosition pos) {
-        return (pos.getRow() >= 0 && pos.getRow() < Fleet.BOARD_SIZE && pos.getColumn() >= 0
-                && pos.getColumn() < Fleet.BOARD_SIZE);
+    private boolean validShot(int row, int column) {
+        return (row >= 0 && row < Fleet.BOARD_SIZE && column >= 0 && column < Fleet.BOARD_SIZE);
     }
 
     /**
      * Verifica se uma posição já foi alvo de um tiro anteriormente.
-     * * @param pos A posição a verificar.
+     * * @param row A linha a verificar.
+     * @param column A coluna a verificar.
      * @return true se o tiro for repetido, false caso contrário.
      */
-    private boolean repeatedShot(IPosition pos) {
-        for (int i = 0; i < shots.size(); i++)
-            if (shots.get(i).equals(pos))
-                return true;
-        return false;
+    private boolean repeatedShot(int row, int column) {
+        return firedCells.get(BitBoard.index(row, column));
     }
 
     /**
      * Desenha uma representação textual do tabuleiro no terminal.
+     * O tabuleiro é composto num buffer reutilizado e escrito de uma só vez.
      * * @param positions A lista de posições a marcar no tabuleiro.
      * @param marker O caractere a usar para representar as posições fornecidas.
      */
     public void printBoard(List<IPosition> positions, Character marker) {
-        char[][] map = new char[Fleet.BOARD_SIZE][Fleet.BOARD_SIZE];
-
-        for (int r = 0; r < Fleet.BOARD_SIZE; r++)
-            for (int c = 0; c < Fleet.BOARD_SIZE; c++)
-                map[r][c] = '.';
+        BoardRenderer board = renderer();
+        board.clear(BoardRenderer.WATER);
+        board.mark(positions, marker);
+        board.writeTo(System.out);
+    }
 
-        for (IPosition pos : positions)
-            map[pos.getRow()][pos.getColumn()] = marker;
+    /**
+     * Escreve o estado completo do jogo (tiros na água, navios atingidos e afundados)
+     * num destino qualquer, de uma só vez.
+     * * @param out O destino ({@link Appendable}), por exemplo um {@link java.io.Writer}.
+     * @param showFleet true para mostrar também os navios ainda não atingidos.
+     */
+    public void render(Appendable out, boolean showFleet) {
+        BoardRenderer board = renderer();
+        board.draw(this, showFleet);
+        board.writeTo(out);
+    }
 
-        for (int row = 0; row < Fleet.BOARD_SIZE; row++) {
-            for (int col = 0; col < Fleet.BOARD_SIZE; col++)
-                System.out.print(map[row][col]);
-            System.out.println();
-        }
+    /**
+     * Obtém o desenhador deste jogo, criando-o no primeiro uso.
+     * * @return O desenhador reutilizável.
+     */
+    private BoardRenderer renderer() {
+        if (renderer == null)
+            renderer = new BoardRenderer();
+        return renderer;
     }
 
     /**
@@ -186,11 +463,10 @@ public class Game implements IGame {
      * Imprime o tabuleiro marcando com '#' a localização de todos os navios da frota.
      */
     public void printFleet() {
-        List<IPosition> shipPositions = new ArrayList<IPosition>();
-
+        BoardRenderer board = renderer();
+        board.clear(BoardRenderer.WATER);
         for (IShip s : fleet.getShips())
-            shipPositions.addAll(s.getPositions());
-
-        printBoard(shipPositions, '#');
+            board.mark(s.getPositions(), BoardRenderer.SHIP);
+        board.writeTo(System.out);
     }
 }
@@ -0,0 +1,377 @@
+package iscteiul.ista.battleship;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * API HTTP/JSON sobre as operações de {@link IGame}, servida pelo {@link HttpServer}
+ * do próprio JDK.
+ * <p>
+ * Rotas:
+ * <ul>
+ *     <li>{@code POST /games} – cria um jogo; o corpo tem um navio por linha, no formato
+ *         do comando {@code nova} ({@code galeao 0 0 n}); sem corpo é gerada uma frota aleatória</li>
+ *     <li>{@code GET /games/{id}} – estado do jogo</li>
+ *     <li>{@code POST /games/{id}/fire?row=r&col=c} – um tiro</li>
+ *     <li>{@code POST /games/{id}/salvo?shots=r,c,r,c,...} – uma rajada</li>
+ *     <li>{@code GET /games/{id}/shots} – tiros válidos efetuados</li>
+ *     <li>{@code DELETE /games/{id}} – termina o jogo</li>
+ * </ul>
+ * Um tiro fora do tabuleiro conta como tiro inválido; numa rajada, coordenadas que
+ * não cabem na codificação de {@link Position#pack(int, int)} (16 bits com sinal)
+ * dão o erro 400 sem que nenhum tiro seja efetuado.
+ * As respostas são escritas à mão com {@link JsonWriter}. Os pedidos correm no
+ * {@link Executor} indicado; {@link #perRequestExecutor()} dá uma thread por pedido.
+ * Os jogos ficam num {@link SessionStore}, que serializa os pedidos a uma mesma sessão.
+ * </p>
+ */
+public final class GameHttpApi implements Closeable {
+
+    private static final Logger LOGGER = LogManager.getLogger();
+
+    /** Nome de cada tipo de {@link ShotResult}, pela ordem dos códigos. */
+    private static final String[] RESULT_NAMES = { "miss", "hit", "sunk", "repeated", "invalid" };
+
+    private static final String GAMES = "/games";
+
+    private final HttpServer server;
+    private final SessionStore sessions;
+    private final boolean ownsSessions;
+    private final FleetGenerator fleets = new FleetGenerator(System.nanoTime());
+
+    /**
+     * Abre o servidor HTTP, sem ainda aceitar pedidos, com um repositório de sessões
+     * próprio num ficheiro temporário (64 MiB em memória, 5 minutos de inatividade).
+     *
+     * @param address endereço a escutar (porto 0 para um porto livre)
+     * @param executor executor onde correm os pedidos
+     * @throws IOException se o endereço ou o ficheiro temporário não puderem ser usados
+     */
+    public GameHttpApi(InetSocketAddress address, Executor executor) throws IOException {
+        this(address, executor, temporarySessions(), true);
+    }
+
+    /**
+     * Abre o servidor HTTP sobre um repositório de sessões existente, sem ainda aceitar pedidos.
+     *
+     * @param address endereço a escutar (porto 0 para um porto livre)
+     * @param executor executor onde correm os pedidos
+     * @param sessions repositório onde ficam os jogos; não é fechado com a API
+     * @throws IOException se o endereço não puder ser usado
+     */
+    public GameHttpApi(InetSocketAddress address, Executor executor, SessionStore sessions) throws IOException {
+        this(address, executor, sessions, false);
+    }
+
+    private GameHttpApi(InetSocketAddress address, Executor executor, SessionStore sessions, boolean ownsSessions)
+            throws IOException {
+        this.sessions = sessions;
+        this.ownsSessions = ownsSessions;
+        server = HttpServer.create(address, 1024);
+        server.createContext(GAMES, this::handle);
+        server.setExecutor(executor);
+    }
+
+    private static SessionStore temporarySessions() throws IOException {
+        Path file = Files.createTempFile("battleship-sessions", ".bin");
+        file.toFile().deleteOnExit();
+        return new SessionStore(file, 64L << 20, 5 * 60_000L, 16);
+    }
+
+    /**
+     * Cria um executor com uma thread por pedido: threads virtuais quando o JDK
+     * em execução as suporta (21 ou posterior), threads de plataforma em cache
+     * caso contrário. O projeto compila para Java 17, daí a procura por reflexão.
+     *
+     * @return executor com uma thread por tarefa
+     */
+    public static ExecutorService perRequestExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool();
+        }
+    }
+
+    /**
+     * Começa a aceitar pedidos.
+     */
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * @return porto onde o servidor escuta
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * @return número de jogos em curso, em memória ou guardados em disco
+     */
+    public long getGameCount() {
+        return sessions.size();
+    }
+
+    /**
+     * Para o servidor, sem esperar pelos pedidos em curso, e fecha o repositório
+     * de sessões se tiver sido criado pela própria API.
+     */
+    @Override
+    public void close() throws IOException {
+        server.stop(0);
+        if (ownsSessions)
+            sessions.close();
+    }
+
+    // -----------------------------------------------------
+
+    /**
+     * Erro do pedido, respondido com o código HTTP indicado.
+     */
+    private static final class ApiException extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        final int status;
+
+        ApiException(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+
+    /**
+     * Encaminha um pedido para a operação correspondente.
+     */
+    private void handle(HttpExchange exchange) throws IOException {
+        JsonWriter json = new JsonWriter();
+        int status = 200;
+        try {
+            String method = exchange.getRequestMethod();
+            String[] path = exchange.getRequestURI().getPath().substring(GAMES.length()).split("/");
+            // path[0] é sempre vazio: "/games/7/fire" dá { "", "7", "fire" }
+            if (path.length > 0 && !path[0].isEmpty())
+                throw new ApiException(404, "ERROR! unknown resource " + path[0]);
+            if (path.length <= 1) {
+                expect(method, "POST");
+                status = 201;
+                create(exchange.getRequestBody(), json);
+            } else {
+                long id = parseId(path[1]);
+                String action = path.length > 2 ? path[2] : "";
+                String query = exchange.getRequestURI().getRawQuery();
+                if (action.isEmpty() && method.equals("DELETE")) {
+                    if (!sessions.remove(id))
+                        throw notFound(id);
+                    status = 204;
+                    json = null;
+                } else {
+                    JsonWriter out = json;
+                    if (sessions.apply(id, game -> dispatch(id, game, method, action, query, out)) == null)
+                        throw notFound(id);
+                }
+            }
+        } catch (ApiException e) {
+            status = e.status;
+            json = error(e.getMessage());
+        } catch (NoSuchElementException | IllegalArgumentException e) {
+            status = 400;
+            json = error("ERROR! malformed request");
+        } catch (RuntimeException e) {
+            LOGGER.error("Falha ao tratar o pedido {} {}", exchange.getRequestMethod(), exchange.getRequestURI(), e);
+            status = 500;
+            json = error("ERROR! internal server error");
+        }
+        respond(exchange, status, json);
+    }
+
+    /**
+     * Executa uma operação sobre um jogo já carregado.
+     *
+     * @return {@code true}, para distinguir de uma sessão inexistente
+     */
+    private static Boolean dispatch(long id, Game game, String method, String action, String query,
+            JsonWriter json) {
+        switch (action) {
+            case "":
+                expect(method, "GET");
+                status(id, game, json);
+                break;
+            case "fire":
+                expect(method, "POST");
+                int row = intParameter(query, "row");
+                int column = intParameter(query, "col");
+                results(game, new int[] { game.fire(row, column) }, json);
+                break;
+            case "salvo":
+                expect(method, "POST");
+                int[] shots = shots(parameter(query, "shots"));
+                int[] results = new int[shots.length];
+                game.fireSalvo(shots, results);
+                results(game, results, json);
+                break;
+            case "shots":
+                expect(method, "GET");
+                shots(game, json);
+                break;
+            default:
+                throw new ApiException(404, "ERROR! unknown resource " + action);
+        }
+        return Boolean.TRUE;
+    }
+
+    private static ApiException notFound(long id) {
+        return new ApiException(404, "ERROR! game " + id + " not found");
+    }
+
+    private static void expect(String method, String expected) {
+        if (!method.equals(expected))
+            throw new ApiException(405, "ERROR! expected " + expected);
+    }
+
+    private static long parseId(String s) {
+        try {
+            return Long.parseLong(s);
+        } catch (NumberFormatException e) {
+            throw new ApiException(404, "ERROR! game " + s + " not found");
+        }
+    }
+
+    private static JsonWriter error(String message) {
+        return new JsonWriter().beginObject().name("error").value(message).endObject();
+    }
+
+    private static void respond(HttpExchange exchange, int status, JsonWriter json) throws IOException {
+        if (json == null) {
+            exchange.sendResponseHeaders(status, -1);
+            exchange.close();
+            return;
+        }
+        byte[] body = json.toString().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    // -----------------------------------------------------
+
+    /**
+     * Cria um jogo a partir da frota descrita no corpo do pedido, ou de uma frota aleatória.
+     */
+    private void create(InputStream body, JsonWriter json) {
+        CommandReader in = new CommandReader(body);
+        json.beginObject();
+        Fleet fleet;
+        if (!in.hasNext()) {
+            synchronized (fleets) {
+                fleet = fleets.next();
+            }
+            json.name("rejected").beginArray().endArray();
+        } else {
+            fleet = new Fleet();
+            json.name("rejected").beginArray();
+            while (in.hasNext()) {
+                Ship s = Tasks.readShip(in);
+                if (s == null || !fleet.addShip(s))
+                    json.value(s == null ? "unknown ship"
+                            : s.getCategory() + " " + s.getBearing() + " " + s.getPosition());
+            }
+            json.endArray();
+        }
+
+        long id = sessions.create(new Game(fleet));
+        json.name("id").value(id).name("ships").value(fleet.getShips().size()).endObject();
+    }
+
+    private static void status(long id, Game game, JsonWriter json) {
+        json.beginObject()
+                .name("id").value(id)
+                .name("hits").value(game.getHits())
+                .name("invalid").value(game.getInvalidShots())
+                .name("repeated").value(game.getRepeatedShots())
+                .name("sunk").value(game.getSunkShips())
+                .name("remaining").value(game.getRemainingShips())
+                .endObject();
+    }
+
+    private static void results(Game game, int[] results, JsonWriter json) {
+        List<IShip> ships = game.getFleet().getShips();
+
+        json.beginObject().name("results").beginArray();
+        for (int result : results) {
+            json.beginObject().name("result").value(RESULT_NAMES[ShotResult.kind(result)]);
+            if (ShotResult.isHit(result))
+                json.name("ship").value(ships.get(ShotResult.shipIndex(result)).getCategory());
+            json.endObject();
+        }
+        json.endArray()
+                .name("remaining").value(game.getRemainingShips())
+                .endObject();
+    }
+
+    private static void shots(Game game, JsonWriter json) {
+        json.beginObject().name("shots").beginArray();
+        for (IPosition p : game.getShots())
+            json.beginArray().value(p.getRow()).value(p.getColumn()).endArray();
+        json.endArray().endObject();
+    }
+
+    // -----------------------------------------------------
+
+    /**
+     * Devolve o valor de um parâmetro da query, sem descodificação (só números e vírgulas são esperados).
+     */
+    private static String parameter(String query, String name) {
+        if (query != null)
+            for (String pair : query.split("&"))
+                if (pair.length() > name.length() && pair.startsWith(name) && pair.charAt(name.length()) == '=')
+                    return pair.substring(name.length() + 1);
+        throw new ApiException(400, "ERROR! missing parameter " + name);
+    }
+
+    private static int intParameter(String query, String name) {
+        return Integer.parseInt(parameter(query, name));
+    }
+
+    /**
+     * Converte {@code r,c,r,c,...} em tiros codificados com {@link Position#pack(int, int)}.
+     * Todas as coordenadas são validadas antes de algum tiro ser efetuado.
+     */
+    private static int[] shots(String list) {
+        String[] parts = list.split(",");
+        if (parts.length % 2 != 0)
+            throw new ApiException(400, "ERROR! shots must be row,column pairs");
+        int[] shots = new int[parts.length / 2];
+        for (int i = 0; i < shots.length; i++) {
+            int row = Integer.parseInt(parts[2 * i]);
+            int column = Integer.parseInt(parts[2 * i + 1]);
+            if (!Position.canPack(row, column))
+                throw new ApiException(400, "ERROR! shot out of range " + row + "," + column);
+            shots[i] = Position.pack(row, column);
+        }
+        return shots;
+    }
+}
@@ -0,0 +1,382 @@
+package iscteiul.ista.battleship;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Diário binário, só de acrescento, dos jogos disputados.
+ * <p>
+ * Cada registo ocupa um byte de comprimento seguido do corpo, cujo primeiro byte
+ * indica o tipo:
+ * <ul>
+ *     <li>{@code GAME} – início de jogo: identificador (varint)</li>
+ *     <li>{@code PLACEMENT} – navio colocado na frota: identificador (varint) e navio em 16 bits</li>
+ *     <li>{@code SHOT} – tiro: identificador (varint), linha e coluna (varint zigzag) e resultado (varint)</li>
+ * </ul>
+ * Um tiro ocupa tipicamente 6 a 8 bytes. As escritas são acumuladas num buffer e
+ * enviadas para o {@link FileChannel} em blocos; a leitura percorre o ficheiro
+ * mapeado em memória, sem cópias nem objetos intermédios.
+ * </p>
+ * <p>
+ * Um registo incompleto no fim do ficheiro (por exemplo, após uma falha durante
+ * a escrita), tal como um byte de comprimento nulo, marca o fim dos dados válidos:
+ * o resto é ignorado na leitura e removido quando o diário é reaberto.
+ * </p>
+ */
+public final class GameJournal implements Closeable {
+
+    /* Tipos de registo */
+    private static final byte GAME = 1;
+    private static final byte PLACEMENT = 2;
+    private static final byte SHOT = 3;
+
+    /** Tamanho máximo de um registo, incluindo o byte de comprimento. */
+    private static final int MAX_RECORD = 32;
+
+    /** Tamanho do buffer de escrita. */
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /** Tamanho máximo de cada região mapeada durante a leitura. */
+    private static final long MAP_CHUNK = 1L << 30;
+
+    /** Canal do ficheiro do diário. */
+    private final FileChannel channel;
+
+    /** Buffer onde os registos são acumulados antes de serem escritos. */
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+    /** Identificador do próximo jogo. */
+    private long nextGame;
+
+    /**
+     * Abre um diário para acrescento, criando o ficheiro se não existir.
+     * Os identificadores de jogo continuam a numeração já existente no ficheiro.
+     *
+     * @param file caminho do ficheiro
+     * @throws IOException se o ficheiro não puder ser aberto
+     */
+    public GameJournal(Path file) throws IOException {
+        long[] lastGame = { -1 };
+        long valid = file.toFile().exists() ? replay(file, new IJournalListener() {
+            @Override
+            public void onGame(long game) {
+                lastGame[0] = Math.max(lastGame[0], game);
+            }
+        }) : 0;
+
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        this.channel.truncate(valid);
+        this.channel.position(valid);
+        this.nextGame = lastGame[0] + 1;
+    }
+
+    /**
+     * Regista o início de um jogo e a colocação de todos os navios da sua frota,
+     * pela ordem em que foram adicionados.
+     *
+     * @param fleet frota do jogo
+     * @return identificador atribuído ao jogo
+     */
+    public synchronized long startGame(IFleet fleet) {
+        long game = nextGame++;
+        ensureCapacity();
+        int start = begin(GAME);
+        putVarlong(game);
+        end(start);
+
+        for (IShip s : fleet.getShips()) {
+            ensureCapacity();
+            start = begin(PLACEMENT);
+            putVarlong(game);
+            buffer.putShort((short) GameSnapshot.packShip(s));
+            end(start);
+        }
+        return game;
+    }
+
+    /**
+     * Regista um tiro e o respetivo resultado.
+     *
+     * @param game identificador do jogo
+     * @param row linha do tiro
+     * @param column coluna do tiro
+     * @param result código do resultado ({@link ShotResult})
+     */
+    public synchronized void recordShot(long game, int row, int column, int result) {
+        ensureCapacity();
+        int start = begin(SHOT);
+        putVarlong(game);
+        putVarlong(zigzag(row));
+        putVarlong(zigzag(column));
+        putVarlong(result);
+        end(start);
+    }
+
+    /**
+     * Escreve no ficheiro todos os registos pendentes.
+     *
+     * @throws UncheckedIOException se a escrita falhar
+     */
+    public synchronized void flush() {
+        buffer.flip();
+        try {
+            while (buffer.hasRemaining())
+                channel.write(buffer);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            buffer.clear();
+        }
+    }
+
+    /**
+     * Escreve os registos pendentes e fecha o ficheiro.
+     *
+     * @throws IOException se a escrita ou o fecho falharem
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * Garante espaço no buffer para mais um registo, escrevendo-o se necessário.
+     */
+    private void ensureCapacity() {
+        if (buffer.remaining() < MAX_RECORD)
+            flush();
+    }
+
+    /**
+     * Inicia um registo, reservando o byte de comprimento.
+     *
+     * @param type tipo do registo
+     * @return posição do byte de comprimento
+     */
+    private int begin(byte type) {
+        int start = buffer.position();
+        buffer.put((byte) 0);
+        buffer.put(type);
+        return start;
+    }
+
+    /**
+     * Termina um registo, preenchendo o byte de comprimento.
+     *
+     * @param start posição do byte de comprimento
+     */
+    private void end(int start) {
+        buffer.put(start, (byte) (buffer.position() - start - 1));
+    }
+
+    /**
+     * Escreve um valor não negativo em formato varint.
+     *
+     * @param value valor a escrever
+     */
+    private void putVarlong(long value) {
+        while ((value & ~0x7FL) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    // -----------------------------------------------------
+
+    /**
+     * Percorre sequencialmente um diário, entregando cada registo ao ouvinte.
+     * O ficheiro é mapeado em memória por regiões de até 1 GiB.
+     *
+     * @param file caminho do ficheiro
+     * @param listener ouvinte dos registos
+     * @return número de bytes ocupados por registos completos
+     * @throws IOException se o ficheiro não puder ser lido
+     * @throws IllegalArgumentException se o diário contiver um registo corrompido
+     */
+    public static long replay(Path file, IJournalListener listener) throws IOException {
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = in.size();
+            long base = 0;
+            while (base < size) {
+                MappedByteBuffer map = in.map(FileChannel.MapMode.READ_ONLY, base, Math.min(size - base, MAP_CHUNK));
+                int consumed = replay(map, base, listener);
+                if (consumed == 0)
+                    break;
+                base += consumed;
+            }
+            return base;
+        }
+    }
+
+    /**
+     * Percorre os registos completos de uma região mapeada.
+     *
+     * @param map região mapeada
+     * @param base posição da região no ficheiro
+     * @param listener ouvinte dos registos
+     * @return número de bytes consumidos
+     */
+    private static int replay(ByteBuffer map, long base, IJournalListener listener) {
+        int end = map.limit();
+        while (map.position() < end) {
+            int start = map.position();
+            int length = map.get(start) & 0xFF;
+            // comprimento nulo: zona preenchida a zeros após uma falha, tratada como fim do diário
+            if (length == 0 || end - start < length + 1)
+                return start;
+
+            // o registo é lido com o limite no seu fim, para que um corpo curto não leia o seguinte
+            map.limit(start + length + 1).position(start + 1);
+            try {
+                byte type = map.get();
+                long game = getVarlong(map);
+                switch (type) {
+                    case GAME:
+                        listener.onGame(game);
+                        break;
+                    case PLACEMENT:
+                        listener.onPlacement(game, map.getShort() & 0xFFFF);
+                        break;
+                    case SHOT:
+                        int row = unzigzag(getVarlong(map));
+                        int column = unzigzag(getVarlong(map));
+                        listener.onShot(game, row, column, (int) getVarlong(map));
+                        break;
+                    default:
+                        throw new IllegalArgumentException("ERROR! corrupt journal record at offset " + (base + start));
+                }
+            } catch (BufferUnderflowException e) {
+                throw new IllegalArgumentException("ERROR! corrupt journal record at offset " + (base + start), e);
+            } finally {
+                map.limit(end);
+            }
+            if (map.position() != start + length + 1)
+                throw new IllegalArgumentException("ERROR! corrupt journal record at offset " + (base + start));
+        }
+        return map.position();
+    }
+
+    /**
+     * Reconstrói um jogo a partir do diário, voltando a aplicar todos os seus tiros.
+     * Cada resultado recalculado é comparado com o resultado registado.
+     *
+     * @param file caminho do ficheiro
+     * @param id identificador do jogo
+     * @return jogo reconstruído; {@code null} se o jogo não existir no diário
+     * @throws IOException se o ficheiro não puder ser lido
+     * @throws IllegalStateException se um resultado recalculado diferir do registado
+     */
+    public static Game rebuild(Path file, long id) throws IOException {
+        Fleet fleet = new Fleet();
+        Game[] game = { null };
+        boolean[] found = { false };
+
+        replay(file, new IJournalListener() {
+            @Override
+            public void onGame(long g) {
+                found[0] |= g == id;
+            }
+
+            @Override
+            public void onPlacement(long g, int ship) {
+                if (g == id && !fleet.addShip(placedShip(ship)))
+                    throw new IllegalStateException("ERROR! illegal placement in journal for game " + id);
+            }
+
+            @Override
+            public void onShot(long g, int row, int column, int result) {
+                if (g != id)
+                    return;
+                if (game[0] == null)
+                    game[0] = new Game(fleet);
+
+                int replayed = game[0].fire(row, column);
+                if (replayed != result)
+                    throw new IllegalStateException("ERROR! journal disagrees with replay for game " + id
+                            + " at " + row + " " + column + ": " + ShotResult.toString(result)
+                            + " != " + ShotResult.toString(replayed));
+            }
+        });
+
+        if (!found[0])
+            return null;
+        return game[0] != null ? game[0] : new Game(fleet);
+    }
+
+    /**
+     * Conta os tiros registados no diário por tipo de resultado.
+     *
+     * @param file caminho do ficheiro
+     * @return vetor indexado pelo tipo de resultado ({@link ShotResult#kind(int)})
+     * @throws IOException se o ficheiro não puder ser lido
+     */
+    public static long[] shotCounts(Path file) throws IOException {
+        long[] counts = new long[ShotResult.INVALID + 1];
+        replay(file, new IJournalListener() {
+            @Override
+            public void onShot(long game, int row, int column, int result) {
+                counts[ShotResult.kind(result)]++;
+            }
+        });
+        return counts;
+    }
+
+    /**
+     * Constrói o navio de um registo de colocação.
+     *
+     * @param ship navio codificado, tal como entregue a {@link IJournalListener#onPlacement(long, int)}
+     * @return navio correspondente
+     */
+    public static Ship placedShip(int ship) {
+        return GameSnapshot.unpackShip(ship);
+    }
+
+    /**
+     * Lê um valor em formato varint.
+     *
+     * @param in buffer de origem
+     * @return valor lido
+     */
+    private static long getVarlong(ByteBuffer in) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0)
+                return value;
+        }
+        throw new IllegalArgumentException("ERROR! malformed varint in journal");
+    }
+
+    /**
+     * Converte um inteiro com sinal para a codificação zigzag (valores pequenos em poucos bytes).
+     *
+     * @param value valor com sinal
+     * @return valor codificado, não negativo
+     */
+    private static long zigzag(int value) {
+        return ((value << 1) ^ (value >> 31)) & 0xFFFFFFFFL;
+    }
+
+    /**
+     * Inverte a codificação zigzag.
+     *
+     * @param value valor codificado
+     * @return valor com sinal
+     */
+    private static int unzigzag(long value) {
+        return (int) (value >>> 1) ^ -(int) (value & 1);
+    }
+}
@@ -0,0 +1,371 @@
+package iscteiul.ista.battleship;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Servidor TCP não bloqueante que aloja uma sessão de jogo ({@link GameSession},
+ * a linguagem de {@link Tasks#taskD()}) por ligação.
+ * <p>
+ * Um pequeno número de ciclos de eventos, cada um com o seu {@link Selector} e a
+ * sua thread, serve todas as ligações; não há uma thread por ligação. Cada ciclo
+ * lê para um único buffer direto partilhado pelas suas ligações e separa as
+ * palavras à medida que chegam, pelo que um comando partido entre pacotes não
+ * bloqueia nada. As respostas são codificadas para um buffer direto partilhado e
+ * escritas de imediato; só o que o socket não aceitar fica pendente, em buffers
+ * diretos de uma reserva ({@link DirectBufferPool}). Enquanto uma ligação tiver
+ * respostas pendentes não são lidos mais comandos dela.
+ * </p>
+ */
+public final class GameServer implements Closeable {
+
+    private static final Logger LOGGER = LogManager.getLogger();
+
+    /** Tamanho dos buffers de leitura, de escrita e da reserva. */
+    private static final int BUFFER_SIZE = 16 * 1024;
+
+    /** Comprimento máximo de uma palavra; palavras maiores são truncadas. */
+    private static final int MAX_TOKEN = 64;
+
+    private final ServerSocketChannel server;
+    private final EventLoop[] loops;
+    private final AtomicInteger sessions = new AtomicInteger();
+    private int next;
+
+    /**
+     * Abre o servidor, sem ainda aceitar ligações.
+     *
+     * @param address endereço a escutar (porto 0 para um porto livre)
+     * @param loopCount número de ciclos de eventos
+     * @throws IOException se o endereço não puder ser usado
+     */
+    public GameServer(InetSocketAddress address, int loopCount) throws IOException {
+        server = ServerSocketChannel.open();
+        server.setOption(StandardSocketOptions.SO_REUSEADDR, true);
+        server.bind(address, 16 * 1024);
+        server.configureBlocking(false);
+
+        loops = new EventLoop[loopCount];
+        for (int i = 0; i < loopCount; i++)
+            loops[i] = new EventLoop(i);
+        server.register(loops[0].selector, SelectionKey.OP_ACCEPT);
+    }
+
+    /**
+     * Inicia as threads dos ciclos de eventos.
+     */
+    public void start() {
+        for (EventLoop loop : loops)
+            loop.thread.start();
+    }
+
+    /**
+     * @return porto onde o servidor escuta
+     * @throws IOException se o canal estiver fechado
+     */
+    public int getPort() throws IOException {
+        return ((InetSocketAddress) server.getLocalAddress()).getPort();
+    }
+
+    /**
+     * @return número de sessões abertas
+     */
+    public int getSessionCount() {
+        return sessions.get();
+    }
+
+    /**
+     * Fecha o servidor e todas as ligações.
+     */
+    @Override
+    public void close() throws IOException {
+        server.close();
+        for (EventLoop loop : loops)
+            loop.shutdown();
+    }
+
+    /**
+     * Aceita as ligações pendentes e distribui-as pelos ciclos de eventos.
+     */
+    private void accept() throws IOException {
+        SocketChannel channel;
+        while ((channel = server.accept()) != null) {
+            channel.configureBlocking(false);
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            EventLoop loop = loops[next];
+            next = (next + 1) % loops.length;
+            loop.assign(channel);
+        }
+    }
+
+    // -----------------------------------------------------
+
+    /**
+     * Estado de uma ligação.
+     */
+    private static final class Connection {
+
+        final SocketChannel channel;
+        final GameSession session = new GameSession();
+        final StringBuilder out = new StringBuilder(256);
+        final byte[] token = new byte[MAX_TOKEN];
+        int length;
+
+        /** Respostas que o socket ainda não aceitou, em buffers da reserva prontos a escrever. */
+        final ArrayDeque<ByteBuffer> pending = new ArrayDeque<>(2);
+
+        /** O cliente fechou a sua metade da ligação; fecha-se depois de escritas as respostas. */
+        boolean inputClosed;
+
+        Connection(SocketChannel channel) {
+            this.channel = channel;
+        }
+    }
+
+    /**
+     * Ciclo de eventos: uma thread e um selector que servem um subconjunto das ligações.
+     */
+    private final class EventLoop implements Runnable {
+
+        final Selector selector;
+        final Thread thread;
+        final ConcurrentLinkedQueue<SocketChannel> incoming = new ConcurrentLinkedQueue<>();
+        final ByteBuffer readBuffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        final ByteBuffer writeBuffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        final DirectBufferPool pool = new DirectBufferPool(BUFFER_SIZE, 256);
+        volatile boolean running = true;
+
+        EventLoop(int id) throws IOException {
+            selector = Selector.open();
+            thread = new Thread(this, "game-server-" + id);
+            thread.setDaemon(true);
+        }
+
+        void assign(SocketChannel channel) {
+            incoming.add(channel);
+            if (Thread.currentThread() != thread)
+                selector.wakeup();
+        }
+
+        void shutdown() {
+            running = false;
+            selector.wakeup();
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (running) {
+                    selector.select();
+                    Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                    while (keys.hasNext()) {
+                        SelectionKey key = keys.next();
+                        keys.remove();
+                        handle(key);
+                    }
+                    // depois das chaves, para apanhar também as ligações aceites por este ciclo,
+                    // que não o acordam
+                    register();
+                }
+            } catch (IOException | ClosedSelectorException e) {
+                LOGGER.error("Ciclo de eventos terminado", e);
+            } finally {
+                for (SelectionKey key : selector.keys())
+                    closeQuietly(key);
+                try {
+                    selector.close();
+                } catch (IOException e) {
+                    LOGGER.warn("Falha ao fechar o selector", e);
+                }
+            }
+        }
+
+        /**
+         * Regista as ligações atribuídas a este ciclo e envia-lhes o primeiro indicador.
+         */
+        private void register() throws IOException {
+            SocketChannel channel;
+            while ((channel = incoming.poll()) != null) {
+                Connection connection = new Connection(channel);
+                SelectionKey key;
+                try {
+                    key = channel.register(selector, SelectionKey.OP_READ, connection);
+                } catch (IOException e) {
+                    channel.close();
+                    continue;
+                }
+                sessions.incrementAndGet();
+                connection.out.append(GameSession.PROMPT);
+                try {
+                    flush(key, connection);
+                } catch (IOException e) {
+                    closeQuietly(key);
+                }
+            }
+        }
+
+        private void handle(SelectionKey key) {
+            if (!key.isValid())
+                return;
+            if (key.isAcceptable()) {
+                try {
+                    accept();
+                } catch (IOException e) {
+                    LOGGER.warn("Falha ao aceitar ligação: {}", e.toString());
+                }
+                return;
+            }
+            try {
+                Connection connection = (Connection) key.attachment();
+                if (key.isWritable())
+                    drain(key, connection);
+                if (key.isValid() && key.isReadable())
+                    read(key, connection);
+            } catch (IOException e) {
+                closeQuietly(key);
+            }
+        }
+
+        /**
+         * Lê o que estiver disponível, trata as palavras completas e envia as respostas.
+         */
+        private void read(SelectionKey key, Connection connection) throws IOException {
+            readBuffer.clear();
+            int n = connection.channel.read(readBuffer);
+            if (n < 0) {
+                if (connection.length > 0 && !connection.session.isDone())
+                    connection.session.accept(connection.token, connection.length, connection.out);
+                connection.length = 0;
+                connection.inputClosed = true;
+                flush(key, connection);
+                return;
+            }
+
+            readBuffer.flip();
+            while (readBuffer.hasRemaining() && !connection.session.isDone()) {
+                byte b = readBuffer.get();
+                if (CommandReader.isWhitespace(b)) {
+                    if (connection.length > 0) {
+                        connection.session.accept(connection.token, connection.length, connection.out);
+                        connection.length = 0;
+                    }
+                } else if (connection.length < MAX_TOKEN) {
+                    connection.token[connection.length++] = b;
+                }
+            }
+            flush(key, connection);
+        }
+
+        /**
+         * Codifica as respostas acumuladas e tenta escrevê-las; o que ficar por
+         * escrever passa para buffers da reserva e a ligação deixa de ser lida.
+         */
+        private void flush(SelectionKey key, Connection connection) throws IOException {
+            StringBuilder out = connection.out;
+            int from = 0;
+            while (from < out.length()) {
+                writeBuffer.clear();
+                from = encode(out, from, writeBuffer);
+                writeBuffer.flip();
+                if (connection.pending.isEmpty())
+                    connection.channel.write(writeBuffer);
+                if (writeBuffer.hasRemaining()) {
+                    ByteBuffer copy = pool.acquire();
+                    copy.put(writeBuffer).flip();
+                    connection.pending.addLast(copy);
+                }
+            }
+            out.setLength(0);
+
+            if (!connection.pending.isEmpty()) {
+                key.interestOps(SelectionKey.OP_WRITE);
+            } else if (connection.session.isDone() || connection.inputClosed) {
+                closeQuietly(key);
+            }
+        }
+
+        /**
+         * Escreve as respostas pendentes; quando acabarem, volta a ler a ligação, ou
+         * fecha-a se a sessão terminou ou o cliente já não envia comandos.
+         */
+        private void drain(SelectionKey key, Connection connection) throws IOException {
+            while (!connection.pending.isEmpty()) {
+                ByteBuffer buffer = connection.pending.peekFirst();
+                connection.channel.write(buffer);
+                if (buffer.hasRemaining())
+                    return;
+                pool.release(connection.pending.pollFirst());
+            }
+            if (connection.session.isDone() || connection.inputClosed)
+                closeQuietly(key);
+            else
+                key.interestOps(SelectionKey.OP_READ);
+        }
+
+        private void closeQuietly(SelectionKey key) {
+            Object attachment = key.attachment();
+            if (attachment instanceof Connection) {
+                Connection connection = (Connection) attachment;
+                key.attach(null);
+                sessions.decrementAndGet();
+                for (ByteBuffer buffer : connection.pending)
+                    pool.release(buffer);
+                connection.pending.clear();
+            }
+            key.cancel();
+            try {
+                key.channel().close();
+            } catch (IOException e) {
+                LOGGER.debug("Falha ao fechar ligação", e);
+            }
+        }
+    }
+
+    /**
+     * Codifica caracteres em UTF-8 para um buffer, até este encher.
+     *
+     * @param text texto a codificar
+     * @param from índice do primeiro carácter
+     * @param out buffer de destino
+     * @return índice do primeiro carácter não codificado
+     */
+    static int encode(CharSequence text, int from, ByteBuffer out) {
+        int i = from;
+        while (i < text.length()) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                if (!out.hasRemaining())
+                    break;
+                out.put((byte) c);
+            } else if (c < 0x800) {
+                if (out.remaining() < 2)
+                    break;
+                out.put((byte) (0xC0 | (c >> 6)));
+                out.put((byte) (0x80 | (c & 0x3F)));
+            } else {
+                if (out.remaining() < 3)
+                    break;
+                out.put((byte) (0xE0 | (c >> 12)));
+                out.put((byte) (0x80 | ((c >> 6) & 0x3F)));
+                out.put((byte) (0x80 | (c & 0x3F)));
+            }
+            i++;
+        }
+        return i;
+    }
+}
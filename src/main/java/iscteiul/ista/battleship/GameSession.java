@@ -0,0 +1,218 @@
+package iscteiul.ista.battleship;
+
+/**
+ * Interpretador incremental da linguagem de comandos de {@link Tasks#taskD()}.
+ * <p>
+ * Em vez de ler a entrada, recebe as palavras uma a uma à medida que chegam
+ * ({@link #accept(byte[], int, StringBuilder)}), pelo que pode ser usado por
+ * servidores não bloqueantes: um comando que chegue partido em vários pacotes
+ * fica simplesmente a meio até chegarem as palavras que faltam. As palavras-chave
+ * e as mensagens são as de {@link Tasks}; os comandos {@code estado}, {@code mapa} e
+ * {@code ver} escrevem o texto que {@code taskD} imprimiria na consola. No fim
+ * de cada comando é escrito o indicador {@link #PROMPT}.
+ * </p>
+ */
+public final class GameSession {
+
+    /** Indicador escrito no início da sessão e no fim de cada comando. */
+    public static final String PROMPT = "> ";
+
+    /** Palavra esperada a seguir. */
+    private enum Expect { COMMAND, SHIP_KIND, SHIP_ROW, SHIP_COLUMN, SHIP_BEARING, SHOT_ROW, SHOT_COLUMN, DONE }
+
+    private Expect expect = Expect.COMMAND;
+
+    private IFleet fleet;
+    private IGame game;
+
+    /** Frota em construção pelo comando {@code nova}. */
+    private Fleet building;
+
+    /** Navios já adicionados à frota em construção. */
+    private int added;
+
+    /** Dados parciais do navio ou do tiro em leitura. */
+    private int kind, row, column;
+
+    /** Tiros já efetuados na rajada em curso. */
+    private int shots;
+
+    /** Desenhador reutilizado pelos comandos de visualização. */
+    private BoardRenderer renderer;
+
+    /**
+     * Indica se a sessão já terminou (comando {@code desisto} ou erro).
+     *
+     * @return {@code true} se não aceitar mais palavras
+     */
+    public boolean isDone() {
+        return expect == Expect.DONE;
+    }
+
+    /**
+     * Devolve o jogo em curso.
+     *
+     * @return último jogo criado; {@code null} se nenhuma frota foi criada
+     */
+    public IGame getGame() {
+        return game;
+    }
+
+    /**
+     * Trata a próxima palavra da entrada.
+     *
+     * @param token bytes da palavra (ASCII)
+     * @param length comprimento da palavra
+     * @param out destino das mensagens
+     * @return {@code false} se a sessão terminou com esta palavra
+     */
+    public boolean accept(byte[] token, int length, StringBuilder out) {
+        try {
+            step(token, length, out);
+        } catch (RuntimeException e) {
+            out.append("ERRO: ").append(e).append('\n');
+            expect = Expect.DONE;
+        }
+        return expect != Expect.DONE;
+    }
+
+    /**
+     * Avança o estado da sessão com uma palavra.
+     */
+    private void step(byte[] token, int length, StringBuilder out) {
+        switch (expect) {
+            case COMMAND:
+                command(token, length, out);
+                break;
+            case SHIP_KIND:
+                kind = -1;
+                for (int i = 0; i < PlacementCatalog.KINDS.length; i++)
+                    if (CommandReader.matches(token, length, PlacementCatalog.KINDS[i]))
+                        kind = i;
+                expect = Expect.SHIP_ROW;
+                break;
+            case SHIP_ROW:
+                row = CommandReader.parseInt(token, length);
+                expect = Expect.SHIP_COLUMN;
+                break;
+            case SHIP_COLUMN:
+                column = CommandReader.parseInt(token, length);
+                expect = Expect.SHIP_BEARING;
+                break;
+            case SHIP_BEARING:
+                addShip(Compass.charToCompass((char) (token[0] & 0xFF)), out);
+                break;
+            case SHOT_ROW:
+                row = CommandReader.parseInt(token, length);
+                expect = Expect.SHOT_COLUMN;
+                break;
+            case SHOT_COLUMN:
+                column = CommandReader.parseInt(token, length);
+                shoot(out);
+                break;
+            default:
+                throw new IllegalStateException("ERROR! session already finished");
+        }
+    }
+
+    /**
+     * Executa um comando.
+     */
+    private void command(byte[] token, int length, StringBuilder out) {
+        if (CommandReader.matches(token, length, Tasks.DESISTIR)) {
+            out.append(Tasks.GOODBYE_MESSAGE).append('\n');
+            expect = Expect.DONE;
+            return;
+        }
+
+        if (CommandReader.matches(token, length, Tasks.NOVAFROTA)) {
+            building = new Fleet();
+            added = 0;
+            expect = Expect.SHIP_KIND;
+            return;
+        } else if (CommandReader.matches(token, length, Tasks.RAJADA)) {
+            if (game != null) {
+                shots = 0;
+                expect = Expect.SHOT_ROW;
+                return;
+            }
+        } else if (CommandReader.matches(token, length, Tasks.STATUS)) {
+            if (fleet != null)
+                fleet.appendStatus(out);
+        } else if (CommandReader.matches(token, length, Tasks.BATOTA)) {
+            if (fleet != null) {
+                BoardRenderer board = renderer();
+                board.clear(BoardRenderer.WATER);
+                for (IShip s : fleet.getShips())
+                    board.mark(s.getPositions(), BoardRenderer.SHIP);
+                board.writeTo(out);
+            }
+        } else if (CommandReader.matches(token, length, Tasks.VERTIROS)) {
+            if (game != null) {
+                BoardRenderer board = renderer();
+                board.clear(BoardRenderer.WATER);
+                board.mark(game.getShots(), BoardRenderer.HIT);
+                board.writeTo(out);
+            }
+        } else {
+            out.append(Tasks.UNKNOWN_COMMAND_MESSAGE).append('\n');
+        }
+        out.append(PROMPT);
+    }
+
+    /**
+     * Constrói o navio lido e tenta adicioná-lo à frota em construção.
+     */
+    private void addShip(Compass bearing, StringBuilder out) {
+        expect = Expect.SHIP_KIND;
+        if (kind < 0) {
+            out.append(Tasks.UNKNOWN_SHIP_MESSAGE).append('\n');
+            return;
+        }
+
+        Ship s = Ship.buildShip(PlacementCatalog.CATEGORIES[kind], bearing, Position.of(row, column));
+        if (building.addShip(s))
+            added++;
+        else
+            Tasks.appendMessage(out, Tasks.SHIP_FAILED_MESSAGE, s.getCategory(), s.getBearing(), s.getPosition())
+                    .append('\n');
+
+        if (added > IFleet.FLEET_SIZE) {
+            Tasks.appendMessage(out, Tasks.FLEET_READY_MESSAGE, added).append('\n').append(PROMPT);
+            fleet = building;
+            game = new Game(fleet);
+            building = null;
+            expect = Expect.COMMAND;
+        }
+    }
+
+    /**
+     * Efetua o tiro lido e, no fim da rajada, escreve as estatísticas do jogo.
+     */
+    private void shoot(StringBuilder out) {
+        IShip sunk = game.fire(Position.of(row, column));
+        if (sunk != null)
+            Tasks.appendMessage(out, Tasks.SUNK_MESSAGE, sunk.getCategory()).append('\n');
+
+        if (++shots < Tasks.NUMBER_SHOTS) {
+            expect = Expect.SHOT_ROW;
+            return;
+        }
+
+        Tasks.appendMessage(out, Tasks.ROUND_MESSAGE, game.getHits(), game.getInvalidShots(),
+                game.getRepeatedShots(), game.getRemainingShips()).append('\n');
+        if (game.getRemainingShips() == 0)
+            out.append(Tasks.DEFEAT_MESSAGE).append('\n');
+        out.append(PROMPT);
+        expect = Expect.COMMAND;
+    }
+
+    /**
+     * Obtém o desenhador dos comandos de visualização, criando-o no primeiro uso.
+     */
+    private BoardRenderer renderer() {
+        if (renderer == null)
+            renderer = new BoardRenderer();
+        return renderer;
+    }
+}
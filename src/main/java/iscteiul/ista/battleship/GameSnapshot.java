@@ -0,0 +1,219 @@
+package iscteiul.ista.battleship;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Formato binário compacto para guardar ou transferir o estado de um jogo.
+ * <p>
+ * Estrutura (um jogo padrão ocupa cerca de 40 bytes):
+ * <ul>
+ *     <li>1 byte – versão do formato</li>
+ *     <li>1 byte – número de navios</li>
+ *     <li>2 bytes por navio – categoria (3 bits), orientação (3 bits) e célula de origem (7 bits)</li>
+ *     <li>13 bytes – mapa de bits das células atacadas (só em jogos)</li>
+ *     <li>varint – tiros inválidos; varint – tiros repetidos (só em jogos)</li>
+ * </ul>
+ * Os acertos, os afundamentos e o estado de cada navio não são guardados: são
+ * recalculados a partir das células atacadas e da frota. A ordem dos tiros também
+ * não é guardada; após a leitura, {@link Game#getShots()} segue a ordem das células.
+ * </p>
+ */
+public final class GameSnapshot {
+
+    /** Versão do formato. */
+    private static final byte VERSION = 1;
+
+    /** Número de bytes do mapa de bits das células atacadas. */
+    private static final int SHOT_BYTES = (BitBoard.CELLS + 7) / 8;
+
+    /** Orientações, pela ordem dos seus ordinais. */
+    private static final Compass[] BEARINGS = Compass.values();
+
+    /** Categorias de navio, pela ordem dos seus ordinais (a mesma de {@link PlacementCatalog#KINDS}). */
+    private static final Category[] CATEGORIES = Category.values();
+
+    private GameSnapshot() {
+    }
+
+    /**
+     * Codifica um jogo completo (frota, tiros e contadores).
+     *
+     * @param game jogo a codificar
+     * @param out buffer de destino
+     */
+    public static void writeGame(Game game, ByteBuffer out) {
+        writeFleet(game.getFleet(), out);
+
+        BitBoard fired = game.getFiredCells();
+        for (int i = 0; i < SHOT_BYTES; i++)
+            out.put(fired.getByte(i));
+        writeVarint(out, game.getInvalidShots());
+        writeVarint(out, game.getRepeatedShots());
+    }
+
+    /**
+     * Descodifica um jogo completo.
+     *
+     * @param in buffer de origem
+     * @return jogo reconstruído, com a respetiva frota
+     * @throws IllegalArgumentException se os dados não estiverem no formato esperado
+     */
+    public static Game readGame(ByteBuffer in) {
+        Fleet fleet = readFleet(in);
+        try {
+            BitBoard fired = new BitBoard();
+            for (int i = 0; i < SHOT_BYTES; i++)
+                fired.orByte(i, in.get());
+            int invalid = readVarint(in);
+            int repeated = readVarint(in);
+            return Game.restore(fleet, fired, invalid, repeated);
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("ERROR! truncated game snapshot", e);
+        }
+    }
+
+    /**
+     * Codifica a disposição de uma frota (sem estado de tiros).
+     *
+     * @param fleet frota a codificar
+     * @param out buffer de destino
+     */
+    public static void writeFleet(IFleet fleet, ByteBuffer out) {
+        List<IShip> ships = fleet.getShips();
+        out.put(VERSION);
+        out.put((byte) ships.size());
+        for (IShip s : ships)
+            out.putShort((short) packShip(s));
+    }
+
+    /**
+     * Descodifica a disposição de uma frota, voltando a colocar os navios com
+     * {@link Fleet#addShip(IShip)}.
+     *
+     * @param in buffer de origem
+     * @return frota reconstruída, sem tiros
+     * @throws IllegalArgumentException se os dados não estiverem no formato esperado
+     */
+    public static Fleet readFleet(ByteBuffer in) {
+        try {
+            byte version = in.get();
+            if (version != VERSION)
+                throw new IllegalArgumentException("ERROR! unsupported snapshot version " + version);
+
+            Fleet fleet = new Fleet();
+            int count = in.get() & 0xFF;
+            for (int i = 0; i < count; i++) {
+                Ship s = unpackShip(in.getShort() & 0xFFFF);
+                if (!fleet.addShip(s))
+                    throw new IllegalArgumentException("ERROR! illegal ship in snapshot " + s);
+            }
+            return fleet;
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("ERROR! truncated fleet snapshot", e);
+        }
+    }
+
+    /**
+     * Codifica um navio em 16 bits: categoria (3 bits, o ordinal de {@link Category}),
+     * orientação (3 bits) e célula de origem (7 bits).
+     *
+     * @param ship navio a codificar
+     * @return navio codificado
+     * @throws IllegalArgumentException se a categoria não for conhecida ou a origem
+     *         estiver fora do tabuleiro
+     */
+    static int packShip(IShip ship) {
+        Category category = ship.getCategoryType();
+        if (category == null)
+            throw new IllegalArgumentException("ERROR! unknown ship kind " + ship.getCategory());
+        int row = ship.getPosition().getRow();
+        int column = ship.getPosition().getColumn();
+        if (row < 0 || row >= IFleet.BOARD_SIZE || column < 0 || column >= IFleet.BOARD_SIZE)
+            throw new IllegalArgumentException("ERROR! ship origin outside the board " + ship);
+        return (category.ordinal() << 10) | (ship.getBearing().ordinal() << 7) | BitBoard.index(row, column);
+    }
+
+    /**
+     * Constrói o navio codificado por {@link #packShip(IShip)}.
+     *
+     * @param packed navio codificado
+     * @return navio correspondente
+     * @throws IllegalArgumentException se a codificação não for válida
+     */
+    static Ship unpackShip(int packed) {
+        int kind = packed >>> 10;
+        int bearing = (packed >>> 7) & 0x7;
+        int cell = packed & 0x7F;
+        if (kind >= CATEGORIES.length || bearing >= BEARINGS.length || cell >= BitBoard.CELLS)
+            throw new IllegalArgumentException("ERROR! corrupt ship entry in snapshot");
+
+        return Ship.buildShip(CATEGORIES[kind], BEARINGS[bearing],
+                Position.of(cell / IFleet.BOARD_SIZE, cell % IFleet.BOARD_SIZE));
+    }
+
+    /**
+     * Codifica um jogo num vetor de bytes com o tamanho exato.
+     *
+     * @param game jogo a codificar
+     * @return bytes do jogo
+     */
+    public static byte[] toBytes(Game game) {
+        ByteBuffer buffer = ByteBuffer.allocate(maxGameBytes(game.getFleet().getShips().size()));
+        writeGame(game, buffer);
+        return Arrays.copyOf(buffer.array(), buffer.position());
+    }
+
+    /**
+     * Descodifica um jogo a partir de um vetor de bytes.
+     *
+     * @param bytes bytes do jogo
+     * @return jogo reconstruído
+     */
+    public static Game fromBytes(byte[] bytes) {
+        return readGame(ByteBuffer.wrap(bytes));
+    }
+
+    /**
+     * Devolve o tamanho máximo da codificação de um jogo.
+     *
+     * @param ships número de navios da frota
+     * @return número máximo de bytes
+     */
+    public static int maxGameBytes(int ships) {
+        return 2 + 2 * ships + SHOT_BYTES + 2 * 5;
+    }
+
+    /**
+     * Escreve um inteiro não negativo em formato varint (7 bits por byte).
+     *
+     * @param out buffer de destino
+     * @param value valor a escrever
+     */
+    static void writeVarint(ByteBuffer out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.put((byte) value);
+    }
+
+    /**
+     * Lê um inteiro em formato varint.
+     *
+     * @param in buffer de origem
+     * @return valor lido
+     */
+    static int readVarint(ByteBuffer in) {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            byte b = in.get();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0)
+                return value;
+        }
+        throw new IllegalArgumentException("ERROR! malformed varint in snapshot");
+    }
+}
@@ -0,0 +1,134 @@
+package iscteiul.ista.battleship;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Gerador de carga para a {@link GameHttpApi}: um número fixo de clientes, cada
+ * um na sua thread e com pedidos síncronos, cria um jogo e alterna rajadas
+ * aleatórias com consultas ao estado, medindo a latência de cada pedido.
+ */
+public final class HttpLoadGenerator {
+
+    private final URI base;
+    private final int clients;
+    private final int requests;
+    private final long seed;
+
+    /**
+     * @param base endereço da API, por exemplo {@code http://localhost:8080}
+     * @param clients número de clientes simultâneos
+     * @param requests número de pedidos por cliente, além da criação do jogo
+     * @param seed semente dos tiros
+     */
+    public HttpLoadGenerator(URI base, int clients, int requests, long seed) {
+        this.base = base;
+        this.clients = clients;
+        this.requests = requests;
+        this.seed = seed;
+    }
+
+    /**
+     * Corre todos os clientes até terminarem.
+     *
+     * @return latências e contagens observadas
+     * @throws InterruptedException se a espera pelos clientes for interrompida
+     */
+    public LoadGenerator.Result run() throws InterruptedException {
+        HttpClient http = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        ExecutorService threads = Executors.newFixedThreadPool(clients);
+        long[][] latencies = new long[clients][];
+        AtomicInteger failed = new AtomicInteger();
+        SplittableRandom seeds = new SplittableRandom(seed);
+        Future<?>[] running = new Future<?>[clients];
+
+        long start = System.nanoTime();
+        for (int i = 0; i < clients; i++) {
+            int client = i;
+            SplittableRandom random = seeds.split();
+            running[i] = threads.submit(() -> {
+                try {
+                    latencies[client] = play(http, random);
+                } catch (IOException | RuntimeException e) {
+                    failed.incrementAndGet();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+        for (Future<?> f : running) {
+            try {
+                f.get();
+            } catch (ExecutionException e) {
+                failed.incrementAndGet();
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        threads.shutdown();
+
+        int samples = 0;
+        for (long[] l : latencies)
+            samples += l == null ? 0 : l.length;
+        long[] sorted = new long[samples];
+        int n = 0;
+        for (long[] l : latencies)
+            if (l != null) {
+                System.arraycopy(l, 0, sorted, n, l.length);
+                n += l.length;
+            }
+        Arrays.sort(sorted);
+        return new LoadGenerator.Result(clients, clients - failed.get(), failed.get(), sorted, elapsed);
+    }
+
+    /**
+     * Joga um jogo com pedidos alternados de rajada e de estado.
+     *
+     * @return latência de cada pedido, em nanossegundos
+     */
+    private long[] play(HttpClient http, SplittableRandom random) throws IOException, InterruptedException {
+        long[] latencies = new long[requests + 1];
+        String created = send(http, HttpRequest.newBuilder(base.resolve("/games"))
+                .POST(HttpRequest.BodyPublishers.noBody()).build(), latencies, 0, 201);
+        int from = created.indexOf("\"id\":") + 5;
+        int to = from;
+        while (to < created.length() && Character.isDigit(created.charAt(to)))
+            to++;
+        URI game = base.resolve("/games/" + created.substring(from, to));
+
+        for (int i = 1; i <= requests; i++) {
+            HttpRequest request;
+            if (i % 2 == 1) {
+                StringBuilder shots = new StringBuilder();
+                for (int s = 0; s < 3; s++)
+                    shots.append(s == 0 ? "" : ",").append(random.nextInt(IFleet.BOARD_SIZE))
+                            .append(',').append(random.nextInt(IFleet.BOARD_SIZE));
+                request = HttpRequest.newBuilder(URI.create(game + "/salvo?shots=" + shots))
+                        .POST(HttpRequest.BodyPublishers.noBody()).build();
+            } else {
+                request = HttpRequest.newBuilder(game).GET().build();
+            }
+            send(http, request, latencies, i, 200);
+        }
+        return latencies;
+    }
+
+    private static String send(HttpClient http, HttpRequest request, long[] latencies, int i, int expected)
+            throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        HttpResponse<String> response = http.send(request, HttpResponse.BodyHandlers.ofString());
+        latencies[i] = System.nanoTime() - start;
+        if (response.statusCode() != expected)
+            throw new IOException("ERROR! unexpected status " + response.statusCode() + ": " + response.body());
+        return response.body();
+    }
+}
@@ -0,0 +1,127 @@
+package iscteiul.ista.battleship;
+
+import java.util.SplittableRandom;
+
+/**
+ * Atirador "caça e alvo".
+ * <p>
+ * Em modo de caça ataca aleatoriamente as células de um padrão em xadrez, que
+ * intersecta qualquer navio com duas ou mais células. Depois de um acerto passa
+ * ao modo de alvo e ataca as células vizinhas (Norte, Sul, Este, Oeste) dos
+ * acertos pendentes. Quando um navio é afundado, marca toda a sua vizinhança como
+ * água, já que os navios não se podem tocar.
+ * </p>
+ */
+public class HuntTargetShooter implements IShooter {
+
+    /** Células que já não vale a pena atacar (atacadas ou vizinhas de navios afundados). */
+    private final BitBoard known = new BitBoard();
+
+    /** Células a atacar em modo de alvo (pilha). */
+    private final int[] targets = new int[BitBoard.CELLS * 4];
+
+    /** Número de células na pilha de alvos. */
+    private int targetCount;
+
+    /** Gerador de números aleatórios. */
+    private final SplittableRandom random;
+
+    /**
+     * Cria um atirador "caça e alvo".
+     *
+     * @param seed semente do gerador aleatório
+     */
+    public HuntTargetShooter(long seed) {
+        this.random = new SplittableRandom(seed);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Position nextShot() {
+        while (targetCount > 0) {
+            int cell = targets[--targetCount];
+            if (!known.get(cell))
+                return toPosition(cell);
+        }
+
+        int cell = pickUnknown(true);
+        if (cell < 0)
+            cell = pickUnknown(false);
+        return cell < 0 ? Position.of(0, 0) : toPosition(cell);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void onResult(Position shot, int result, IShip sunk) {
+        int row = shot.getRow();
+        int column = shot.getColumn();
+        if (ShotResult.kind(result) == ShotResult.INVALID)
+            return;
+        known.set(BitBoard.index(row, column));
+
+        if (sunk != null) {
+            for (IPosition p : sunk.getPositions())
+                for (int r = Math.max(p.getRow() - 1, 0); r <= Math.min(p.getRow() + 1, IFleet.BOARD_SIZE - 1); r++)
+                    for (int c = Math.max(p.getColumn() - 1, 0); c <= Math.min(p.getColumn() + 1, IFleet.BOARD_SIZE - 1); c++)
+                        known.set(BitBoard.index(r, c));
+        } else if (ShotResult.kind(result) == ShotResult.HIT) {
+            pushTarget(row - 1, column);
+            pushTarget(row + 1, column);
+            pushTarget(row, column - 1);
+            pushTarget(row, column + 1);
+        }
+    }
+
+    /**
+     * Acrescenta uma célula à pilha de alvos, se estiver no tabuleiro e não for conhecida.
+     *
+     * @param row linha
+     * @param column coluna
+     */
+    private void pushTarget(int row, int column) {
+        if (row >= 0 && row < IFleet.BOARD_SIZE && column >= 0 && column < IFleet.BOARD_SIZE
+                && !known.get(BitBoard.index(row, column)) && targetCount < targets.length)
+            targets[targetCount++] = BitBoard.index(row, column);
+    }
+
+    /**
+     * Escolhe aleatoriamente uma célula desconhecida.
+     *
+     * @param parity {@code true} para considerar apenas as células do padrão em xadrez
+     * @return índice da célula; -1 se não houver nenhuma
+     */
+    private int pickUnknown(boolean parity) {
+        int count = 0;
+        for (int i = 0; i < BitBoard.CELLS; i++)
+            if (!known.get(i) && (!parity || isParity(i)))
+                count++;
+        if (count == 0)
+            return -1;
+
+        int skip = random.nextInt(count);
+        for (int i = 0; i < BitBoard.CELLS; i++)
+            if (!known.get(i) && (!parity || isParity(i)) && skip-- == 0)
+                return i;
+        return -1;
+    }
+
+    /**
+     * @param cell índice da célula
+     * @return {@code true} se a célula pertencer ao padrão em xadrez
+     */
+    private static boolean isParity(int cell) {
+        return ((cell / IFleet.BOARD_SIZE + cell % IFleet.BOARD_SIZE) & 1) == 0;
+    }
+
+    /**
+     * @param cell índice da célula
+     * @return posição canónica da célula
+     */
+    private static Position toPosition(int cell) {
+        return Position.of(cell / IFleet.BOARD_SIZE, cell % IFleet.BOARD_SIZE);
+    }
+}
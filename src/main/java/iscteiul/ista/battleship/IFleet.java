@@ -44,12 +44,33 @@ public interface IFleet {
      */
     List<IShip> getShipsLike(String category);
 
+    /**
+     * Devolve os navios da frota de uma categoria, sem alocar memória.
+     * * @param category A categoria pretendida.
+     * @return Uma {@link List} só de leitura com os navios da categoria, pela ordem de inserção.
+     */
+    List<IShip> getShipsLike(Category category);
+
+    /**
+     * Conta os navios de uma categoria que ainda flutuam.
+     * * @param category A categoria pretendida.
+     * @return O número de navios dessa categoria com partes intactas.
+     */
+    int countFloating(Category category);
+
     /**
      * Filtra a frota e retorna apenas os navios que ainda não foram afundados.
      * * @return Uma {@link List} de navios que ainda flutuam.
      */
     List<IShip> getFloatingShips();
 
+    /**
+     * Devolve o número de navios da frota que ainda não foram afundados,
+     * sem percorrer a frota nem alocar memória.
+     * * @return O número de navios que ainda flutuam.
+     */
+    int getFloatingCount();
+
     /**
      * Verifica qual o navio que ocupa uma determinada posição no tabuleiro.
      * * @param pos A posição ({@link IPosition}) a ser consultada.
@@ -57,9 +78,24 @@ public interface IFleet {
      */
     IShip shipAt(IPosition pos);
 
+    /**
+     * Devolve o índice, na lista {@link #getShips()}, do navio que ocupa uma célula.
+     * * @param row A linha da célula.
+     * @param column A coluna da célula.
+     * @return O índice do navio, ou -1 se a célula estiver vazia ou fora do tabuleiro.
+     */
+    int shipIndexAt(int row, int column);
+
     /**
      * Exibe no terminal o estado atual da frota, detalhando os navios 
      * existentes e o seu estado de integridade.
      */
     void printStatus();
+
+    /**
+     * Acrescenta a um {@link StringBuilder} o texto de {@link #printStatus()},
+     * numa única passagem pela frota e sem alocar memória.
+     * * @param out O destino do texto.
+     */
+    void appendStatus(StringBuilder out);
 }
@@ -21,6 +21,26 @@ public interface IGame {
      */
     IShip fire(IPosition pos);
 
+    /**
+     * Executa um disparo numa célula do tabuleiro, sem alocar objetos.
+     * * @param row A linha do tiro.
+     * @param column A coluna do tiro.
+     * @return O código do resultado ({@link ShotResult}): água, acerto, afundado,
+     * repetido ou inválido; nos acertos e afundamentos inclui o índice do navio na frota.
+     */
+    int fire(int row, int column);
+
+    /**
+     * Executa uma rajada de disparos numa única passagem, sem alocar objetos por tiro.
+     * Cada tiro é codificado com {@link Position#pack(int, int)} e o resultado de cada
+     * um ({@link ShotResult}: água, acerto, afundado, repetido ou inválido, mais o índice
+     * do navio atingido) é escrito na mesma posição do vetor {@code results}.
+     * * @param shots As coordenadas codificadas dos tiros.
+     * @param results O vetor fornecido pelo chamador onde são escritos os resultados.
+     * @return O número de navios afundados pela rajada.
+     */
+    int fireSalvo(int[] shots, int[] results);
+
     /**
      * Obtém a lista de todas as posições onde foram efetuados tiros válidos e não repetidos.
      * * @return Uma {@link List} de objetos {@link IPosition}.
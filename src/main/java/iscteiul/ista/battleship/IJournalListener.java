@@ -0,0 +1,35 @@
+package iscteiul.ista.battleship;
+
+/**
+ * Interface que recebe os registos de um diário de jogos ({@link GameJournal})
+ * durante a sua leitura sequencial. Os valores são entregues já descodificados
+ * em tipos primitivos, sem criar objetos por registo.
+ * * @version 1.0
+ */
+public interface IJournalListener {
+
+    /**
+     * Início de um novo jogo.
+     * * @param game O identificador do jogo.
+     */
+    default void onGame(long game) {
+    }
+
+    /**
+     * Colocação de um navio na frota de um jogo.
+     * * @param game O identificador do jogo.
+     * @param ship O navio codificado (tipo, orientação e origem); ver {@link GameJournal#placedShip(int)}.
+     */
+    default void onPlacement(long game, int ship) {
+    }
+
+    /**
+     * Disparo efetuado num jogo.
+     * * @param game O identificador do jogo.
+     * @param row A linha do tiro.
+     * @param column A coluna do tiro.
+     * @param result O código do resultado ({@link ShotResult}).
+     */
+    default void onShot(long game, int row, int column, int result) {
+    }
+}
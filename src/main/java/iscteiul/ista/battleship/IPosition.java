@@ -4,8 +4,8 @@ package iscteiul.ista.battleship;
 
 /**
  * Interface que define o contrato para uma posição (célula) no tabuleiro de Battleship.
- * Uma posição gere as suas coordenadas, a presença de componentes de um navio
- * e o registo de impactos de tiros.
+ * Uma posição representa apenas as suas coordenadas; a presença de navios e o
+ * registo de impactos de tiros são geridos pelos navios e pelo jogo.
  * * @author fba
  * @version 1.0
  */
@@ -37,26 +37,4 @@ public interface IPosition {
      * @return {@code true} se as posições forem vizinhas; {@code false} caso contrário.
      */
     boolean isAdjacentTo(IPosition other);
-
-    /**
-     * Marca esta posição como estando ocupada por uma parte de um navio.
-     */
-    void occupy();
-
-    /**
-     * Regista um disparo sobre esta posição, alterando o seu estado para "atingida".
-     */
-    void shoot();
-
-    /**
-     * Indica se a posição contém atualmente uma parte de um navio.
-     * * @return {@code true} se estiver ocupada; {@code false} se for apenas água.
-     */
-    boolean isOccupied();
-
-    /**
-     * Indica se esta posição já foi alvo de um tiro bem-sucedido.
-     * * @return {@code true} se a posição tiver sido atingida; {@code false} caso contrário.
-     */
-    boolean isHit();
 }
@@ -0,0 +1,19 @@
+package iscteiul.ista.battleship;
+
+/**
+ * Destino das mensagens de uma sessão de jogo ({@link Tasks#playSession}).
+ * As mensagens chegam no formato parametrizado do log4j ({@code {}} para cada
+ * parâmetro), para que só sejam construídas se forem de facto escritas: a
+ * consola usa diretamente {@code Logger::info}.
+ * * @version 1.0
+ */
+@FunctionalInterface
+public interface ISessionLog {
+
+    /**
+     * Escreve uma mensagem da sessão.
+     * * @param pattern O padrão da mensagem, com {@code {}} no lugar de cada parâmetro.
+     * @param params Os parâmetros da mensagem.
+     */
+    void info(String pattern, Object... params);
+}
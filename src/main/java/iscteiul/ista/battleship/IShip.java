@@ -19,6 +19,15 @@ public interface IShip {
      */
     String getCategory();
 
+    /**
+     * Devolve a categoria do navio como enumerado.
+     *
+     * @return a categoria; {@code null} se o nome não corresponder a nenhuma categoria conhecida
+     */
+    default Category getCategoryType() {
+        return Category.of(getCategory());
+    }
+
     /**
      * Devolve o tamanho do navio.
      *
@@ -122,10 +131,19 @@ public interface IShip {
      * Regista um disparo numa determinada posição.
      * <p>
      * Caso a posição pertença ao navio, essa posição deve
-     * ser marcada como atingida.
+     * ser marcada como atingida no estado do próprio navio.
      * </p>
      *
      * @param pos posição onde foi efetuado o disparo
      */
     void shoot(IPosition pos);
+
+    /**
+     * Indica se uma posição do navio já foi atingida por um disparo.
+     *
+     * @param pos posição a verificar
+     * @return {@code true} se o navio ocupar essa posição e esta já tiver sido atingida;
+     *         {@code false} caso contrário
+     */
+    boolean isHit(IPosition pos);
 }
@@ -0,0 +1,24 @@
+package iscteiul.ista.battleship;
+
+/**
+ * Interface que define uma estratégia de disparo (atirador) para jogos automáticos.
+ * O atirador escolhe cada tiro e é informado do respetivo resultado, mantendo
+ * internamente o que sabe sobre a frota adversária.
+ * * @version 1.0
+ */
+public interface IShooter {
+
+    /**
+     * Escolhe a próxima posição a atacar.
+     * * @return A posição do próximo tiro.
+     */
+    Position nextShot();
+
+    /**
+     * Informa o atirador do resultado de um tiro.
+     * * @param shot A posição atacada.
+     * @param result O código do resultado ({@link ShotResult}).
+     * @param sunk O navio afundado por este tiro, ou {@code null} se nenhum foi afundado.
+     */
+    void onResult(Position shot, int result, IShip sunk);
+}
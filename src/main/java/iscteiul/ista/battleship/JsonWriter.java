@@ -0,0 +1,156 @@
+package iscteiul.ista.battleship;
+
+/**
+ * Escritor de JSON minimalista, sem reflexão: o chamador emite explicitamente
+ * objetos, listas, nomes e valores, e o escritor trata das vírgulas e do
+ * escape das strings. O texto é acumulado num {@link StringBuilder} que pode
+ * ser reutilizado entre respostas com {@link #reset()}.
+ */
+final class JsonWriter {
+
+    /** Profundidade máxima de objetos e listas encaixados. */
+    private static final int MAX_DEPTH = 32;
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final StringBuilder out = new StringBuilder(256);
+
+    /** Indica, para cada nível, se já foi escrito algum elemento. */
+    private final boolean[] started = new boolean[MAX_DEPTH];
+
+    private int depth;
+
+    /** Indica se acabou de ser escrito um nome, cujo valor vem a seguir. */
+    private boolean afterName;
+
+    /**
+     * Esvazia o escritor para uma nova resposta.
+     *
+     * @return este escritor
+     */
+    JsonWriter reset() {
+        out.setLength(0);
+        depth = 0;
+        afterName = false;
+        return this;
+    }
+
+    JsonWriter beginObject() {
+        return open('{');
+    }
+
+    JsonWriter endObject() {
+        return close('}');
+    }
+
+    JsonWriter beginArray() {
+        return open('[');
+    }
+
+    JsonWriter endArray() {
+        return close(']');
+    }
+
+    /**
+     * Escreve o nome do próximo membro de um objeto.
+     *
+     * @param name nome do membro
+     * @return este escritor
+     */
+    JsonWriter name(String name) {
+        separate();
+        string(name);
+        out.append(':');
+        afterName = true;
+        return this;
+    }
+
+    JsonWriter value(long value) {
+        separate();
+        out.append(value);
+        return this;
+    }
+
+    JsonWriter value(boolean value) {
+        separate();
+        out.append(value);
+        return this;
+    }
+
+    /**
+     * @param value texto a escrever; {@code null} escreve {@code null}
+     * @return este escritor
+     */
+    JsonWriter value(String value) {
+        separate();
+        if (value == null)
+            out.append("null");
+        else
+            string(value);
+        return this;
+    }
+
+    /**
+     * @return o texto JSON escrito desde o último {@link #reset()}
+     */
+    @Override
+    public String toString() {
+        return out.toString();
+    }
+
+    private JsonWriter open(char c) {
+        separate();
+        out.append(c);
+        started[++depth] = false;
+        return this;
+    }
+
+    private JsonWriter close(char c) {
+        out.append(c);
+        depth--;
+        return this;
+    }
+
+    /**
+     * Escreve a vírgula que separa um elemento do anterior, se for preciso.
+     */
+    private void separate() {
+        if (afterName) {
+            afterName = false;
+            return;
+        }
+        if (started[depth])
+            out.append(',');
+        started[depth] = true;
+    }
+
+    private void string(String s) {
+        out.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"':
+                    out.append("\\\"");
+                    break;
+                case '\\':
+                    out.append("\\\\");
+                    break;
+                case '\n':
+                    out.append("\\n");
+                    break;
+                case '\r':
+                    out.append("\\r");
+                    break;
+                case '\t':
+                    out.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20)
+                        out.append("\\u00").append(HEX[c >> 4]).append(HEX[c & 0xF]);
+                    else
+                        out.append(c);
+            }
+        }
+        out.append('"');
+    }
+}
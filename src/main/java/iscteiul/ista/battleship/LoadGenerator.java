@@ -0,0 +1,272 @@
+package iscteiul.ista.battleship;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.SplittableRandom;
+
+/**
+ * Gerador de carga para o {@link GameServer}: abre muitas sessões em simultâneo
+ * a partir de uma única thread (um selector) e mede a latência de cada comando,
+ * do envio até à chegada do indicador {@link GameSession#PROMPT}.
+ * <p>
+ * Cada sessão cria uma frota legal aleatória com {@code nova}, dispara um número
+ * fixo de rajadas em células aleatórias, com um tempo de reflexão entre comandos,
+ * e termina com {@code desisto}. A abertura das ligações é escalonada para não
+ * transbordar a fila de ligações pendentes do servidor.
+ * </p>
+ */
+public final class LoadGenerator {
+
+    /** Número máximo de ligações a estabelecer em simultâneo. */
+    private static final int MAX_CONNECTING = 512;
+
+    private final InetSocketAddress address;
+    private final int sessionCount;
+    private final int rounds;
+    private final long thinkNanos;
+    private final long seed;
+
+    /**
+     * @param address endereço do servidor
+     * @param sessions número de sessões simultâneas
+     * @param rounds número de rajadas por sessão
+     * @param thinkMillis tempo de reflexão entre a resposta e o comando seguinte, em milissegundos
+     * @param seed semente das frotas e dos tiros
+     */
+    public LoadGenerator(InetSocketAddress address, int sessions, int rounds, long thinkMillis, long seed) {
+        this.address = address;
+        this.sessionCount = sessions;
+        this.rounds = rounds;
+        this.thinkNanos = thinkMillis * 1_000_000L;
+        this.seed = seed;
+    }
+
+    /**
+     * Estado de uma sessão simulada.
+     */
+    private static final class Client {
+
+        final byte[][] script;
+        SocketChannel channel;
+        SelectionKey key;
+        int next;
+        long sentAt;
+        long dueAt;
+        boolean connected;
+
+        Client(byte[][] script) {
+            this.script = script;
+        }
+    }
+
+    /**
+     * Corre todas as sessões até terminarem.
+     *
+     * @return latências e contagens observadas
+     * @throws IOException se o selector não puder ser aberto
+     */
+    public Result run() throws IOException {
+        SplittableRandom random = new SplittableRandom(seed);
+        FleetGenerator fleets = new FleetGenerator(seed);
+        ArrayDeque<Client> waitingToConnect = new ArrayDeque<>(sessionCount);
+        for (int i = 0; i < sessionCount; i++)
+            waitingToConnect.add(new Client(script(fleets.next(), random)));
+
+        long[] latencies = new long[sessionCount * (rounds + 2)];
+        int samples = 0, completed = 0, failed = 0, connecting = 0;
+        ArrayDeque<Client> thinking = new ArrayDeque<>();
+        ByteBuffer sink = ByteBuffer.allocateDirect(16 * 1024);
+        long start = System.nanoTime();
+
+        try (Selector selector = Selector.open()) {
+            while (completed + failed < sessionCount) {
+                while (connecting < MAX_CONNECTING && !waitingToConnect.isEmpty()) {
+                    Client client = waitingToConnect.poll();
+                    try {
+                        client.channel = SocketChannel.open();
+                        client.channel.configureBlocking(false);
+                        client.channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                        client.channel.connect(address);
+                        client.key = client.channel.register(selector, SelectionKey.OP_CONNECT, client);
+                        connecting++;
+                    } catch (IOException e) {
+                        failed++;
+                    }
+                }
+
+                long now = System.nanoTime();
+                while (!thinking.isEmpty() && thinking.peekFirst().dueAt <= now) {
+                    Client client = thinking.pollFirst();
+                    if (!send(client)) {
+                        close(client);
+                        failed++;
+                    }
+                }
+
+                long timeout = thinking.isEmpty() ? 100 : Math.max(1, (thinking.peekFirst().dueAt - now) / 1_000_000L);
+                selector.select(timeout);
+
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    Client client = (Client) key.attachment();
+                    try {
+                        if (key.isConnectable()) {
+                            client.channel.finishConnect();
+                            client.connected = true;
+                            connecting--;
+                            key.interestOps(SelectionKey.OP_READ);
+                            client.sentAt = System.nanoTime();
+                            continue;
+                        }
+
+                        sink.clear();
+                        int n = client.channel.read(sink);
+                        if (n < 0) {
+                            close(client);
+                            if (client.next == client.script.length)
+                                completed++;
+                            else
+                                failed++;
+                            continue;
+                        }
+                        int prompts = 0;
+                        for (int i = 0; i < n; i++)
+                            if (sink.get(i) == '>')
+                                prompts++;
+                        if (prompts == 0)
+                            continue;
+
+                        long received = System.nanoTime();
+                        if (client.next > 0)
+                            latencies[samples++] = received - client.sentAt;
+                        if (client.next == client.script.length)
+                            continue;
+                        client.dueAt = received + (client.next == 0 ? 0 : thinkNanos);
+                        thinking.addLast(client);
+                    } catch (IOException e) {
+                        if (!client.connected)
+                            connecting--;
+                        close(client);
+                        failed++;
+                    }
+                }
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+
+        long[] sorted = Arrays.copyOf(latencies, samples);
+        Arrays.sort(sorted);
+        return new Result(sessionCount, completed, failed, sorted, elapsed);
+    }
+
+    /**
+     * Envia o próximo comando de uma sessão.
+     *
+     * @return {@code false} se a escrita falhar
+     */
+    private static boolean send(Client client) {
+        try {
+            ByteBuffer command = ByteBuffer.wrap(client.script[client.next++]);
+            client.sentAt = System.nanoTime();
+            while (command.hasRemaining())
+                client.channel.write(command);
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static void close(Client client) {
+        client.key.cancel();
+        try {
+            client.channel.close();
+        } catch (IOException e) {
+            // a ligação já está perdida
+        }
+    }
+
+    /**
+     * Constrói os comandos de uma sessão: criação da frota, rajadas e desistência.
+     */
+    private byte[][] script(Fleet fleet, SplittableRandom random) {
+        byte[][] script = new byte[rounds + 2][];
+        StringBuilder nova = new StringBuilder("nova\n");
+        for (IShip s : fleet.getShips())
+            nova.append(PlacementCatalog.kindOf(s)).append(' ')
+                    .append(s.getPosition().getRow()).append(' ')
+                    .append(s.getPosition().getColumn()).append(' ')
+                    .append(s.getBearing()).append('\n');
+        script[0] = nova.toString().getBytes(StandardCharsets.US_ASCII);
+
+        for (int i = 1; i <= rounds; i++) {
+            StringBuilder rajada = new StringBuilder("rajada");
+            for (int shot = 0; shot < 3; shot++)
+                rajada.append(' ').append(random.nextInt(IFleet.BOARD_SIZE))
+                        .append(' ').append(random.nextInt(IFleet.BOARD_SIZE));
+            script[i] = rajada.append('\n').toString().getBytes(StandardCharsets.US_ASCII);
+        }
+        script[rounds + 1] = "desisto\n".getBytes(StandardCharsets.US_ASCII);
+        return script;
+    }
+
+    /**
+     * Resultado de uma execução do gerador de carga.
+     */
+    public static final class Result {
+
+        private final int sessions, completed, failed;
+        private final long[] latencies;
+        private final long elapsedNanos;
+
+        Result(int sessions, int completed, int failed, long[] latencies, long elapsedNanos) {
+            this.sessions = sessions;
+            this.completed = completed;
+            this.failed = failed;
+            this.latencies = latencies;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        public int getCompleted() {
+            return completed;
+        }
+
+        public int getFailed() {
+            return failed;
+        }
+
+        public int getCommands() {
+            return latencies.length;
+        }
+
+        /**
+         * @param p percentil, entre 0 e 100
+         * @return latência nesse percentil, em microssegundos
+         */
+        public double getLatencyMicros(double p) {
+            if (latencies.length == 0)
+                return Double.NaN;
+            int index = (int) Math.min(latencies.length - 1, Math.ceil(p / 100.0 * latencies.length) - 1);
+            return latencies[Math.max(index, 0)] / 1e3;
+        }
+
+        @Override
+        public String toString() {
+            double seconds = elapsedNanos / 1e9;
+            return String.format("sessoes=%d concluidas=%d falhadas=%d comandos=%d (%.0f/s) "
+                    + "latencia p50=%.0fus p99=%.0fus max=%.0fus tempo=%.1fs",
+                    sessions, completed, failed, latencies.length, latencies.length / seconds,
+                    getLatencyMicros(50), getLatencyMicros(99), getLatencyMicros(100), seconds);
+        }
+    }
+}
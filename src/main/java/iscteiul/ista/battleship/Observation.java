@@ -0,0 +1,59 @@
+package iscteiul.ista.battleship;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * O que um atirador sabe sobre a frota adversária, em forma de mapas de bits.
+ * <p>
+ * É construída a partir dos tiros na água, dos acertos e dos navios já afundados,
+ * e traduz essa informação nas restrições usadas para gerar ou contar frotas
+ * compatíveis: as células onde nenhum navio restante pode estar, os acertos que
+ * ainda têm de ser explicados por um navio a flutuar e os tipos de navio que
+ * faltam afundar.
+ * </p>
+ */
+final class Observation {
+
+    /** Células já atacadas (água ou acerto). */
+    final BitBoard fired = new BitBoard();
+
+    /** Células interditas aos navios restantes: tiros na água e zona de exclusão dos afundados. */
+    final BitBoard blocked = new BitBoard();
+
+    /** Acertos em navios que ainda não foram afundados. */
+    final BitBoard pendingHits = new BitBoard();
+
+    /** Tipos dos navios ainda a flutuar, pela ordem da composição da frota. */
+    final String[] remaining;
+
+    /**
+     * Constrói a observação.
+     *
+     * @param fleetMix tipos dos navios da frota adversária
+     * @param misses células atacadas que eram água
+     * @param hits células atacadas que acertaram num navio (incluindo navios afundados)
+     * @param sunk navios já afundados
+     */
+    Observation(String[] fleetMix, BitBoard misses, BitBoard hits, List<? extends IShip> sunk) {
+        fired.or(misses);
+        fired.or(hits);
+        blocked.or(misses);
+        pendingHits.or(hits);
+
+        List<String> kinds = new ArrayList<>(Arrays.asList(fleetMix));
+        for (IShip s : sunk) {
+            kinds.remove(PlacementCatalog.kindOf(s));
+            for (IPosition p : s.getPositions()) {
+                int row = p.getRow();
+                int column = p.getColumn();
+                pendingHits.clear(BitBoard.index(row, column));
+                for (int r = Math.max(row - 1, 0); r <= Math.min(row + 1, IFleet.BOARD_SIZE - 1); r++)
+                    for (int c = Math.max(column - 1, 0); c <= Math.min(column + 1, IFleet.BOARD_SIZE - 1); c++)
+                        blocked.set(BitBoard.index(r, c));
+            }
+        }
+        remaining = kinds.toArray(new String[0]);
+    }
+}
@@ -0,0 +1,197 @@
+package iscteiul.ista.battleship;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Catálogo de todas as colocações possíveis de cada tipo de navio no tabuleiro.
+ * <p>
+ * Uma colocação é uma combinação de orientação e origem aceite pelas regras de
+ * {@link Fleet#addShip(IShip)} numa frota vazia (navio inteiramente dentro do
+ * tabuleiro). Colocações com as mesmas células (por exemplo, uma Nau a Norte e a
+ * Sul) são contadas uma só vez, guardando todas as orientações que as produzem
+ * para que os navios construídos possam ter qualquer uma. Cada colocação traz os mapas de bits das células
+ * ocupadas e da zona de exclusão, o que permite validar frotas inteiras com
+ * operações bit a bit, sem construir objetos {@link IShip}.
+ * </p>
+ */
+final class PlacementCatalog {
+
+    /**
+     * Categorias de navio, pela ordem dos seus ordinais.
+     */
+    static final Category[] CATEGORIES = Category.values();
+
+    /**
+     * Tipos de navio aceites por {@link Ship#buildShip(String, Compass, Position)}: as
+     * palavras de colocação de {@link #CATEGORIES}, pela mesma ordem.
+     */
+    static final String[] KINDS = new String[CATEGORIES.length];
+
+    static {
+        for (int i = 0; i < CATEGORIES.length; i++)
+            KINDS[i] = CATEGORIES[i].getKeyword();
+    }
+
+    /**
+     * Composição da frota padrão (ver README): 1 galeão, 1 fragata, 2 naus,
+     * 3 caravelas e 4 barcas, dos navios maiores para os mais pequenos.
+     */
+    static final String[] STANDARD_FLEET = { "galeao", "fragata", "nau", "nau", "caravela", "caravela",
+            "caravela", "barca", "barca", "barca", "barca" };
+
+    /**
+     * Orientações válidas para colocação de navios.
+     */
+    static final Compass[] BEARINGS = { Compass.NORTH, Compass.SOUTH, Compass.EAST, Compass.WEST };
+
+    /**
+     * Uma colocação de um navio: um conjunto de células, com todas as combinações
+     * de orientação e origem que o ocupam (por exemplo, uma Barca tem quatro, uma
+     * para cada orientação, e uma Nau duas).
+     */
+    static final class Placement {
+
+        /** Categoria do navio. */
+        final Category category;
+
+        /** Orientação de cada variante. */
+        private Compass[] bearings;
+
+        /** Posição de origem de cada variante. */
+        private Position[] origins;
+
+        /** Células ocupadas (partilhado, não deve ser alterado). */
+        final BitBoard footprint;
+
+        /** Células ocupadas e vizinhas (partilhado, não deve ser alterado). */
+        final BitBoard halo;
+
+        private Placement(Category category, Ship ship) {
+            this.category = category;
+            this.bearings = new Compass[] { ship.getBearing() };
+            this.origins = new Position[] { (Position) ship.getPosition() };
+            this.footprint = ship.getFootprint();
+            this.halo = ship.getShape().halo(ship.getPosition().getRow(), ship.getPosition().getColumn());
+        }
+
+        /**
+         * Acrescenta outra orientação e origem que ocupam as mesmas células.
+         */
+        private void addVariant(Ship ship) {
+            int n = bearings.length;
+            bearings = Arrays.copyOf(bearings, n + 1);
+            origins = Arrays.copyOf(origins, n + 1);
+            bearings[n] = ship.getBearing();
+            origins[n] = (Position) ship.getPosition();
+        }
+
+        /**
+         * @return número de combinações de orientação e origem desta colocação
+         */
+        int variants() {
+            return bearings.length;
+        }
+
+        /**
+         * Constrói um navio novo, sem tiros, com uma das variantes desta colocação.
+         *
+         * @param variant índice da variante, entre 0 e {@link #variants()} - 1
+         * @return navio correspondente
+         */
+        Ship build(int variant) {
+            return Ship.buildShip(category, bearings[variant], origins[variant]);
+        }
+
+        @Override
+        public String toString() {
+            return category.getKeyword() + " " + bearings[0] + " " + origins[0];
+        }
+    }
+
+    /**
+     * Colocações por categoria, pelo ordinal.
+     */
+    private static final Placement[][] BY_CATEGORY = new Placement[CATEGORIES.length][];
+
+    /**
+     * Colocações por categoria, pelo ordinal, e por célula coberta.
+     */
+    private static final Placement[][][] BY_CATEGORY_AND_CELL = new Placement[CATEGORIES.length][][];
+
+    static {
+        for (Category category : CATEGORIES) {
+            List<Placement> placements = new ArrayList<>();
+            Map<BitBoard, Placement> seen = new HashMap<>();
+            for (Compass bearing : BEARINGS)
+                for (int r = 0; r < IFleet.BOARD_SIZE; r++)
+                    for (int c = 0; c < IFleet.BOARD_SIZE; c++) {
+                        Ship s = Ship.buildShip(category, bearing, Position.of(r, c));
+                        if (s.getFootprint() == null)
+                            continue;
+                        Placement same = seen.get(s.getFootprint());
+                        if (same != null) {
+                            same.addVariant(s);
+                        } else {
+                            Placement p = new Placement(category, s);
+                            seen.put(p.footprint, p);
+                            placements.add(p);
+                        }
+                    }
+            BY_CATEGORY[category.ordinal()] = placements.toArray(new Placement[0]);
+
+            List<List<Placement>> perCell = new ArrayList<>();
+            for (int i = 0; i < BitBoard.CELLS; i++)
+                perCell.add(new ArrayList<>());
+            for (Placement p : placements)
+                for (int i = p.footprint.nextSetBit(0); i >= 0; i = p.footprint.nextSetBit(i + 1))
+                    perCell.get(i).add(p);
+            Placement[][] covering = new Placement[BitBoard.CELLS][];
+            for (int i = 0; i < BitBoard.CELLS; i++)
+                covering[i] = perCell.get(i).toArray(new Placement[0]);
+            BY_CATEGORY_AND_CELL[category.ordinal()] = covering;
+        }
+    }
+
+    private PlacementCatalog() {
+    }
+
+    /**
+     * Devolve todas as colocações distintas de um tipo de navio.
+     * O vetor devolvido é partilhado e não deve ser alterado.
+     *
+     * @param kind tipo de navio (ex: "galeao")
+     * @return colocações possíveis, ou null se o tipo não existir
+     */
+    static Placement[] placements(String kind) {
+        Category category = Category.ofKeyword(kind);
+        return category != null ? BY_CATEGORY[category.ordinal()] : null;
+    }
+
+    /**
+     * Devolve as colocações de um tipo de navio que ocupam uma célula.
+     * O vetor devolvido é partilhado e não deve ser alterado.
+     *
+     * @param kind tipo de navio (ex: "galeao")
+     * @param cell índice da célula
+     * @return colocações que cobrem a célula
+     */
+    static Placement[] covering(String kind, int cell) {
+        return BY_CATEGORY_AND_CELL[Category.ofKeyword(kind).ordinal()][cell];
+    }
+
+    /**
+     * Converte a categoria de um navio (ex: "Galeao") no tipo usado pelo catálogo
+     * e por {@link Ship#buildShip(String, Compass, Position)}.
+     *
+     * @param ship navio
+     * @return tipo do navio
+     */
+    static String kindOf(IShip ship) {
+        Category category = ship.getCategoryType();
+        return category != null ? category.getKeyword() : ship.getCategory().toLowerCase();
+    }
+}
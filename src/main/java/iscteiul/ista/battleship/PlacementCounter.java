@@ -0,0 +1,327 @@
+package iscteiul.ista.battleship;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import iscteiul.ista.battleship.PlacementCatalog.Placement;
+
+/**
+ * Motor de contagem exata de frotas legais.
+ * <p>
+ * Conta quantas frotas respeitam as regras de {@link Fleet#addShip(IShip)}
+ * (navios dentro do tabuleiro e sem se tocarem) para uma dada composição e,
+ * opcionalmente, para um histórico de tiros: as frotas não podem ocupar tiros na
+ * água, nem tocar em navios afundados, e têm de cobrir todos os acertos pendentes.
+ * Para cada célula conta também em quantas dessas frotas ela está ocupada, o que
+ * dá a probabilidade exata de acerto. Navios do mesmo tipo são indistinguíveis:
+ * cada frota é contada uma só vez.
+ * </p>
+ * <p>
+ * A enumeração percorre as colocações pré-calculadas do {@link PlacementCatalog}
+ * (mapas de bits por tipo de navio e orientação) e memoriza os subproblemas,
+ * identificados pelos navios em falta e pelas células ainda livres. O primeiro
+ * navio é repartido por tarefas de um {@link ForkJoinPool}, que partilham a memória.
+ * Num tabuleiro vazio com a frota padrão completa o espaço de pesquisa é enorme;
+ * a contagem exata é útil com frotas mais pequenas ou a meio do jogo, quando os
+ * tiros já restringem muito as colocações.
+ * </p>
+ */
+public class PlacementCounter {
+
+    /**
+     * Resultado de uma contagem.
+     */
+    public static final class Result {
+
+        /** Resultado sem nenhuma frota. */
+        private static final Result NONE = new Result(0, new long[BitBoard.CELLS]);
+
+        /** Resultado com exatamente uma frota (já totalmente colocada). */
+        private static final Result ONE = new Result(1, new long[BitBoard.CELLS]);
+
+        /** Número de frotas legais. */
+        private final long total;
+
+        /** Número de frotas legais que ocupam cada célula. */
+        private final long[] occupancy;
+
+        private Result(long total, long[] occupancy) {
+            this.total = total;
+            this.occupancy = occupancy;
+        }
+
+        /**
+         * @return número de frotas legais
+         */
+        public long total() {
+            return total;
+        }
+
+        /**
+         * @param cell índice da célula ({@code linha * BOARD_SIZE + coluna})
+         * @return número de frotas legais em que a célula está ocupada
+         */
+        public long occupancy(int cell) {
+            return occupancy[cell];
+        }
+
+        /**
+         * @param cell índice da célula ({@code linha * BOARD_SIZE + coluna})
+         * @return probabilidade exata de a célula estar ocupada; 0 se não houver frotas legais
+         */
+        public double probability(int cell) {
+            return total == 0 ? 0 : (double) occupancy[cell] / total;
+        }
+    }
+
+    /**
+     * Chave de memorização de um subproblema.
+     */
+    private static final class Key {
+        private final int ship;
+        private final int minIndex;
+        private final BitBoard blocked;
+        private final BitBoard uncovered;
+        private final int hash;
+
+        Key(int ship, int minIndex, BitBoard blocked, BitBoard uncovered) {
+            this.ship = ship;
+            this.minIndex = minIndex;
+            this.blocked = blocked;
+            this.uncovered = uncovered;
+            this.hash = 31 * (31 * (31 * ship + minIndex) + blocked.hashCode()) + uncovered.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key))
+                return false;
+            Key k = (Key) o;
+            return ship == k.ship && minIndex == k.minIndex && blocked.equals(k.blocked)
+                    && uncovered.equals(k.uncovered);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    /** Pool onde corre a contagem. */
+    private final ForkJoinPool pool;
+
+    /** Número máximo de subproblemas memorizados por contagem. */
+    private final int memoCapacity;
+
+    /**
+     * Cria um motor de contagem que usa o pool comum e memoriza até 200000 subproblemas.
+     */
+    public PlacementCounter() {
+        this(ForkJoinPool.commonPool(), 200_000);
+    }
+
+    /**
+     * Cria um motor de contagem.
+     *
+     * @param pool pool onde corre a contagem
+     * @param memoCapacity número máximo de subproblemas memorizados por contagem
+     */
+    public PlacementCounter(ForkJoinPool pool, int memoCapacity) {
+        this.pool = pool;
+        this.memoCapacity = memoCapacity;
+    }
+
+    /**
+     * Conta as frotas legais de uma composição num tabuleiro vazio.
+     *
+     * @param fleetMix tipos dos navios (ex: "galeao", "barca")
+     * @return contagem total e por célula
+     * @throws ArithmeticException se a contagem exceder {@code Long.MAX_VALUE}
+     */
+    public Result count(String[] fleetMix) {
+        return count(fleetMix, new BitBoard(), new BitBoard(), List.of());
+    }
+
+    /**
+     * Conta as frotas legais de uma composição compatíveis com um histórico de tiros.
+     *
+     * @param fleetMix tipos dos navios da frota adversária
+     * @param misses células atacadas que eram água
+     * @param hits células atacadas que acertaram num navio (incluindo navios afundados)
+     * @param sunk navios já afundados
+     * @return contagem total e por célula, relativa aos navios ainda a flutuar
+     * @throws ArithmeticException se a contagem exceder {@code Long.MAX_VALUE}
+     */
+    public Result count(String[] fleetMix, BitBoard misses, BitBoard hits, List<? extends IShip> sunk) {
+        for (String kind : fleetMix)
+            if (PlacementCatalog.placements(kind) == null)
+                throw new IllegalArgumentException("ERROR! unknown ship kind " + kind);
+
+        Observation observation = new Observation(fleetMix, misses, hits, sunk);
+        Search search = new Search(sortedBySize(observation.remaining));
+        return pool.invoke(new RootTask(search, observation.blocked, observation.pendingHits));
+    }
+
+    /**
+     * Ordena os tipos de navio do maior para o mais pequeno, para podar mais cedo
+     * e para que navios iguais fiquem seguidos. Como os tipos já estão ordenados em
+     * {@link PlacementCatalog#KINDS}, basta uma passagem por cada tipo, sem comparações.
+     *
+     * @param kinds tipos de navio, todos presentes no catálogo
+     * @return tipos ordenados
+     */
+    private static String[] sortedBySize(String[] kinds) {
+        String[] sorted = new String[kinds.length];
+        int n = 0;
+        for (String kind : PlacementCatalog.KINDS)
+            for (String k : kinds)
+                if (k.equals(kind))
+                    sorted[n++] = k;
+        return sorted;
+    }
+
+    /**
+     * Tarefa raiz: reparte as colocações do primeiro navio por subtarefas.
+     */
+    private static final class RootTask extends RecursiveTask<Result> {
+        private static final long serialVersionUID = 1L;
+
+        private final Search search;
+        private final BitBoard blocked;
+        private final BitBoard uncovered;
+
+        RootTask(Search search, BitBoard blocked, BitBoard uncovered) {
+            this.search = search;
+            this.blocked = blocked;
+            this.uncovered = uncovered;
+        }
+
+        @Override
+        protected Result compute() {
+            if (search.kinds.length == 0)
+                return search.solve(0, 0, blocked, uncovered);
+
+            Placement[] options = PlacementCatalog.placements(search.kinds[0]);
+            List<RecursiveTask<Result>> branches = new ArrayList<>();
+            for (int j = 0; j < options.length; j++) {
+                Placement p = options[j];
+                if (p.footprint.intersects(blocked))
+                    continue;
+                int next = j + 1;
+                branches.add(new RecursiveTask<Result>() {
+                    @Override
+                    protected Result compute() {
+                        return search.place(p, 0, next, blocked, uncovered);
+                    }
+                });
+            }
+            ForkJoinTask.invokeAll(branches);
+
+            long total = 0;
+            long[] occupancy = new long[BitBoard.CELLS];
+            for (RecursiveTask<Result> branch : branches) {
+                Result r = branch.join();
+                total = Math.addExact(total, r.total);
+                for (int c = 0; c < BitBoard.CELLS; c++)
+                    occupancy[c] = Math.addExact(occupancy[c], r.occupancy[c]);
+            }
+            return new Result(total, occupancy);
+        }
+    }
+
+    /**
+     * Estado partilhado de uma contagem: composição e memória de subproblemas.
+     */
+    private final class Search {
+        private final String[] kinds;
+        private final int[] sizeFrom;
+        private final Map<Key, Result> memo = new ConcurrentHashMap<>();
+        private final AtomicInteger memoSize = new AtomicInteger();
+
+        Search(String[] kinds) {
+            this.kinds = kinds;
+            this.sizeFrom = new int[kinds.length + 1];
+            for (int i = kinds.length - 1; i >= 0; i--)
+                sizeFrom[i] = sizeFrom[i + 1] + PlacementCatalog.placements(kinds[i])[0].footprint.cardinality();
+        }
+
+        /**
+         * Conta as frotas que completam a disposição a partir do navio {@code ship}.
+         *
+         * @param ship índice do próximo navio a colocar
+         * @param minIndex primeira colocação permitida, se o navio for igual ao anterior
+         * @param blocked células interditas
+         * @param uncovered acertos ainda por cobrir
+         * @return contagem das disposições completas
+         */
+        Result solve(int ship, int minIndex, BitBoard blocked, BitBoard uncovered) {
+            if (uncovered.intersects(blocked) || uncovered.cardinality() > sizeFrom[ship])
+                return Result.NONE;
+            if (ship == kinds.length)
+                return uncovered.isEmpty() ? Result.ONE : Result.NONE;
+
+            int first = (ship > 0 && kinds[ship].equals(kinds[ship - 1])) ? minIndex : 0;
+            Key key = new Key(ship, first, blocked, uncovered);
+            Result cached = memo.get(key);
+            if (cached != null)
+                return cached;
+
+            Placement[] options = PlacementCatalog.placements(kinds[ship]);
+            long total = 0;
+            long[] occupancy = null;
+            for (int j = first; j < options.length; j++) {
+                Placement p = options[j];
+                if (p.footprint.intersects(blocked))
+                    continue;
+                Result r = place(p, ship, j + 1, blocked, uncovered);
+                if (r.total == 0)
+                    continue;
+                if (occupancy == null)
+                    occupancy = new long[BitBoard.CELLS];
+                total = Math.addExact(total, r.total);
+                for (int c = 0; c < BitBoard.CELLS; c++)
+                    occupancy[c] = Math.addExact(occupancy[c], r.occupancy[c]);
+            }
+
+            Result result = total == 0 ? Result.NONE : new Result(total, occupancy);
+            if (memoSize.get() < memoCapacity && memo.putIfAbsent(key, result) == null)
+                memoSize.incrementAndGet();
+            return result;
+        }
+
+        /**
+         * Coloca um navio e conta as frotas que completam a disposição,
+         * acrescentando as células desse navio à ocupação.
+         *
+         * @param p colocação do navio
+         * @param ship índice do navio colocado
+         * @param nextIndex primeira colocação permitida para um navio igual seguinte
+         * @param blocked células interditas antes da colocação
+         * @param uncovered acertos por cobrir antes da colocação
+         * @return contagem das disposições completas que usam esta colocação
+         */
+        Result place(Placement p, int ship, int nextIndex, BitBoard blocked, BitBoard uncovered) {
+            BitBoard nextBlocked = new BitBoard();
+            nextBlocked.copyFrom(blocked);
+            nextBlocked.or(p.halo);
+            BitBoard nextUncovered = new BitBoard();
+            nextUncovered.copyFrom(uncovered);
+            nextUncovered.andNot(p.footprint);
+
+            Result r = solve(ship + 1, nextIndex, nextBlocked, nextUncovered);
+            if (r.total == 0)
+                return r;
+
+            long[] occupancy = r.occupancy.clone();
+            for (int c = p.footprint.nextSetBit(0); c >= 0; c = p.footprint.nextSetBit(c + 1))
+                occupancy[c] = Math.addExact(occupancy[c], r.total);
+            return new Result(r.total, occupancy);
+        }
+    }
+}
@@ -1,50 +1,115 @@
 package iscteiul.ista.battleship;
 
-import java.util.Objects;
-
 /**
  * Representa uma posição (célula) no tabuleiro do jogo Battleship.
  * <p>
- * Cada posição é identificada por uma linha e uma coluna e pode
- * encontrar-se ocupada por um navio e/ou atingida por um disparo.
+ * Cada posição é identificada por uma linha e uma coluna e é imutável.
+ * Existe uma única instância canónica por célula do tabuleiro, obtida
+ * através de {@link #of(int, int)}; o estado de ocupação e de disparos
+ * é guardado pelos navios e pelo jogo, não pela posição.
  * </p>
  */
-public class Position implements IPosition {
+public final class Position implements IPosition {
 
     /**
-     * Índice da linha da posição.
+     * Instâncias canónicas das células do tabuleiro, indexadas por
+     * {@code linha * BOARD_SIZE + coluna}.
      */
-    private int row;
+    private static final Position[] CELLS = new Position[BitBoard.CELLS];
+
+    static {
+        for (int r = 0; r < IFleet.BOARD_SIZE; r++)
+            for (int c = 0; c < IFleet.BOARD_SIZE; c++)
+                CELLS[BitBoard.index(r, c)] = new Position(r, c);
+    }
 
     /**
-     * Índice da coluna da posição.
+     * Índice da linha da posição.
      */
-    private int column;
+    private final int row;
 
     /**
-     * Indica se a posição está ocupada por um navio.
+     * Índice da coluna da posição.
      */
-    private boolean isOccupied;
+    private final int column;
 
     /**
-     * Indica se a posição já foi atingida por um disparo.
+     * Constrói uma nova posição com a linha e coluna especificadas.
+     *
+     * @param row índice da linha
+     * @param column índice da coluna
      */
-    private boolean isHit;
+    private Position(int row, int column) {
+        this.row = row;
+        this.column = column;
+    }
 
     /**
-     * Constrói uma nova posição com a linha e coluna especificadas.
+     * Devolve a posição com a linha e coluna especificadas.
      * <p>
-     * Por omissão, a posição não está ocupada nem foi atingida.
+     * Para células dentro do tabuleiro é devolvida sempre a mesma instância,
+     * sem alocação; posições fora do tabuleiro (por exemplo, tiros inválidos)
+     * dão origem a uma nova instância.
      * </p>
      *
      * @param row índice da linha
      * @param column índice da coluna
+     * @return posição correspondente
      */
-    public Position(int row, int column) {
-        this.row = row;
-        this.column = column;
-        this.isOccupied = false;
-        this.isHit = false;
+    public static Position of(int row, int column) {
+        if (row >= 0 && row < IFleet.BOARD_SIZE && column >= 0 && column < IFleet.BOARD_SIZE)
+            return CELLS[BitBoard.index(row, column)];
+        return new Position(row, column);
+    }
+
+    /**
+     * Codifica uma coordenada num único {@code int}: a linha nos 16 bits mais
+     * significativos e a coluna nos 16 menos significativos. Coordenadas fora do
+     * tabuleiro, incluindo negativas, são preservadas desde que cada uma caiba em
+     * 16 bits com sinal ({@link Short#MIN_VALUE} a {@link Short#MAX_VALUE}); valores
+     * maiores seriam confundidos com outros, pelo que são rejeitados.
+     *
+     * @param row índice da linha
+     * @param column índice da coluna
+     * @return coordenada codificada
+     * @throws IllegalArgumentException se a linha ou a coluna não couberem em 16 bits
+     * @see #canPack(int, int)
+     */
+    public static int pack(int row, int column) {
+        if (!canPack(row, column))
+            throw new IllegalArgumentException("ERROR! coordinate out of range: " + row + ", " + column);
+        return (row << 16) | (column & 0xFFFF);
+    }
+
+    /**
+     * Indica se uma coordenada pode ser codificada com {@link #pack(int, int)} sem perda.
+     *
+     * @param row índice da linha
+     * @param column índice da coluna
+     * @return {@code true} se a linha e a coluna couberem em 16 bits com sinal
+     */
+    public static boolean canPack(int row, int column) {
+        return row == (short) row && column == (short) column;
+    }
+
+    /**
+     * Extrai a linha de uma coordenada codificada com {@link #pack(int, int)}.
+     *
+     * @param packed coordenada codificada
+     * @return índice da linha
+     */
+    public static int unpackRow(int packed) {
+        return packed >> 16;
+    }
+
+    /**
+     * Extrai a coluna de uma coordenada codificada com {@link #pack(int, int)}.
+     *
+     * @param packed coordenada codificada
+     * @return índice da coluna
+     */
+    public static int unpackColumn(int packed) {
+        return (short) packed;
     }
 
     /**
@@ -70,18 +135,18 @@ public class Position implements IPosition {
     /**
      * Calcula o código hash da posição.
      *
-     * @return valor hash baseado na linha, coluna e estado interno
+     * @return valor hash baseado apenas na linha e coluna
      */
     @Override
     public int hashCode() {
-        return Objects.hash(column, isHit, isOccupied, row);
+        return 31 * row + column;
     }
 
     /**
      * Compara esta posição com outro objeto.
      * <p>
      * Duas posições são consideradas iguais se tiverem a mesma
-     * linha e coluna, independentemente do estado (ocupada ou atingida).
+     * linha e coluna.
      * </p>
      *
      * @param otherPosition objeto a comparar
@@ -120,44 +185,6 @@ public class Position implements IPosition {
                 Math.abs(this.getColumn() - other.getColumn()) <= 1);
     }
 
-    /**
-     * Marca a posição como ocupada por um navio.
-     */
-    @Override
-    public void occupy() {
-        isOccupied = true;
-    }
-
-    /**
-     * Marca a posição como atingida por um disparo.
-     */
-    @Override
-    public void shoot() {
-        isHit = true;
-    }
-
-    /**
-     * Indica se a posição está ocupada.
-     *
-     * @return {@code true} se estiver ocupada;
-     *         {@code false} caso contrário
-     */
-    @Override
-    public boolean isOccupied() {
-        return isOccupied;
-    }
-
-    /**
-     * Indica se a posição já foi atingida.
-     *
-     * @return {@code true} se já tiver sido alvo de disparo;
-     *         {@code false} caso contrário
-     */
-    @Override
-    public boolean isHit() {
-        return isHit;
-    }
-
     /**
      * Devolve uma representação textual da posição.
      *
@@ -0,0 +1,55 @@
+package iscteiul.ista.battleship;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Atirador que escolhe cada tiro com o {@link TargetingEngine}, atacando a célula
+ * com maior probabilidade estimada de conter um navio.
+ */
+public class ProbabilityShooter implements IShooter {
+
+    /** Motor de escolha de alvos. */
+    private final TargetingEngine engine;
+
+    /** Tiros na água. */
+    private final BitBoard misses = new BitBoard();
+
+    /** Tiros que acertaram num navio. */
+    private final BitBoard hits = new BitBoard();
+
+    /** Navios afundados. */
+    private final List<IShip> sunk = new ArrayList<>();
+
+    /**
+     * Cria um atirador baseado num motor de escolha de alvos.
+     *
+     * @param engine motor a usar; não deve ser partilhado entre threads
+     */
+    public ProbabilityShooter(TargetingEngine engine) {
+        this.engine = engine;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Position nextShot() {
+        Position shot = engine.nextShot(misses, hits, sunk);
+        return shot != null ? shot : Position.of(0, 0);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void onResult(Position shot, int result, IShip sunkShip) {
+        int kind = ShotResult.kind(result);
+        if (kind == ShotResult.MISS)
+            misses.set(BitBoard.index(shot.getRow(), shot.getColumn()));
+        else if (ShotResult.isHit(result))
+            hits.set(BitBoard.index(shot.getRow(), shot.getColumn()));
+        if (sunkShip != null)
+            sunk.add(sunkShip);
+    }
+}
@@ -0,0 +1,50 @@
+package iscteiul.ista.battleship;
+
+import java.util.SplittableRandom;
+
+/**
+ * Atirador que ataca todas as células do tabuleiro por uma ordem aleatória,
+ * sem repetir tiros e ignorando os resultados. Serve de referência para comparar
+ * outras estratégias.
+ */
+public class RandomShooter implements IShooter {
+
+    /** Células por atacar; as primeiras {@link #fired} posições já foram usadas. */
+    private final int[] cells = new int[BitBoard.CELLS];
+
+    /** Número de tiros já escolhidos. */
+    private int fired;
+
+    /** Gerador de números aleatórios. */
+    private final SplittableRandom random;
+
+    /**
+     * Cria um atirador aleatório.
+     *
+     * @param seed semente do gerador aleatório
+     */
+    public RandomShooter(long seed) {
+        this.random = new SplittableRandom(seed);
+        for (int i = 0; i < cells.length; i++)
+            cells[i] = i;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Position nextShot() {
+        int j = fired + random.nextInt(cells.length - fired);
+        int cell = cells[j];
+        cells[j] = cells[fired];
+        cells[fired++] = cell;
+        return Position.of(cell / IFleet.BOARD_SIZE, cell % IFleet.BOARD_SIZE);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void onResult(Position shot, int result, IShip sunk) {
+    }
+}
@@ -0,0 +1,418 @@
+package iscteiul.ista.battleship;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Repositório de jogos alojados, indexados por um identificador de sessão.
+ * <p>
+ * Só as sessões usadas recentemente ficam em memória, numa LRU limitada pelo
+ * tamanho estimado dos jogos ({@link #weigh(Game)}) e não pelo seu número. As
+ * restantes vivem num ficheiro, codificadas com {@link GameSnapshot}: uma sessão
+ * sai de memória quando é a menos usada e o orçamento é excedido, ou quando fica
+ * parada mais do que o tempo máximo de inatividade, detetado por uma
+ * {@link TimerWheel}. Na operação seguinte sobre essa sessão o jogo é lido de novo.
+ * O instantâneo guarda a frota, as células atingidas e os contadores, mas não a
+ * ordem dos tiros nem o histórico de {@link Game#unfire()}: um jogo lido do ficheiro
+ * devolve os tiros por ordem de célula e não pode desfazer os tiros anteriores.
+ * </p>
+ * <p>
+ * Cada sessão tem uma ranhura de tamanho fixo no ficheiro, na posição dada pelo
+ * seu identificador, pelo que não é preciso nenhum índice em memória para as
+ * sessões fora dela: o heap ocupado depende do orçamento, não do número de
+ * sessões registadas. As sessões estão repartidas por segmentos independentes,
+ * cada um com o seu lock, a sua parte do orçamento e a sua roda.
+ * </p>
+ */
+public final class SessionStore implements Closeable {
+
+    /** Bytes por sessão no ficheiro: um byte de comprimento seguido do jogo codificado. */
+    static final int SLOT_BYTES = 64;
+
+    /** Número de ranhuras da roda de inatividade de cada segmento. */
+    private static final int WHEEL_SLOTS = 256;
+
+    private final FileChannel file;
+    private final Segment[] segments;
+    private final long idleNanos;
+    private final AtomicLong ids = new AtomicLong();
+    private final AtomicLong registered = new AtomicLong();
+    private final AtomicLong spills = new AtomicLong();
+    private final AtomicLong loads = new AtomicLong();
+
+    /**
+     * Abre (ou cria) o repositório.
+     *
+     * @param path ficheiro onde são guardadas as sessões fora de memória; é truncado
+     * @param maxResidentBytes orçamento de memória, em bytes estimados, para as sessões ativas
+     * @param idleMillis tempo sem operações após o qual uma sessão sai de memória
+     * @param segmentCount número de segmentos (locks independentes)
+     * @throws IOException se o ficheiro não puder ser aberto
+     */
+    public SessionStore(Path path, long maxResidentBytes, long idleMillis, int segmentCount) throws IOException {
+        this.file = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        this.idleNanos = idleMillis * 1_000_000L;
+        this.segments = new Segment[segmentCount];
+        long now = System.nanoTime();
+        long tick = Math.max(1, idleNanos / WHEEL_SLOTS * 2);
+        for (int i = 0; i < segmentCount; i++)
+            segments[i] = new Segment(maxResidentBytes / segmentCount, tick, now);
+    }
+
+    /**
+     * Estima a memória ocupada por um jogo e pela sua frota: objetos fixos do jogo, mais
+     * um valor por navio (navio, posições e listas), por tiro registado e por disparo no
+     * histórico de {@link Game#unfire()}, se este estiver ativo.
+     *
+     * @param game jogo
+     * @return tamanho estimado em bytes
+     */
+    static int weigh(Game game) {
+        return 800 + 160 * game.getFleet().getShips().size() + 8 * game.getShots().size()
+                + game.getHistorySize();
+    }
+
+    /**
+     * Regista um novo jogo, que fica em memória.
+     *
+     * @param game jogo a registar
+     * @return identificador da sessão
+     * @throws IllegalArgumentException se a frota for grande demais para uma ranhura do ficheiro
+     */
+    public long create(Game game) {
+        if (GameSnapshot.maxGameBytes(game.getFleet().getShips().size()) >= SLOT_BYTES)
+            throw new IllegalArgumentException("ERROR! fleet too large for the session store");
+        long id = ids.incrementAndGet();
+        Segment segment = segmentOf(id);
+        synchronized (segment) {
+            segment.admit(id, game, System.nanoTime());
+        }
+        registered.incrementAndGet();
+        return id;
+    }
+
+    /**
+     * Executa uma operação sobre o jogo de uma sessão, carregando-o do ficheiro se
+     * não estiver em memória. A operação corre com o segmento da sessão bloqueado,
+     * pelo que o jogo não pode ser retirado de memória a meio; deve ser curta e não
+     * guardar a referência para depois.
+     *
+     * @param id identificador da sessão
+     * @param operation operação a executar
+     * @param <R> tipo do resultado
+     * @return resultado da operação; {@code null} se a sessão não existir
+     */
+    public <R> R apply(long id, Function<? super Game, R> operation) {
+        Segment segment = segmentOf(id);
+        synchronized (segment) {
+            long now = System.nanoTime();
+            Game game = segment.get(id, now);
+            if (game == null)
+                return null;
+            R result = operation.apply(game);
+            segment.resize(id, game);
+            return result;
+        }
+    }
+
+    /**
+     * Remove uma sessão, em memória ou no ficheiro.
+     *
+     * @param id identificador da sessão
+     * @return {@code true} se a sessão existia
+     */
+    public boolean remove(long id) {
+        Segment segment = segmentOf(id);
+        boolean removed;
+        synchronized (segment) {
+            removed = segment.remove(id);
+        }
+        if (removed)
+            registered.decrementAndGet();
+        return removed;
+    }
+
+    /**
+     * Retira de memória as sessões paradas há mais do que o tempo máximo de inatividade.
+     * Também é feito a cada operação sobre o segmento; este método serve para quem
+     * queira expirar sessões mesmo sem tráfego.
+     */
+    public void expireIdle() {
+        long now = System.nanoTime();
+        for (Segment segment : segments)
+            synchronized (segment) {
+                segment.expire(now);
+            }
+    }
+
+    /**
+     * @return número de sessões registadas, em memória ou no ficheiro
+     */
+    public long size() {
+        return registered.get();
+    }
+
+    /**
+     * @return número de sessões em memória
+     */
+    public int getResidentCount() {
+        int count = 0;
+        for (Segment segment : segments)
+            synchronized (segment) {
+                count += segment.resident.size();
+            }
+        return count;
+    }
+
+    /**
+     * @return número de vezes que uma sessão foi escrita no ficheiro
+     */
+    public long getSpillCount() {
+        return spills.get();
+    }
+
+    /**
+     * @return número de vezes que uma sessão foi lida do ficheiro
+     */
+    public long getLoadCount() {
+        return loads.get();
+    }
+
+    /**
+     * Fecha o ficheiro; as sessões em memória perdem-se.
+     */
+    @Override
+    public void close() throws IOException {
+        file.close();
+    }
+
+    private Segment segmentOf(long id) {
+        return segments[(int) Long.remainderUnsigned(id * 0x9E3779B97F4A7C15L >>> 16, segments.length)];
+    }
+
+    // -----------------------------------------------------
+
+    /**
+     * Sessão em memória, ligada à lista LRU do seu segmento.
+     */
+    private static final class Resident {
+
+        final long id;
+        final Game game;
+        /** Marca da entrada desta sessão na roda; entradas com outra marca são obsoletas. */
+        final long token;
+        int weight;
+        long lastUsed;
+        Resident prev, next;
+
+        Resident(long id, Game game, long token, long lastUsed) {
+            this.id = id;
+            this.game = game;
+            this.token = token;
+            this.weight = weigh(game);
+            this.lastUsed = lastUsed;
+        }
+    }
+
+    /**
+     * Parte do repositório protegida por um único lock.
+     */
+    private final class Segment {
+
+        final HashMap<Long, Resident> resident = new HashMap<>();
+        /** Extremos da lista LRU: {@code head} é a sessão menos usada, {@code tail} a mais recente. */
+        Resident head, tail;
+        final long budget;
+        final TimerWheel wheel;
+        final ByteBuffer slot = ByteBuffer.allocate(SLOT_BYTES);
+        long bytes;
+        long tokens;
+
+        Segment(long budget, long tickNanos, long now) {
+            this.budget = budget;
+            this.wheel = new TimerWheel(WHEEL_SLOTS, tickNanos, now, this::isLive);
+        }
+
+        /**
+         * Indica se uma entrada da roda corresponde a uma sessão ainda em memória.
+         */
+        boolean isLive(long id, long token) {
+            Resident r = resident.get(id);
+            return r != null && r.token == token;
+        }
+
+        Game get(long id, long now) {
+            expire(now);
+            Resident r = resident.get(id);
+            if (r != null) {
+                r.lastUsed = now;
+                unlink(r);
+                append(r);
+                return r.game;
+            }
+            Game game = load(id);
+            if (game != null)
+                admit(id, game, now);
+            return game;
+        }
+
+        void admit(long id, Game game, long now) {
+            Resident r = new Resident(id, game, ++tokens, now);
+            resident.put(id, r);
+            append(r);
+            bytes += r.weight;
+            wheel.schedule(id, r.token, wheel.tickOf(now + idleNanos));
+            evict(r);
+        }
+
+        void resize(long id, Game game) {
+            Resident r = resident.get(id);
+            int weight = weigh(game);
+            bytes += weight - r.weight;
+            r.weight = weight;
+            evict(r);
+        }
+
+        /**
+         * Retira as sessões menos usadas até o segmento caber no orçamento,
+         * mantendo sempre a sessão {@code keep}.
+         */
+        void evict(Resident keep) {
+            while (bytes > budget && head != keep)
+                drop(head);
+        }
+
+        /**
+         * Avança a roda: as sessões paradas há tempo demais saem de memória,
+         * as restantes são reagendadas para o fim do seu prazo.
+         */
+        void expire(long now) {
+            wheel.advance(now, (id, token) -> {
+                if (!isLive(id, token))
+                    return;
+                Resident r = resident.get(id);
+                long deadline = r.lastUsed + idleNanos;
+                if (deadline - now <= 0)
+                    drop(r);
+                else
+                    wheel.schedule(id, token, wheel.tickOf(deadline));
+            });
+        }
+
+        /**
+         * Escreve uma sessão no ficheiro e retira-a de memória.
+         */
+        void drop(Resident r) {
+            spill(r);
+            resident.remove(r.id);
+            unlink(r);
+            bytes -= r.weight;
+        }
+
+        void append(Resident r) {
+            r.prev = tail;
+            r.next = null;
+            if (tail != null)
+                tail.next = r;
+            else
+                head = r;
+            tail = r;
+        }
+
+        void unlink(Resident r) {
+            if (r.prev != null)
+                r.prev.next = r.next;
+            else
+                head = r.next;
+            if (r.next != null)
+                r.next.prev = r.prev;
+            else
+                tail = r.prev;
+            r.prev = r.next = null;
+        }
+
+        boolean remove(long id) {
+            Resident r = resident.remove(id);
+            if (r != null) {
+                unlink(r);
+                bytes -= r.weight;
+                clearSlot(id);
+                return true;
+            }
+            if (!spilled(id))
+                return false;
+            clearSlot(id);
+            return true;
+        }
+
+        /**
+         * Indica se uma sessão está no ficheiro, lendo só o comprimento da sua ranhura.
+         */
+        boolean spilled(long id) {
+            if (id <= 0 || id > ids.get())
+                return false;
+            slot.clear().limit(1);
+            try {
+                if (file.read(slot, id * SLOT_BYTES) <= 0)
+                    return false;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return slot.get(0) != 0;
+        }
+
+        void spill(Resident r) {
+            slot.clear();
+            slot.put((byte) 0);
+            GameSnapshot.writeGame(r.game, slot);
+            slot.put(0, (byte) (slot.position() - 1));
+            // a ranhura é sempre escrita inteira, para que o ficheiro cubra todas as ranhuras usadas
+            slot.clear();
+            write(r.id);
+            spills.incrementAndGet();
+        }
+
+        Game load(long id) {
+            if (id <= 0 || id > ids.get())
+                return null;
+            slot.clear();
+            try {
+                while (slot.hasRemaining())
+                    if (file.read(slot, id * SLOT_BYTES + slot.position()) < 0)
+                        return null;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            int length = slot.get(0);
+            if (length == 0)
+                return null;
+            slot.position(1).limit(1 + length);
+            loads.incrementAndGet();
+            return GameSnapshot.readGame(slot);
+        }
+
+        void clearSlot(long id) {
+            slot.clear();
+            slot.put(0, (byte) 0);
+            write(id);
+        }
+
+        void write(long id) {
+            try {
+                while (slot.hasRemaining())
+                    file.write(slot, id * SLOT_BYTES + slot.position());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package iscteiul.ista.battleship;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
@@ -22,13 +24,6 @@ import java.util.List;
  */
 public abstract class Ship implements IShip {
 
-    /* Constantes usadas pela factory method */
-    private static final String GALEAO = "galeao";
-    private static final String FRAGATA = "fragata";
-    private static final String NAU = "nau";
-    private static final String CARAVELA = "caravela";
-    private static final String BARCA = "barca";
-
     /**
      * Método fábrica responsável por instanciar o tipo correto de navio.
      *
@@ -39,27 +34,33 @@ public abstract class Ship implements IShip {
      *         {@code null} se o tipo for inválido
      */
     static Ship buildShip(String shipKind, Compass bearing, Position pos) {
-        Ship s;
-        switch (shipKind) {
+        Category category = Category.ofKeyword(shipKind);
+        return category == null ? null : buildShip(category, bearing, pos);
+    }
+
+    /**
+     * Método fábrica responsável por instanciar o navio de uma categoria.
+     *
+     * @param category categoria do navio
+     * @param bearing orientação do navio
+     * @param pos posição inicial
+     * @return instância concreta de {@code Ship} correspondente
+     */
+    static Ship buildShip(Category category, Compass bearing, Position pos) {
+        switch (category) {
             case BARCA:
-                s = new Barge(bearing, pos);
-                break;
+                return new Barge(bearing, pos);
             case CARAVELA:
-                s = new Caravel(bearing, pos);
-                break;
+                return new Caravel(bearing, pos);
             case NAU:
-                s = new Carrack(bearing, pos);
-                break;
+                return new Carrack(bearing, pos);
             case FRAGATA:
-                s = new Frigate(bearing, pos);
-                break;
+                return new Frigate(bearing, pos);
             case GALEAO:
-                s = new Galleon(bearing, pos);
-                break;
+                return new Galleon(bearing, pos);
             default:
-                s = null;
+                throw new AssertionError(category);
         }
-        return s;
     }
 
     /**
@@ -67,6 +68,11 @@ public abstract class Ship implements IShip {
      */
     private String category;
 
+    /**
+     * Categoria do navio como enumerado; {@code null} se o nome não for conhecido.
+     */
+    private final Category categoryType;
+
     /**
      * Orientação do navio.
      */
@@ -82,8 +88,60 @@ public abstract class Ship implements IShip {
      */
     protected List<IPosition> positions;
 
+    /**
+     * Modelo de forma da categoria e orientação do navio;
+     * {@code null} se a combinação não tiver modelo registado.
+     */
+    private ShipShape shape;
+
+    /**
+     * Células ocupadas pelo navio; {@code null} se o navio não couber no
+     * tabuleiro ou não tiver modelo registado. Partilhado com o modelo de forma.
+     */
+    private final BitBoard footprint;
+
+    /**
+     * Zona de exclusão do navio: células ocupadas e todas as vizinhas dentro do
+     * tabuleiro; {@code null} nas mesmas condições de {@link #footprint}.
+     */
+    private final BitBoard halo;
+
+    /** Caixa envolvente das posições ocupadas, calculada na construção. */
+    private final int top, bottom, left, right;
+
+    /**
+     * Mapa de bits das posições atingidas: o bit {@code i} corresponde à
+     * posição {@code i} da lista {@link #positions}. É atualizado por
+     * compare-and-set, pelo que vários jogadores podem atingir o mesmo navio
+     * em simultâneo.
+     */
+    private volatile int hitMask;
+
+    /**
+     * Frota a que o navio pertence, avisada sempre que o navio é afundado ou volta
+     * a flutuar; {@code null} enquanto não for acrescentado a nenhuma. Um navio
+     * acrescentado a outras frotas continua a avisar apenas a primeira.
+     */
+    private Fleet fleet;
+
+    /** Acesso atómico a {@link #hitMask}. */
+    private static final VarHandle HIT_MASK;
+
+    static {
+        try {
+            HIT_MASK = MethodHandles.lookup().findVarHandle(Ship.class, "hitMask", int.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
     /**
      * Construtor base para todos os navios.
+     * <p>
+     * Se existir um modelo de forma para a categoria e orientação indicadas,
+     * as posições ocupadas são obtidas por translação desse modelo a partir
+     * da posição inicial.
+     * </p>
      *
      * @param category categoria do navio
      * @param bearing orientação
@@ -94,9 +152,82 @@ public abstract class Ship implements IShip {
         assert pos != null;
 
         this.category = category;
+        this.categoryType = Category.of(category);
         this.bearing = bearing;
         this.pos = pos;
-        this.positions = new ArrayList<>();
+        this.shape = categoryType != null ? ShipShape.of(categoryType, bearing) : null;
+        this.positions = new ArrayList<>(shape != null ? shape.size() : 0);
+
+        if (shape != null) {
+            for (int i = 0; i < shape.size(); i++)
+                positions.add(Position.of(pos.getRow() + shape.rowOffset(i),
+                        pos.getColumn() + shape.columnOffset(i)));
+            this.footprint = shape.footprint(pos.getRow(), pos.getColumn());
+            this.halo = shape.halo(pos.getRow(), pos.getColumn());
+            this.top = pos.getRow() + shape.minRow();
+            this.bottom = pos.getRow() + shape.maxRow();
+            this.left = pos.getColumn() + shape.minColumn();
+            this.right = pos.getColumn() + shape.maxColumn();
+        } else {
+            this.footprint = null;
+            this.halo = null;
+            this.top = this.bottom = pos.getRow();
+            this.left = this.right = pos.getColumn();
+        }
+    }
+
+    /**
+     * Associa o navio à frota que passa a ser avisada das mudanças do seu estado,
+     * se ainda não pertencer a outra.
+     *
+     * @param fleet frota que acabou de aceitar o navio
+     * @return {@code false} se o navio já avisa outra frota, que a nova terá de verificar
+     *         o navio por si
+     */
+    boolean joinFleet(Fleet fleet) {
+        if (this.fleet != null && this.fleet != fleet)
+            return false;
+        this.fleet = fleet;
+        return true;
+    }
+
+    /**
+     * @param fleet frota
+     * @return {@code true} se o navio avisa essa frota das mudanças do seu estado
+     */
+    boolean reportsTo(Fleet fleet) {
+        return this.fleet == fleet;
+    }
+
+    /**
+     * Devolve o modelo de forma do navio.
+     *
+     * @return modelo de forma; {@code null} se o navio não tiver modelo registado
+     */
+    ShipShape getShape() {
+        return shape;
+    }
+
+    /**
+     * Devolve o mapa de bits das células ocupadas pelo navio, obtido do modelo de forma.
+     * O mapa de bits devolvido é partilhado e não deve ser alterado.
+     *
+     * @return células ocupadas; {@code null} se o navio não couber no tabuleiro
+     *         ou não tiver modelo registado
+     */
+    BitBoard getFootprint() {
+        return footprint;
+    }
+
+    /**
+     * Devolve a zona de exclusão do navio: as células ocupadas e todas as vizinhas
+     * dentro do tabuleiro. O mapa de bits devolvido é partilhado e não deve ser alterado.
+     *
+     * @return zona de exclusão; {@code null} se o navio não couber no tabuleiro
+     *         ou não tiver modelo registado
+     */
+    BitBoard getHalo() {
+        return halo;
     }
 
     /**
@@ -107,6 +238,14 @@ public abstract class Ship implements IShip {
         return category;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Category getCategoryType() {
+        return categoryType;
+    }
+
     /**
      * Devolve a lista de posições ocupadas pelo navio.
      *
@@ -140,10 +279,7 @@ public abstract class Ship implements IShip {
      */
     @Override
     public boolean stillFloating() {
-        for (int i = 0; i < getSize(); i++)
-            if (!getPositions().get(i).isHit())
-                return true;
-        return false;
+        return Integer.bitCount(hitMask) < getSize();
     }
 
     /**
@@ -151,10 +287,6 @@ public abstract class Ship implements IShip {
      */
     @Override
     public int getTopMostPos() {
-        int top = getPositions().get(0).getRow();
-        for (int i = 1; i < getSize(); i++)
-            if (getPositions().get(i).getRow() < top)
-                top = getPositions().get(i).getRow();
         return top;
     }
 
@@ -163,10 +295,6 @@ public abstract class Ship implements IShip {
      */
     @Override
     public int getBottomMostPos() {
-        int bottom = getPositions().get(0).getRow();
-        for (int i = 1; i < getSize(); i++)
-            if (getPositions().get(i).getRow() > bottom)
-                bottom = getPositions().get(i).getRow();
         return bottom;
     }
 
@@ -175,10 +303,6 @@ public abstract class Ship implements IShip {
      */
     @Override
     public int getLeftMostPos() {
-        int left = getPositions().get(0).getColumn();
-        for (int i = 1; i < getSize(); i++)
-            if (getPositions().get(i).getColumn() < left)
-                left = getPositions().get(i).getColumn();
         return left;
     }
 
@@ -187,10 +311,6 @@ public abstract class Ship implements IShip {
      */
     @Override
     public int getRightMostPos() {
-        int right = getPositions().get(0).getColumn();
-        for (int i = 1; i < getSize(); i++)
-            if (getPositions().get(i).getColumn() > right)
-                right = getPositions().get(i).getColumn();
         return right;
     }
 
@@ -204,6 +324,13 @@ public abstract class Ship implements IShip {
     public boolean occupies(IPosition pos) {
         assert pos != null;
 
+        int row = pos.getRow();
+        int column = pos.getColumn();
+        if (row < top || row > bottom || column < left || column > right)
+            return false;
+        if (footprint != null)
+            return footprint.get(BitBoard.index(row, column));
+
         for (int i = 0; i < getSize(); i++)
             if (getPositions().get(i).equals(pos))
                 return true;
@@ -221,6 +348,15 @@ public abstract class Ship implements IShip {
     public boolean tooCloseTo(IShip other) {
         assert other != null;
 
+        if (other.getTopMostPos() > bottom + 1 || other.getBottomMostPos() < top - 1
+                || other.getLeftMostPos() > right + 1 || other.getRightMostPos() < left - 1)
+            return false;
+        if (halo != null && other instanceof Ship) {
+            BitBoard otherFootprint = ((Ship) other).footprint;
+            if (otherFootprint != null)
+                return halo.intersects(otherFootprint);
+        }
+
         Iterator<IPosition> otherPos = other.getPositions().iterator();
         while (otherPos.hasNext())
             if (tooCloseTo(otherPos.next()))
@@ -237,6 +373,13 @@ public abstract class Ship implements IShip {
      */
     @Override
     public boolean tooCloseTo(IPosition pos) {
+        int row = pos.getRow();
+        int column = pos.getColumn();
+        if (row < top - 1 || row > bottom + 1 || column < left - 1 || column > right + 1)
+            return false;
+        if (halo != null && row >= 0 && row < IFleet.BOARD_SIZE && column >= 0 && column < IFleet.BOARD_SIZE)
+            return halo.get(BitBoard.index(row, column));
+
         for (int i = 0; i < this.getSize(); i++)
             if (getPositions().get(i).isAdjacentTo(pos))
                 return true;
@@ -251,14 +394,119 @@ public abstract class Ship implements IShip {
      */
     @Override
     public void shoot(IPosition pos) {
+        hit(pos);
+    }
+
+    /**
+     * Regista um disparo numa determinada posição, de forma atómica.
+     * <p>
+     * Se vários disparos em simultâneo completarem o navio, apenas um deles
+     * recebe {@code true}.
+     * </p>
+     *
+     * @param pos posição alvo
+     * @return {@code true} se este disparo atingiu uma posição intacta e afundou o navio
+     */
+    boolean hit(IPosition pos) {
         assert pos != null;
 
-        for (IPosition position : getPositions()) {
-            if (position.equals(pos))
-                position.shoot();
+        int bits = 0;
+        for (int i = 0; i < getPositions().size(); i++)
+            if (getPositions().get(i).equals(pos))
+                bits |= 1 << i;
+        if (bits == 0)
+            return false;
+
+        int sunk = (1 << getPositions().size()) - 1;
+        while (true) {
+            int mask = hitMask;
+            if ((mask & bits) == bits)
+                return false;
+            if (HIT_MASK.compareAndSet(this, mask, mask | bits)) {
+                if ((mask | bits) != sunk)
+                    return false;
+                floatingChanged(false);
+                return true;
+            }
         }
     }
 
+    /**
+     * Regista um disparo numa determinada posição, indicando se o estado do navio mudou.
+     * Usado por quem precisa de desfazer o disparo depois ({@link #repair(IPosition)}).
+     *
+     * @param pos posição alvo
+     * @return {@code true} se este disparo atingiu uma posição intacta
+     */
+    boolean strike(IPosition pos) {
+        return update(pos, true);
+    }
+
+    /**
+     * Desfaz um disparo, voltando a deixar intacta a posição indicada.
+     *
+     * @param pos posição a reparar
+     * @return {@code true} se a posição estava atingida
+     */
+    boolean repair(IPosition pos) {
+        return update(pos, false);
+    }
+
+    /**
+     * Marca ou limpa, de forma atómica, os bits de {@link #hitMask} correspondentes a uma posição.
+     *
+     * @return {@code true} se algum bit mudou
+     */
+    private boolean update(IPosition pos, boolean set) {
+        assert pos != null;
+
+        int bits = 0;
+        for (int i = 0; i < getPositions().size(); i++)
+            if (getPositions().get(i).equals(pos))
+                bits |= 1 << i;
+
+        int sunk = (1 << getPositions().size()) - 1;
+        while (true) {
+            int mask = hitMask;
+            int updated = set ? mask | bits : mask & ~bits;
+            if (updated == mask)
+                return false;
+            if (HIT_MASK.compareAndSet(this, mask, updated)) {
+                if (updated == sunk || mask == sunk)
+                    floatingChanged(updated != sunk);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Avisa a frota de que o navio foi afundado ou voltou a flutuar. Cada mudança é
+     * observada por um único compare-and-set, pelo que a frota é avisada uma só vez.
+     *
+     * @param floating {@code true} se o navio voltou a flutuar
+     */
+    private void floatingChanged(boolean floating) {
+        Fleet owner = fleet;
+        if (owner != null)
+            owner.floatingChanged(this, floating);
+    }
+
+    /**
+     * Indica se uma posição do navio já foi atingida.
+     *
+     * @param pos posição a verificar
+     * @return {@code true} se o navio ocupar essa posição e ela já tiver sido atingida
+     */
+    @Override
+    public boolean isHit(IPosition pos) {
+        assert pos != null;
+
+        for (int i = 0; i < getPositions().size(); i++)
+            if (getPositions().get(i).equals(pos))
+                return (hitMask & (1 << i)) != 0;
+        return false;
+    }
+
     /**
      * Devolve representação textual do navio.
      *
@@ -268,4 +516,16 @@ public abstract class Ship implements IShip {
     public String toString() {
         return "[" + category + " " + bearing + " " + pos + "]";
     }
+
+    /**
+     * Acrescenta a representação textual do navio ({@link #toString()}) a um
+     * {@link StringBuilder}, sem criar strings intermédias.
+     *
+     * @param out destino
+     */
+    void appendTo(StringBuilder out) {
+        out.append('[').append(category).append(' ').append(bearing.getDirection())
+                .append(" Linha = ").append(pos.getRow())
+                .append(" Coluna = ").append(pos.getColumn()).append(']');
+    }
 }
@@ -0,0 +1,252 @@
+package iscteiul.ista.battleship;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Modelo pré-calculado da forma de um navio para uma categoria e orientação.
+ * <p>
+ * Cada modelo guarda os deslocamentos (linha, coluna) das células do navio
+ * relativamente à posição de origem, a caixa envolvente desses deslocamentos
+ * e, para cada origem em que o navio cabe no tabuleiro, os mapas de bits das
+ * células ocupadas e da respetiva zona de exclusão. Construir ou validar um navio passa assim a ser uma
+ * simples translação do modelo.
+ * </p>
+ */
+final class ShipShape {
+
+    /**
+     * Registo de modelos por categoria e orientação.
+     */
+    private static final Map<Category, Map<Compass, ShipShape>> REGISTRY = new EnumMap<>(Category.class);
+
+    static {
+        int[][] barge = { { 0, 0 } };
+        for (Compass bearing : Compass.values())
+            register(Category.BARCA, bearing, barge);
+
+        registerStraight(Category.CARAVELA, 2);
+        registerStraight(Category.NAU, 3);
+        registerStraight(Category.FRAGATA, 4);
+
+        register(Category.GALEAO, Compass.NORTH, new int[][] { { 0, 0 }, { 0, 1 }, { 0, 2 }, { 1, 1 }, { 2, 1 } });
+        register(Category.GALEAO, Compass.SOUTH, new int[][] { { 0, 0 }, { 1, 0 }, { 2, -1 }, { 2, 0 }, { 2, 1 } });
+        register(Category.GALEAO, Compass.EAST, new int[][] { { 0, 0 }, { 1, -2 }, { 1, -1 }, { 1, 0 }, { 2, 0 } });
+        register(Category.GALEAO, Compass.WEST, new int[][] { { 0, 0 }, { 1, 0 }, { 1, 1 }, { 1, 2 }, { 2, 0 } });
+    }
+
+    /**
+     * Regista um navio em linha reta: vertical para Norte/Sul, horizontal para Este/Oeste.
+     *
+     * @param category categoria do navio
+     * @param size número de células
+     */
+    private static void registerStraight(Category category, int size) {
+        int[][] vertical = new int[size][];
+        int[][] horizontal = new int[size][];
+        for (int i = 0; i < size; i++) {
+            vertical[i] = new int[] { i, 0 };
+            horizontal[i] = new int[] { 0, i };
+        }
+        register(category, Compass.NORTH, vertical);
+        register(category, Compass.SOUTH, vertical);
+        register(category, Compass.EAST, horizontal);
+        register(category, Compass.WEST, horizontal);
+    }
+
+    /**
+     * Acrescenta um modelo ao registo.
+     *
+     * @param category categoria do navio
+     * @param bearing orientação
+     * @param offsets deslocamentos {linha, coluna} de cada célula, pela ordem das posições
+     */
+    private static void register(Category category, Compass bearing, int[][] offsets) {
+        REGISTRY.computeIfAbsent(category, k -> new EnumMap<>(Compass.class))
+                .put(bearing, new ShipShape(category, bearing, offsets));
+    }
+
+    /**
+     * Devolve o modelo de uma categoria e orientação.
+     *
+     * @param category categoria do navio
+     * @param bearing orientação
+     * @return o modelo correspondente; {@code null} se a combinação não for válida
+     */
+    static ShipShape of(Category category, Compass bearing) {
+        Map<Compass, ShipShape> shapes = REGISTRY.get(category);
+        if (shapes == null || bearing == null)
+            return null;
+        return shapes.get(bearing);
+    }
+
+    // -----------------------------------------------------
+
+    /** Categoria do navio. */
+    private final Category category;
+
+    /** Orientação do navio. */
+    private final Compass bearing;
+
+    /** Deslocamento de linha de cada célula. */
+    private final int[] rowOffsets;
+
+    /** Deslocamento de coluna de cada célula. */
+    private final int[] columnOffsets;
+
+    /** Caixa envolvente dos deslocamentos. */
+    private final int minRow, maxRow, minColumn, maxColumn;
+
+    /**
+     * Células ocupadas para cada origem ({@code linha * BOARD_SIZE + coluna});
+     * {@code null} quando o navio não cabe no tabuleiro a partir dessa origem.
+     */
+    private final BitBoard[] footprints;
+
+    /**
+     * Zona de exclusão para cada origem: células ocupadas e todas as suas vizinhas
+     * (incluindo diagonais) dentro do tabuleiro; {@code null} quando o navio não cabe.
+     */
+    private final BitBoard[] halos;
+
+    /**
+     * Constrói o modelo e pré-calcula os mapas de bits para todas as origens válidas.
+     *
+     * @param category categoria do navio
+     * @param bearing orientação
+     * @param offsets deslocamentos {linha, coluna} de cada célula
+     */
+    private ShipShape(Category category, Compass bearing, int[][] offsets) {
+        this.category = category;
+        this.bearing = bearing;
+        this.rowOffsets = new int[offsets.length];
+        this.columnOffsets = new int[offsets.length];
+
+        int top = 0, bottom = 0, left = 0, right = 0;
+        for (int i = 0; i < offsets.length; i++) {
+            rowOffsets[i] = offsets[i][0];
+            columnOffsets[i] = offsets[i][1];
+            top = Math.min(top, rowOffsets[i]);
+            bottom = Math.max(bottom, rowOffsets[i]);
+            left = Math.min(left, columnOffsets[i]);
+            right = Math.max(right, columnOffsets[i]);
+        }
+        this.minRow = top;
+        this.maxRow = bottom;
+        this.minColumn = left;
+        this.maxColumn = right;
+
+        this.footprints = new BitBoard[BitBoard.CELLS];
+        this.halos = new BitBoard[BitBoard.CELLS];
+        for (int r = 0; r < IFleet.BOARD_SIZE; r++)
+            for (int c = 0; c < IFleet.BOARD_SIZE; c++)
+                if (fits(r, c)) {
+                    BitBoard mask = new BitBoard();
+                    BitBoard halo = new BitBoard();
+                    for (int i = 0; i < size(); i++) {
+                        int row = r + rowOffsets[i];
+                        int column = c + columnOffsets[i];
+                        mask.set(BitBoard.index(row, column));
+                        for (int hr = Math.max(row - 1, 0); hr <= Math.min(row + 1, IFleet.BOARD_SIZE - 1); hr++)
+                            for (int hc = Math.max(column - 1, 0); hc <= Math.min(column + 1, IFleet.BOARD_SIZE - 1); hc++)
+                                halo.set(BitBoard.index(hr, hc));
+                    }
+                    footprints[BitBoard.index(r, c)] = mask;
+                    halos[BitBoard.index(r, c)] = halo;
+                }
+    }
+
+    /**
+     * @return categoria do navio
+     */
+    Category getCategory() {
+        return category;
+    }
+
+    /**
+     * @return orientação do navio
+     */
+    Compass getBearing() {
+        return bearing;
+    }
+
+    /**
+     * @return número de células do navio
+     */
+    int size() {
+        return rowOffsets.length;
+    }
+
+    /**
+     * @param i índice da célula
+     * @return deslocamento de linha da célula {@code i}
+     */
+    int rowOffset(int i) {
+        return rowOffsets[i];
+    }
+
+    /**
+     * @param i índice da célula
+     * @return deslocamento de coluna da célula {@code i}
+     */
+    int columnOffset(int i) {
+        return columnOffsets[i];
+    }
+
+    /** @return menor deslocamento de linha */
+    int minRow() {
+        return minRow;
+    }
+
+    /** @return maior deslocamento de linha */
+    int maxRow() {
+        return maxRow;
+    }
+
+    /** @return menor deslocamento de coluna */
+    int minColumn() {
+        return minColumn;
+    }
+
+    /** @return maior deslocamento de coluna */
+    int maxColumn() {
+        return maxColumn;
+    }
+
+    /**
+     * Indica se o navio cabe no tabuleiro a partir de uma origem.
+     *
+     * @param row linha da origem
+     * @param column coluna da origem
+     * @return {@code true} se todas as células ficarem dentro do tabuleiro
+     */
+    boolean fits(int row, int column) {
+        return row + minRow >= 0 && row + maxRow < IFleet.BOARD_SIZE
+                && column + minColumn >= 0 && column + maxColumn < IFleet.BOARD_SIZE;
+    }
+
+    /**
+     * Devolve as células ocupadas pelo navio a partir de uma origem.
+     * O mapa de bits devolvido é partilhado e não deve ser alterado.
+     *
+     * @param row linha da origem
+     * @param column coluna da origem
+     * @return mapa de bits das células ocupadas; {@code null} se o navio não couber no tabuleiro
+     */
+    BitBoard footprint(int row, int column) {
+        return fits(row, column) ? footprints[BitBoard.index(row, column)] : null;
+    }
+
+    /**
+     * Devolve a zona de exclusão do navio a partir de uma origem: as células
+     * ocupadas e todas as vizinhas dentro do tabuleiro.
+     * O mapa de bits devolvido é partilhado e não deve ser alterado.
+     *
+     * @param row linha da origem
+     * @param column coluna da origem
+     * @return mapa de bits da zona de exclusão; {@code null} se o navio não couber no tabuleiro
+     */
+    BitBoard halo(int row, int column) {
+        return fits(row, column) ? halos[BitBoard.index(row, column)] : null;
+    }
+}
@@ -0,0 +1,104 @@
+package iscteiul.ista.battleship;
+
+/**
+ * Códigos primitivos do resultado de um disparo.
+ * <p>
+ * Um resultado é um {@code int} cujo byte menos significativo indica o tipo
+ * ({@link #MISS}, {@link #HIT}, {@link #SUNK}, {@link #REPEATED} ou {@link #INVALID})
+ * e cujos restantes bits guardam o índice, em {@link IFleet#getShips()}, do navio
+ * atingido. Desta forma, os resultados de uma rajada podem ser escritos num
+ * simples vetor de inteiros, sem alocar objetos.
+ * </p>
+ */
+public final class ShotResult {
+
+    /** Tiro na água. */
+    public static final int MISS = 0;
+
+    /** Tiro que atingiu um navio que continua a flutuar. */
+    public static final int HIT = 1;
+
+    /** Tiro que afundou um navio. */
+    public static final int SUNK = 2;
+
+    /** Tiro sobre uma posição já atacada. */
+    public static final int REPEATED = 3;
+
+    /** Tiro fora dos limites do tabuleiro. */
+    public static final int INVALID = 4;
+
+    private ShotResult() {
+    }
+
+    /**
+     * Constrói o código de um disparo que atingiu um navio.
+     *
+     * @param kind {@link #HIT} ou {@link #SUNK}
+     * @param shipIndex índice do navio na frota
+     * @return código do resultado
+     */
+    static int of(int kind, int shipIndex) {
+        return kind | ((shipIndex + 1) << 8);
+    }
+
+    /**
+     * Devolve o tipo de um resultado.
+     *
+     * @param result código do resultado
+     * @return um de {@link #MISS}, {@link #HIT}, {@link #SUNK}, {@link #REPEATED} ou {@link #INVALID}
+     */
+    public static int kind(int result) {
+        return result & 0xFF;
+    }
+
+    /**
+     * Devolve o índice do navio atingido, em {@link IFleet#getShips()}.
+     *
+     * @param result código do resultado
+     * @return índice do navio; -1 se o disparo não atingiu nenhum navio
+     */
+    public static int shipIndex(int result) {
+        return (result >>> 8) - 1;
+    }
+
+    /**
+     * Indica se o resultado corresponde a um navio atingido (com ou sem afundamento).
+     *
+     * @param result código do resultado
+     * @return {@code true} para {@link #HIT} ou {@link #SUNK}
+     */
+    public static boolean isHit(int result) {
+        int kind = kind(result);
+        return kind == HIT || kind == SUNK;
+    }
+
+    /**
+     * Devolve uma representação textual de um resultado.
+     *
+     * @param result código do resultado
+     * @return nome do tipo, seguido do índice do navio quando aplicável
+     */
+    public static String toString(int result) {
+        String name;
+        switch (kind(result)) {
+            case MISS:
+                name = "MISS";
+                break;
+            case HIT:
+                name = "HIT";
+                break;
+            case SUNK:
+                name = "SUNK";
+                break;
+            case REPEATED:
+                name = "REPEATED";
+                break;
+            case INVALID:
+                name = "INVALID";
+                break;
+            default:
+                name = "?";
+        }
+        return isHit(result) ? name + " " + shipIndex(result) : name;
+    }
+}
@@ -0,0 +1,386 @@
+package iscteiul.ista.battleship;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import iscteiul.ista.battleship.PlacementCatalog.Placement;
+
+/**
+ * Motor de escolha de alvos por densidade de probabilidade (Monte Carlo).
+ * <p>
+ * A partir do que o atirador sabe (tiros na água, acertos e navios afundados),
+ * o motor gera frotas aleatórias compatíveis com essas observações e com as regras
+ * de {@link Fleet#addShip(IShip)}: navios dentro do tabuleiro, sem se tocarem e
+ * com a composição da frota padrão. Para cada célula acumula o peso das frotas
+ * amostradas que a ocupam, obtendo um mapa de calor da probabilidade de acerto; o
+ * melhor tiro seguinte é a célula ainda não atacada com maior probabilidade.
+ * </p>
+ * <p>
+ * As frotas são propostas navio a navio, e enquanto houver acertos por explicar
+ * metade das colocações é escolhida entre as que cobrem um deles, pelo que umas
+ * frotas são propostas mais vezes do que outras. Cada frota aceite é pesada pelo
+ * inverso da probabilidade de ter sido proposta (amostragem por importância), para
+ * que o mapa estime a fração das frotas compatíveis com as observações que ocupa
+ * cada célula, a mesma que {@link PlacementCounter} conta de forma exata.
+ * </p>
+ * <p>
+ * A amostragem é repartida por rondas entre os trabalhadores de um {@link ForkJoinPool},
+ * cada um com o seu gerador aleatório e os seus contadores. Termina quando se esgota
+ * o orçamento de tempo, quando se atinge o número máximo de amostras ou quando a
+ * melhor célula se destaca da segunda com a confiança pedida.
+ * </p>
+ */
+public class TargetingEngine {
+
+    /** Tentativas de amostragem por trabalhador em cada ronda. */
+    private static final int BATCH = 256;
+
+    /** Número mínimo de amostras aceites antes de aplicar o critério de confiança. */
+    private static final int MIN_SAMPLES = 200;
+
+    /** Conjunto de trabalhadores usado na amostragem. */
+    private final ForkJoinPool pool;
+
+    /** Tipos dos navios da frota adversária (ex: {@link PlacementCatalog#STANDARD_FLEET}). */
+    private final String[] fleetMix;
+
+    /** Orçamento de tempo por decisão, em nanossegundos. */
+    private final long timeBudgetNanos;
+
+    /** Número máximo de amostras aceites por decisão. */
+    private final int maxSamples;
+
+    /**
+     * Número de desvios-padrão pelo qual a melhor célula tem de superar a segunda
+     * para a amostragem terminar mais cedo (ex: 2.58 para cerca de 99%).
+     */
+    private final double confidenceZ;
+
+    /** Gerador raiz, de onde são derivados os geradores dos trabalhadores. */
+    private final SplittableRandom random;
+
+    /**
+     * Constrói um motor para a frota padrão, usando o pool comum, 50 ms por decisão,
+     * até 20000 amostras e confiança de cerca de 99%.
+     */
+    public TargetingEngine() {
+        this(ForkJoinPool.commonPool(), PlacementCatalog.STANDARD_FLEET, 50, 20_000, 2.58, System.nanoTime());
+    }
+
+    /**
+     * Constrói um motor de escolha de alvos para a frota padrão.
+     *
+     * @param pool pool onde corre a amostragem
+     * @param timeBudgetMillis orçamento de tempo por decisão, em milissegundos
+     * @param maxSamples número máximo de amostras aceites por decisão
+     * @param confidenceZ vantagem mínima da melhor célula, em desvios-padrão, para terminar mais cedo
+     * @param seed semente do gerador aleatório
+     */
+    public TargetingEngine(ForkJoinPool pool, long timeBudgetMillis, int maxSamples, double confidenceZ, long seed) {
+        this(pool, PlacementCatalog.STANDARD_FLEET, timeBudgetMillis, maxSamples, confidenceZ, seed);
+    }
+
+    /**
+     * Constrói um motor de escolha de alvos.
+     *
+     * @param pool pool onde corre a amostragem
+     * @param fleetMix tipos dos navios da frota adversária (ex: "galeao", "barca")
+     * @param timeBudgetMillis orçamento de tempo por decisão, em milissegundos
+     * @param maxSamples número máximo de amostras aceites por decisão
+     * @param confidenceZ vantagem mínima da melhor célula, em desvios-padrão, para terminar mais cedo
+     * @param seed semente do gerador aleatório
+     */
+    public TargetingEngine(ForkJoinPool pool, String[] fleetMix, long timeBudgetMillis, int maxSamples,
+                           double confidenceZ, long seed) {
+        assert pool != null;
+        assert fleetMix != null;
+
+        for (String kind : fleetMix)
+            if (PlacementCatalog.placements(kind) == null)
+                throw new IllegalArgumentException("ERROR! unknown ship kind " + kind);
+
+        this.pool = pool;
+        this.fleetMix = fleetMix.clone();
+        this.timeBudgetNanos = timeBudgetMillis * 1_000_000L;
+        this.maxSamples = maxSamples;
+        this.confidenceZ = confidenceZ;
+        this.random = new SplittableRandom(seed);
+    }
+
+    /**
+     * Estima, para cada célula, a probabilidade de conter um navio.
+     *
+     * @param misses células atacadas que eram água
+     * @param hits células atacadas que acertaram num navio (incluindo navios afundados)
+     * @param sunk navios já afundados
+     * @return probabilidade por célula ({@code linha * BOARD_SIZE + coluna});
+     *         0 para células já atacadas
+     */
+    public double[] heatMap(BitBoard misses, BitBoard hits, List<? extends IShip> sunk) {
+        Estimate estimate = estimate(misses, hits, sunk);
+        double[] heat = new double[BitBoard.CELLS];
+        if (estimate.total > 0)
+            for (int i = 0; i < heat.length; i++)
+                if (!estimate.observation.fired.get(i))
+                    heat[i] = estimate.weights[i] / estimate.total;
+        return heat;
+    }
+
+    /**
+     * Escolhe o melhor tiro seguinte: a célula ainda não atacada, e fora da zona de
+     * exclusão dos navios afundados, com maior probabilidade estimada de conter um navio.
+     *
+     * @param misses células atacadas que eram água
+     * @param hits células atacadas que acertaram num navio (incluindo navios afundados)
+     * @param sunk navios já afundados
+     * @return posição do tiro; {@code null} se nenhuma célula puder ainda ter um navio
+     */
+    public Position nextShot(BitBoard misses, BitBoard hits, List<? extends IShip> sunk) {
+        Estimate estimate = estimate(misses, hits, sunk);
+        Observation observation = estimate.observation;
+        int best = -1;
+        for (int i = 0; i < BitBoard.CELLS; i++)
+            if (!observation.fired.get(i) && !observation.blocked.get(i)
+                    && (best < 0 || estimate.weights[i] > estimate.weights[best]))
+                best = i;
+        return best < 0 ? null : Position.of(best / IFleet.BOARD_SIZE, best % IFleet.BOARD_SIZE);
+    }
+
+    /**
+     * Corre a amostragem paralela até se cumprir um dos critérios de paragem.
+     *
+     * @param misses células atacadas que eram água
+     * @param hits células atacadas que acertaram num navio
+     * @param sunk navios já afundados
+     * @return pesos agregados
+     */
+    private Estimate estimate(BitBoard misses, BitBoard hits, List<? extends IShip> sunk) {
+        long deadline = System.nanoTime() + timeBudgetNanos;
+
+        Observation observation = new Observation(fleetMix, misses, hits, sunk);
+
+        int parallelism = pool.getParallelism();
+        Sampler[] samplers = new Sampler[parallelism];
+        for (int i = 0; i < parallelism; i++)
+            samplers[i] = new Sampler(random.split(), observation);
+
+        Estimate estimate = new Estimate(observation);
+        List<ForkJoinTask<Integer>> round = new ArrayList<>(parallelism);
+        while (estimate.samples < maxSamples && System.nanoTime() < deadline && !estimate.confident()) {
+            round.clear();
+            for (Sampler sampler : samplers)
+                round.add(pool.submit(sampler));
+            for (ForkJoinTask<Integer> task : round)
+                estimate.samples += task.join();
+            Arrays.fill(estimate.weights, 0);
+            estimate.total = 0;
+            estimate.totalSquares = 0;
+            for (Sampler sampler : samplers) {
+                for (int i = 0; i < BitBoard.CELLS; i++)
+                    estimate.weights[i] += sampler.weights[i];
+                estimate.total += sampler.total;
+                estimate.totalSquares += sampler.totalSquares;
+            }
+        }
+        return estimate;
+    }
+
+    /**
+     * Pesos agregados de todas as amostras aceites.
+     */
+    private final class Estimate {
+
+        /** Observação a que as amostras obedecem. */
+        final Observation observation;
+
+        /** Soma dos pesos das amostras aceites que ocupam cada célula. */
+        final double[] weights = new double[BitBoard.CELLS];
+
+        /** Soma dos pesos de todas as amostras aceites. */
+        double total;
+
+        /** Soma dos quadrados dos pesos, para o tamanho efetivo da amostra. */
+        double totalSquares;
+
+        /** Número total de amostras aceites. */
+        int samples;
+
+        Estimate(Observation observation) {
+            this.observation = observation;
+        }
+
+        /**
+         * Indica se a melhor célula não atacada se destaca da segunda com a confiança pedida,
+         * medida sobre o tamanho efetivo da amostra pesada.
+         *
+         * @return {@code true} se a amostragem puder terminar
+         */
+        boolean confident() {
+            if (samples < MIN_SAMPLES || total == 0)
+                return false;
+
+            double first = 0, second = 0;
+            for (int i = 0; i < BitBoard.CELLS; i++)
+                if (!observation.fired.get(i)) {
+                    if (weights[i] > first) {
+                        second = first;
+                        first = weights[i];
+                    } else if (weights[i] > second) {
+                        second = weights[i];
+                    }
+                }
+            if (first >= total)
+                return true;
+
+            double effective = total * total / totalSquares;
+            double p1 = first / total;
+            double p2 = second / total;
+            double error = Math.sqrt((p1 * (1 - p1) + p2 * (1 - p2)) / effective);
+            return p1 - p2 > confidenceZ * error;
+        }
+    }
+
+    /**
+     * Trabalhador de amostragem: gera frotas aleatórias compatíveis com as observações
+     * e acumula, nos seus próprios contadores, o peso das frotas aceites em cada célula
+     * que ocupam.
+     */
+    private static final class Sampler implements Callable<Integer> {
+
+        private final SplittableRandom random;
+        private final String[] kinds;
+        private final BitBoard baseBlocked;
+        private final BitBoard pendingHits;
+        private final BitBoard blocked = new BitBoard();
+        private final BitBoard covered = new BitBoard();
+        private final BitBoard uncovered = new BitBoard();
+        private final Placement[] chosen;
+        private final Placement[] free;
+        final double[] weights = new double[BitBoard.CELLS];
+        double total;
+        double totalSquares;
+
+        /** Inverso da probabilidade de a frota em construção ter sido proposta. */
+        private double weight;
+
+        Sampler(SplittableRandom random, Observation observation) {
+            this.random = random;
+            this.kinds = observation.remaining;
+            this.baseBlocked = observation.blocked;
+            this.pendingHits = observation.pendingHits;
+            this.chosen = new Placement[kinds.length];
+            int most = 0;
+            for (String kind : kinds)
+                most = Math.max(most, PlacementCatalog.placements(kind).length);
+            this.free = new Placement[most];
+        }
+
+        /**
+         * Executa um lote de tentativas de amostragem.
+         *
+         * @return número de amostras aceites
+         */
+        @Override
+        public Integer call() {
+            int accepted = 0;
+            for (int i = 0; i < BATCH; i++)
+                if (sample()) {
+                    accepted++;
+                    total += weight;
+                    totalSquares += weight * weight;
+                    for (Placement p : chosen)
+                        for (int c = p.footprint.nextSetBit(0); c >= 0; c = p.footprint.nextSetBit(c + 1))
+                            weights[c] += weight;
+                }
+            return accepted;
+        }
+
+        /**
+         * Gera uma frota aleatória, navio a navio.
+         *
+         * @return {@code true} se a frota for legal e cobrir todos os acertos pendentes
+         */
+        private boolean sample() {
+            weight = 1;
+            blocked.copyFrom(baseBlocked);
+            covered.clear();
+            for (int k = 0; k < kinds.length; k++) {
+                Placement p = choose(kinds[k]);
+                if (p == null)
+                    return false;
+                chosen[k] = p;
+                blocked.or(p.halo);
+                covered.or(p.footprint);
+            }
+            return covered.containsAll(pendingHits);
+        }
+
+        /**
+         * Escolhe ao acaso uma colocação livre para um navio. Enquanto houver acertos por
+         * explicar, metade das escolhas é feita entre colocações que cobrem um deles.
+         * O peso da amostra é dividido pela probabilidade de a colocação ter sido proposta,
+         * somada sobre os dois ramos e sobre os acertos por explicar que ela cobre.
+         *
+         * @param kind tipo de navio
+         * @return colocação escolhida; {@code null} se não houver nenhuma livre entre as candidatas
+         */
+        private Placement choose(String kind) {
+            Placement[] all = PlacementCatalog.placements(kind);
+            Placement[] candidates = all;
+
+            uncovered.copyFrom(pendingHits);
+            uncovered.andNot(covered);
+            int open = uncovered.cardinality();
+            if (open > 0 && random.nextBoolean()) {
+                int cell = uncovered.nextSetBit(0);
+                for (int skip = random.nextInt(open); skip > 0; skip--)
+                    cell = uncovered.nextSetBit(cell + 1);
+                Placement[] covering = PlacementCatalog.covering(kind, cell);
+                if (covering.length > 0)
+                    candidates = covering;
+            }
+
+            int n = 0;
+            for (Placement p : candidates)
+                if (!p.footprint.intersects(blocked))
+                    free[n++] = p;
+            if (n == 0)
+                return null;
+            Placement pick = free[random.nextInt(n)];
+
+            double freeAll = candidates == all ? n : countFree(all);
+            double probability;
+            if (open == 0) {
+                probability = 1 / freeAll;
+            } else {
+                double viaHits = 0;
+                for (int c = uncovered.nextSetBit(0); c >= 0; c = uncovered.nextSetBit(c + 1)) {
+                    Placement[] covering = PlacementCatalog.covering(kind, c);
+                    if (covering.length == 0)
+                        viaHits += 1 / freeAll;
+                    else if (pick.footprint.get(c))
+                        viaHits += 1.0 / countFree(covering);
+                }
+                probability = 0.5 / freeAll + 0.5 * viaHits / open;
+            }
+            weight /= probability;
+            return pick;
+        }
+
+        /**
+         * @return número de colocações que não tocam nas células interditas
+         */
+        private int countFree(Placement[] placements) {
+            int n = 0;
+            for (Placement p : placements)
+                if (!p.footprint.intersects(blocked))
+                    n++;
+            return n;
+        }
+    }
+}
@@ -1,7 +1,5 @@
 package iscteiul.ista.battleship;
 
-import java.util.Scanner;
-
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -28,20 +26,29 @@ public class Tasks {
     /**
      * Número de disparos por rajada.
      */
-    private static final int NUMBER_SHOTS = 3;
+    static final int NUMBER_SHOTS = 3;
 
     /**
      * Mensagem de despedida.
      */
-    private static final String GOODBYE_MESSAGE = "Bons ventos!";
+    static final String GOODBYE_MESSAGE = "Bons ventos!";
 
     /* Comandos suportados */
-    private static final String NOVAFROTA = "nova";
-    private static final String DESISTIR = "desisto";
-    private static final String RAJADA = "rajada";
-    private static final String VERTIROS = "ver";
-    private static final String BATOTA = "mapa";
-    private static final String STATUS = "estado";
+    static final String NOVAFROTA = "nova";
+    static final String DESISTIR = "desisto";
+    static final String RAJADA = "rajada";
+    static final String VERTIROS = "ver";
+    static final String BATOTA = "mapa";
+    static final String STATUS = "estado";
+
+    /* Mensagens das sessões de taskD, também usadas por GameSession ({} marca cada parâmetro) */
+    static final String UNKNOWN_COMMAND_MESSAGE = "Que comando é esse??? Repete ...";
+    static final String UNKNOWN_SHIP_MESSAGE = "Navio desconhecido!";
+    static final String SHIP_FAILED_MESSAGE = "Falha na criacao de {} {} {}";
+    static final String FLEET_READY_MESSAGE = "{} navios adicionados com sucesso!";
+    static final String SUNK_MESSAGE = "Mas... mas... {}s nao sao a prova de bala? :-(";
+    static final String ROUND_MESSAGE = "Hits: {} Inv: {} Rep: {} Restam {} navios.";
+    static final String DEFEAT_MESSAGE = "Maldito sejas, Java Sparrow, eu voltarei, glub glub glub...";
 
     /**
      * Testa a criação de navios.
@@ -51,7 +58,7 @@ public class Tasks {
      * </p>
      */
     public static void taskA() {
-        Scanner in = new Scanner(System.in);
+        CommandReader in = new CommandReader(System.in);
         while (in.hasNext()) {
             Ship s = readShip(in);
             if (s != null)
@@ -66,23 +73,20 @@ public class Tasks {
      * Testa a construção de uma frota e consulta do seu estado.
      */
     public static void taskB() {
-        Scanner in = new Scanner(System.in);
+        CommandReader in = new CommandReader(System.in);
         IFleet fleet = null;
-        String command = in.next();
-
-        while (!command.equals(DESISTIR)) {
-            switch (command) {
-                case NOVAFROTA:
-                    fleet = buildFleet(in);
-                    break;
-                case STATUS:
-                    if (fleet != null)
-                        fleet.printStatus();
-                    break;
-                default:
-                    LOGGER.info("Que comando é esse??? Repete lá ...");
+        in.next();
+
+        while (!in.is(DESISTIR)) {
+            if (in.is(NOVAFROTA)) {
+                fleet = buildFleet(in);
+            } else if (in.is(STATUS)) {
+                if (fleet != null)
+                    fleet.printStatus();
+            } else {
+                LOGGER.info("Que comando é esse??? Repete lá ...");
             }
-            command = in.next();
+            in.next();
         }
         LOGGER.info(GOODBYE_MESSAGE);
     }
@@ -92,26 +96,22 @@ public class Tasks {
      * internamente o mapa (modo batota).
      */
     public static void taskC() {
-        Scanner in = new Scanner(System.in);
+        CommandReader in = new CommandReader(System.in);
         IFleet fleet = null;
-        String command = in.next();
-
-        while (!command.equals(DESISTIR)) {
-            switch (command) {
-                case NOVAFROTA:
-                    fleet = buildFleet(in);
-                    break;
-                case STATUS:
-                    if (fleet != null)
-                        fleet.printStatus();
-                    break;
-                case BATOTA:
-                    LOGGER.info(fleet);
-                    break;
-                default:
-                    LOGGER.info("Que comando é esse??? Repete lá ...");
+        in.next();
+
+        while (!in.is(DESISTIR)) {
+            if (in.is(NOVAFROTA)) {
+                fleet = buildFleet(in);
+            } else if (in.is(STATUS)) {
+                if (fleet != null)
+                    fleet.printStatus();
+            } else if (in.is(BATOTA)) {
+                LOGGER.info(fleet);
+            } else {
+                LOGGER.info("Que comando é esse??? Repete lá ...");
             }
-            command = in.next();
+            in.next();
         }
         LOGGER.info(GOODBYE_MESSAGE);
     }
@@ -130,61 +130,83 @@ public class Tasks {
      * </p>
      */
     public static void taskD() {
+        playSession(new CommandReader(System.in), LOGGER::info, true);
+    }
 
-        Scanner in = new Scanner(System.in);
+    /**
+     * Executa uma sessão completa de jogo (a lógica de {@link #taskD()}) sobre
+     * uma entrada qualquer, enviando as mensagens da sessão para {@code log}.
+     * <p>
+     * Sem consola ({@code interactive} a {@code false}), os comandos que imprimem
+     * o tabuleiro ou a frota são ignorados, para que várias sessões possam
+     * correr em paralelo sem misturar o que escrevem.
+     * </p>
+     *
+     * @param in leitor de comandos
+     * @param log destino das mensagens da sessão
+     * @param interactive {@code true} se os comandos de visualização devem imprimir na consola
+     * @return último jogo da sessão; {@code null} se nenhuma frota foi criada
+     */
+    static IGame playSession(CommandReader in, ISessionLog log, boolean interactive) {
         IFleet fleet = null;
         IGame game = null;
-        String command = in.next();
-
-        while (!command.equals(DESISTIR)) {
-            switch (command) {
-                case NOVAFROTA:
-                    fleet = buildFleet(in);
-                    game = new Game(fleet);
-                    break;
-                case STATUS:
-                    if (fleet != null)
-                        fleet.printStatus();
-                    break;
-                case BATOTA:
-                    if (fleet != null)
-                        game.printFleet();
-                    break;
-                case RAJADA:
-                    if (game != null) {
-                        firingRound(in, game);
-
-                        LOGGER.info(
-                                "Hits: {} Inv: {} Rep: {} Restam {} navios.",
-                                game.getHits(),
-                                game.getInvalidShots(),
-                                game.getRepeatedShots(),
-                                game.getRemainingShips()
-                        );
-
-                        if (game.getRemainingShips() == 0)
-                            LOGGER.info("Maldito sejas, Java Sparrow, eu voltarei, glub glub glub...");
-                    }
-                    break;
-                case VERTIROS:
-                    if (game != null)
-                        game.printValidShots();
-                    break;
-                default:
-                    LOGGER.info("Que comando é esse??? Repete ...");
+        in.next();
+
+        while (!in.is(DESISTIR)) {
+            if (in.is(NOVAFROTA)) {
+                fleet = buildFleet(in, log);
+                game = new Game(fleet);
+            } else if (in.is(STATUS)) {
+                if (fleet != null && interactive)
+                    fleet.printStatus();
+            } else if (in.is(BATOTA)) {
+                if (fleet != null && interactive)
+                    game.printFleet();
+            } else if (in.is(RAJADA)) {
+                if (game != null) {
+                    firingRound(in, game, log);
+
+                    log.info(
+                            ROUND_MESSAGE,
+                            game.getHits(),
+                            game.getInvalidShots(),
+                            game.getRepeatedShots(),
+                            game.getRemainingShips()
+                    );
+
+                    if (game.getRemainingShips() == 0)
+                        log.info(DEFEAT_MESSAGE);
+                }
+            } else if (in.is(VERTIROS)) {
+                if (game != null && interactive)
+                    game.printValidShots();
+            } else {
+                log.info(UNKNOWN_COMMAND_MESSAGE);
             }
-            command = in.next();
+            in.next();
         }
-        LOGGER.info(GOODBYE_MESSAGE);
+        log.info(GOODBYE_MESSAGE);
+        return game;
     }
 
     /**
      * Constrói uma frota com base nos dados fornecidos pelo utilizador.
      *
-     * @param in scanner de entrada
+     * @param in leitor de comandos
      * @return frota criada
      */
-    static Fleet buildFleet(Scanner in) {
+    static Fleet buildFleet(CommandReader in) {
+        return buildFleet(in, LOGGER::info);
+    }
+
+    /**
+     * Constrói uma frota com base nos dados lidos, enviando as mensagens para {@code log}.
+     *
+     * @param in leitor de comandos
+     * @param log destino das mensagens
+     * @return frota criada
+     */
+    static Fleet buildFleet(CommandReader in, ISessionLog log) {
         assert in != null;
 
         Fleet fleet = new Fleet();
@@ -197,56 +219,82 @@ public class Tasks {
                 if (success)
                     i++;
                 else
-                    LOGGER.info("Falha na criacao de {} {} {}", 
+                    log.info(SHIP_FAILED_MESSAGE,
                             s.getCategory(), s.getBearing(), s.getPosition());
             } else {
-                LOGGER.info("Navio desconhecido!");
+                log.info(UNKNOWN_SHIP_MESSAGE);
             }
         }
 
-        LOGGER.info("{} navios adicionados com sucesso!", i);
+        log.info(FLEET_READY_MESSAGE, i);
         return fleet;
     }
 
     /**
      * Lê os dados de um navio e constrói a respetiva instância.
      *
-     * @param in scanner de entrada
+     * @param in leitor de comandos
      * @return navio criado ou {@code null} se inválido
      */
-    static Ship readShip(Scanner in) {
-        String shipKind = in.next();
+    static Ship readShip(CommandReader in) {
+        int shipKind = in.nextKeyword(PlacementCatalog.KINDS);
         Position pos = readPosition(in);
-        char c = in.next().charAt(0);
+        char c = in.nextChar();
         Compass bearing = Compass.charToCompass(c);
-        return Ship.buildShip(shipKind, bearing, pos);
+        return shipKind < 0 ? null : Ship.buildShip(PlacementCatalog.CATEGORIES[shipKind], bearing, pos);
     }
 
     /**
      * Lê uma posição do input.
      *
-     * @param in scanner de entrada
+     * @param in leitor de comandos
      * @return posição criada
      */
-    static Position readPosition(Scanner in) {
+    static Position readPosition(CommandReader in) {
         int row = in.nextInt();
         int column = in.nextInt();
-        return new Position(row, column);
+        return Position.of(row, column);
     }
 
     /**
      * Executa uma ronda de disparos (três tiros).
      *
-     * @param in scanner de entrada
+     * @param in leitor de comandos
      * @param game contexto do jogo 
+     * @param log destino das mensagens
      */
-    static void firingRound(Scanner in, IGame game) {
+    static void firingRound(CommandReader in, IGame game, ISessionLog log) {
         for (int i = 0; i < NUMBER_SHOTS; i++) {
             IPosition pos = readPosition(in);
             IShip sh = game.fire(pos);
             if (sh != null)
-                LOGGER.info("Mas... mas... {}s nao sao a prova de bala? :-(", 
-                        sh.getCategory());
+                log.info(SUNK_MESSAGE, sh.getCategory());
+        }
+    }
+
+    /**
+     * Acrescenta uma mensagem de sessão a um texto, substituindo cada {@code {}} do
+     * padrão pelo parâmetro seguinte, como faz o log4j. Os inteiros são escritos sem
+     * criar objetos {@code String}.
+     *
+     * @param out destino
+     * @param pattern padrão da mensagem
+     * @param params parâmetros da mensagem
+     * @return o destino
+     */
+    static StringBuilder appendMessage(StringBuilder out, String pattern, Object... params) {
+        int from = 0;
+        for (Object param : params) {
+            int at = pattern.indexOf("{}", from);
+            if (at < 0)
+                break;
+            out.append(pattern, from, at);
+            if (param instanceof Integer)
+                out.append(((Integer) param).intValue());
+            else
+                out.append(param);
+            from = at + 2;
         }
+        return out.append(pattern, from, pattern.length());
     }
 }
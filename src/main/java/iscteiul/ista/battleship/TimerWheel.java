@@ -0,0 +1,139 @@
+package iscteiul.ista.battleship;
+
+import java.util.Arrays;
+
+/**
+ * Roda temporal (hashed timer wheel) de identificadores {@code long}, cada um
+ * acompanhado de uma marca que permite ao chamador reconhecer entradas obsoletas.
+ * <p>
+ * O tempo avança em ticks; cada identificador é agendado na ranhura do tick do
+ * seu prazo, módulo o número de ranhuras. Ao avançar, cada ranhura percorrida é
+ * entregue ao chamador, que decide para cada identificador se expirou ou se deve
+ * ser reagendado (por ter sido usado entretanto, ou por o prazo estar a mais de
+ * uma volta de distância). Assim um acesso não mexe na roda: basta atualizar a
+ * hora do último uso, e a verificação é feita quando a ranhura chega.
+ * </p>
+ * Os instantes de {@link System#nanoTime()} podem ser negativos: os ticks são
+ * arredondados por defeito e as ranhuras calculadas com {@link Math#floorMod(long, int)}.
+ * Os identificadores e as marcas ficam em vetores primitivos, sem objetos por entrada;
+ * as entradas obsoletas são descartadas quando uma ranhura enche.
+ * Não é segura entre threads.
+ */
+final class TimerWheel {
+
+    /**
+     * Recebe as entradas cujo tick chegou.
+     */
+    interface Visitor {
+
+        /**
+         * @param id identificador agendado
+         * @param token marca indicada no agendamento
+         */
+        void visit(long id, long token);
+    }
+
+    /**
+     * Indica se uma entrada ainda interessa ao chamador.
+     */
+    interface Liveness {
+
+        /**
+         * @param id identificador agendado
+         * @param token marca indicada no agendamento
+         * @return {@code false} se a entrada pode ser descartada sem ser visitada
+         */
+        boolean isLive(long id, long token);
+    }
+
+    /** Pares (identificador, marca) de cada ranhura, intercalados. */
+    private final long[][] slots;
+    private final int[] sizes;
+    private final long tickNanos;
+    private final Liveness liveness;
+    private long currentTick;
+
+    /**
+     * @param slotCount número de ranhuras
+     * @param tickNanos duração de um tick, em nanossegundos
+     * @param now instante inicial ({@link System#nanoTime()})
+     * @param liveness usada para descartar entradas obsoletas antes de aumentar uma ranhura
+     */
+    TimerWheel(int slotCount, long tickNanos, long now, Liveness liveness) {
+        this.slots = new long[slotCount][];
+        this.sizes = new int[slotCount];
+        this.tickNanos = tickNanos;
+        this.liveness = liveness;
+        this.currentTick = tickOf(now);
+    }
+
+    /**
+     * @param nanos instante ({@link System#nanoTime()})
+     * @return tick correspondente
+     */
+    long tickOf(long nanos) {
+        return Math.floorDiv(nanos, tickNanos);
+    }
+
+    /**
+     * Agenda um identificador para o tick indicado; prazos já passados ficam no tick seguinte.
+     *
+     * @param id identificador
+     * @param token marca devolvida ao chamador junto com o identificador
+     * @param tick tick do prazo
+     */
+    void schedule(long id, long token, long tick) {
+        int slot = Math.floorMod(Math.max(tick, currentTick + 1), slots.length);
+        long[] ids = slots[slot];
+        if (ids == null)
+            ids = slots[slot] = new long[16];
+        else if (sizes[slot] == ids.length && compact(slot) > ids.length / 2)
+            ids = slots[slot] = Arrays.copyOf(ids, ids.length * 2);
+        ids[sizes[slot]++] = id;
+        ids[sizes[slot]++] = token;
+    }
+
+    /**
+     * Descarta as entradas obsoletas de uma ranhura cheia, para que a roda cresça
+     * com as entradas vivas e não com as que foram abandonadas pelo chamador.
+     *
+     * @return número de posições ocupadas após a compactação
+     */
+    private int compact(int slot) {
+        long[] ids = slots[slot];
+        int kept = 0;
+        for (int i = 0; i < sizes[slot]; i += 2)
+            if (liveness.isLive(ids[i], ids[i + 1])) {
+                ids[kept++] = ids[i];
+                ids[kept++] = ids[i + 1];
+            }
+        return sizes[slot] = kept;
+    }
+
+    /**
+     * Avança a roda até ao instante indicado, percorrendo no máximo uma volta.
+     * Os identificadores das ranhuras percorridas saem da roda e são entregues ao
+     * chamador, que os expira ou volta a agendar.
+     *
+     * @param now instante atual ({@link System#nanoTime()})
+     * @param visitor recebe cada entrada cujo tick chegou
+     */
+    void advance(long now, Visitor visitor) {
+        long target = tickOf(now);
+        long stop = Math.min(target, currentTick + slots.length);
+        while (currentTick < stop) {
+            currentTick++;
+            int slot = Math.floorMod(currentTick, slots.length);
+            long[] ids = slots[slot];
+            int size = sizes[slot];
+            if (size == 0)
+                continue;
+            // o chamador pode reagendar para esta mesma ranhura: esvazia-a antes de percorrer
+            slots[slot] = null;
+            sizes[slot] = 0;
+            for (int i = 0; i < size; i += 2)
+                visitor.visit(ids[i], ids[i + 1]);
+        }
+        currentTick = Math.max(currentTick, target);
+    }
+}
@@ -0,0 +1,131 @@
+package iscteiul.ista.battleship;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.LongFunction;
+
+/**
+ * Torneio de jogos automáticos sem interação: cada jogo junta uma frota aleatória
+ * legal ({@link FleetGenerator}) a um atirador ({@link IShooter}) e conta os tiros
+ * válidos necessários para afundar toda a frota.
+ * <p>
+ * Os jogos são repartidos recursivamente por tarefas de um {@link ForkJoinPool}
+ * (com roubo de trabalho). Cada tarefa terminal acumula o seu próprio histograma e
+ * os histogramas são somados ao juntar as tarefas, pelo que não há contenção entre
+ * threads. Cada bloco de jogos usa um gerador de frotas com semente derivada da
+ * semente do torneio e do índice do primeiro jogo, o que torna os resultados
+ * reprodutíveis independentemente do número de threads.
+ * </p>
+ */
+public class Tournament {
+
+    /** Número de jogos por tarefa terminal. */
+    private static final int GAMES_PER_TASK = 256;
+
+    /** Limite de disparos por jogo, para travar estratégias que nunca terminam. */
+    private static final int MAX_FIRE_CALLS = BitBoard.CELLS * 10;
+
+    /** Pool onde correm os jogos. */
+    private final ForkJoinPool pool;
+
+    /** Fábrica de atiradores, a partir de uma semente por jogo. */
+    private final LongFunction<IShooter> shooters;
+
+    /** Semente do torneio. */
+    private final long seed;
+
+    /**
+     * Cria um torneio.
+     *
+     * @param pool pool onde correm os jogos
+     * @param shooters fábrica de atiradores; recebe a semente de cada jogo
+     * @param seed semente do torneio
+     */
+    public Tournament(ForkJoinPool pool, LongFunction<IShooter> shooters, long seed) {
+        this.pool = pool;
+        this.shooters = shooters;
+        this.seed = seed;
+    }
+
+    /**
+     * Joga um número de jogos e agrega os resultados.
+     *
+     * @param games número de jogos
+     * @return distribuição do número de tiros até à vitória
+     */
+    public TournamentResult play(long games) {
+        long start = System.nanoTime();
+        long[] histogram = pool.invoke(new Batch(0, games));
+        long elapsed = System.nanoTime() - start;
+
+        long unfinished = histogram[histogram.length - 1];
+        long[] finished = new long[histogram.length - 1];
+        System.arraycopy(histogram, 0, finished, 0, finished.length);
+        return new TournamentResult(finished, unfinished, elapsed);
+    }
+
+    /**
+     * Joga um único jogo até afundar toda a frota.
+     *
+     * @param fleet frota adversária
+     * @param shooter atirador
+     * @return número de tiros válidos; -1 se o jogo exceder o limite de disparos
+     */
+    static int playGame(Fleet fleet, IShooter shooter) {
+        Game game = new Game(fleet);
+        int[] shot = new int[1];
+        int[] result = new int[1];
+        for (int calls = 0; calls < MAX_FIRE_CALLS; calls++) {
+            Position p = shooter.nextShot();
+            shot[0] = Position.pack(p.getRow(), p.getColumn());
+            game.fireSalvo(shot, result);
+            IShip sunk = ShotResult.kind(result[0]) == ShotResult.SUNK
+                    ? fleet.getShips().get(ShotResult.shipIndex(result[0]))
+                    : null;
+            shooter.onResult(p, result[0], sunk);
+            if (game.getRemainingShips() == 0)
+                return game.getShots().size();
+        }
+        return -1;
+    }
+
+    /**
+     * Bloco de jogos {@code [from, to)}; divide-se ao meio até ter
+     * {@link #GAMES_PER_TASK} jogos ou menos.
+     * O histograma devolvido tem uma posição por número de tiros válidos e uma
+     * última posição para os jogos abandonados.
+     */
+    private final class Batch extends RecursiveTask<long[]> {
+        private static final long serialVersionUID = 1L;
+
+        private final long from;
+        private final long to;
+
+        Batch(long from, long to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected long[] compute() {
+            if (to - from <= GAMES_PER_TASK) {
+                long[] histogram = new long[BitBoard.CELLS + 2];
+                FleetGenerator generator = new FleetGenerator(seed * 0x9E3779B97F4A7C15L + from);
+                for (long g = from; g < to; g++) {
+                    int shots = playGame(generator.next(), shooters.apply(seed ^ (g * 0xBF58476D1CE4E5B9L)));
+                    histogram[shots < 0 ? histogram.length - 1 : shots]++;
+                }
+                return histogram;
+            }
+
+            long middle = (from + to) >>> 1;
+            Batch left = new Batch(from, middle);
+            left.fork();
+            long[] right = new Batch(middle, to).compute();
+            long[] histogram = left.join();
+            for (int i = 0; i < histogram.length; i++)
+                histogram[i] += right[i];
+            return histogram;
+        }
+    }
+}
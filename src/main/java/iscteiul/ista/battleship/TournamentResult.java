@@ -0,0 +1,105 @@
+package iscteiul.ista.battleship;
+
+/**
+ * Resultado agregado de um torneio: distribuição do número de tiros válidos
+ * necessários para afundar toda a frota.
+ */
+public class TournamentResult {
+
+    /** Número de jogos que terminaram com {@code i} tiros válidos. */
+    private final long[] histogram;
+
+    /** Número de jogos abandonados por excederem o limite de disparos. */
+    private final long unfinished;
+
+    /** Duração do torneio, em nanossegundos. */
+    private final long elapsedNanos;
+
+    /**
+     * Constrói o resultado.
+     *
+     * @param histogram número de jogos por número de tiros válidos até à vitória
+     * @param unfinished número de jogos abandonados
+     * @param elapsedNanos duração do torneio, em nanossegundos
+     */
+    TournamentResult(long[] histogram, long unfinished, long elapsedNanos) {
+        this.histogram = histogram;
+        this.unfinished = unfinished;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * @return número de jogos concluídos
+     */
+    public long getGames() {
+        long games = 0;
+        for (long h : histogram)
+            games += h;
+        return games;
+    }
+
+    /**
+     * @return número de jogos abandonados por excederem o limite de disparos
+     */
+    public long getUnfinished() {
+        return unfinished;
+    }
+
+    /**
+     * @param shots número de tiros válidos
+     * @return número de jogos ganhos com exatamente esse número de tiros
+     */
+    public long getCount(int shots) {
+        return shots >= 0 && shots < histogram.length ? histogram[shots] : 0;
+    }
+
+    /**
+     * @return média de tiros válidos por jogo concluído
+     */
+    public double getMean() {
+        long games = getGames();
+        if (games == 0)
+            return 0;
+        double sum = 0;
+        for (int i = 0; i < histogram.length; i++)
+            sum += (double) i * histogram[i];
+        return sum / games;
+    }
+
+    /**
+     * Devolve o percentil do número de tiros até à vitória.
+     *
+     * @param q fração entre 0 e 1 (ex: 0.5 para a mediana)
+     * @return menor número de tiros que cobre pelo menos essa fração dos jogos
+     */
+    public int getPercentile(double q) {
+        long games = getGames();
+        long target = (long) Math.ceil(q * games);
+        long seen = 0;
+        for (int i = 0; i < histogram.length; i++) {
+            seen += histogram[i];
+            if (seen >= target && seen > 0)
+                return i;
+        }
+        return histogram.length - 1;
+    }
+
+    /**
+     * @return jogos concluídos por segundo
+     */
+    public double getGamesPerSecond() {
+        return elapsedNanos == 0 ? 0 : getGames() * 1e9 / elapsedNanos;
+    }
+
+    /**
+     * Devolve um resumo textual do torneio.
+     *
+     * @return jogos, média, mediana, p90, p99, mínimo, máximo e débito
+     */
+    @Override
+    public String toString() {
+        return String.format("jogos=%d media=%.2f p50=%d p90=%d p99=%d min=%d max=%d abandonados=%d jogos/s=%.0f",
+                getGames(), getMean(), getPercentile(0.5), getPercentile(0.9), getPercentile(0.99),
+                getPercentile(0), getPercentile(1), unfinished, getGamesPerSecond());
+    }
+}
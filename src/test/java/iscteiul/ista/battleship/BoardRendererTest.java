@@ -0,0 +1,59 @@
+package iscteiul.ista.battleship;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.StringWriter;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Testes de {@link BoardRenderer}.
+ */
+class BoardRendererTest {
+
+    /**
+     * O quadro tem uma linha de texto por linha do tabuleiro, terminada pelo fim de
+     * linha da plataforma, tal como o antigo {@code printBoard}.
+     */
+    @Test
+    void frameUsesPlatformLineSeparator() {
+        BoardRenderer board = new BoardRenderer(3, 1, 1);
+        board.set(0, 2, BoardRenderer.HIT);
+        board.set(2, 0, BoardRenderer.SHIP);
+        String nl = System.lineSeparator();
+        String expected = "..X" + nl + "..." + nl + "#.." + nl;
+        assertEquals(expected, board.toString());
+
+        StringWriter out = new StringWriter();
+        board.writeTo(out);
+        assertEquals(expected, out.toString());
+    }
+
+    /**
+     * Células fora do tabuleiro são rejeitadas sem alterar o quadro.
+     */
+    @Test
+    void cellsOutsideTheBoardAreRejected() {
+        BoardRenderer board = new BoardRenderer(3, 1, 1);
+        String empty = board.toString();
+        int[][] cells = { { 0, 3 }, { 0, -1 }, { -1, 0 }, { 3, 0 }, { 1, 4 } };
+        for (int[] cell : cells)
+            assertThrows(IllegalArgumentException.class, () -> board.set(cell[0], cell[1], BoardRenderer.HIT));
+        assertEquals(empty, board.toString());
+    }
+
+    /**
+     * O envio diferencial só inclui as células que mudaram.
+     */
+    @Test
+    void diffSendsOnlyChangedCells() {
+        BoardRenderer board = new BoardRenderer(3, 1, 1);
+        assertEquals(9, board.writeDiff(new StringWriter()));
+        board.set(1, 1, BoardRenderer.MISS);
+        StringWriter out = new StringWriter();
+        assertEquals(1, board.writeDiff(out));
+        assertEquals("\u001B[2;2Ho\u001B[4;1H", out.toString());
+        assertEquals(0, board.writeDiff(new StringWriter()));
+    }
+}
@@ -0,0 +1,130 @@
+package iscteiul.ista.battleship;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.Scanner;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Testes de {@link CommandReader}, comparado com o {@link Scanner} que substituiu.
+ */
+class CommandReaderTest {
+
+    /** Palavras usadas nas entradas aleatórias, incluindo inteiros fora do intervalo e mal formados. */
+    private static final String[] WORDS = { "nova", "rajada", "desisto", "galeao", "n", "o", "0", "7", "-3", "+12",
+            "007", "2147483647", "2147483648", "-2147483648", "-2147483649", "99999999999", "+", "-", "3x", "x3",
+            "é", "palavra-muito-comprida-para-o-vetor-inicial-de-32-bytes" };
+
+    /** Separadores em branco reconhecidos por ambos. */
+    private static final String[] SPACES = { " ", "\t", "\n", "\r\n", "\f", "\u000B", "\u001C", "\u001F", "  \n\t " };
+
+    /**
+     * Em entradas aleatórias, lidas aos bocados, as palavras, os inteiros, as exceções
+     * e o fim da entrada são os mesmos do {@code Scanner}.
+     */
+    @Test
+    void matchesScannerOnRandomInput() {
+        Random random = new Random(15);
+        for (int round = 0; round < 500; round++) {
+            String text = randomInput(random);
+            byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+            boolean channel = random.nextBoolean();
+            InputStream trickle = new Trickle(bytes, random.nextInt(16) + 1, round);
+            CommandReader reader = channel ? new CommandReader(Channels.newChannel(trickle)) : new CommandReader(trickle);
+            Scanner scanner = new Scanner(new ByteArrayInputStream(bytes), StandardCharsets.UTF_8);
+
+            while (true) {
+                int op = random.nextInt(3);
+                if (op == 0) {
+                    boolean more = scanner.hasNext();
+                    assertEquals(more, reader.hasNext(), text);
+                    if (!more)
+                        break;
+                } else if (op == 1) {
+                    String expected = outcome(scanner::next);
+                    assertEquals(expected, outcome(() -> {
+                        reader.next();
+                        return reader.token();
+                    }), text);
+                } else {
+                    String expected = outcome(scanner::nextInt);
+                    assertEquals(expected, outcome(reader::nextInt), text);
+                    // o Scanner não consome uma palavra que não seja um inteiro
+                    if (expected.equals("java.util.InputMismatchException"))
+                        scanner.next();
+                }
+                if (!scanner.hasNext() && random.nextBoolean()) {
+                    assertEquals(outcome(scanner::next), outcome(reader::nextInt), text);
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Valor ou nome da exceção produzidos por uma leitura.
+     */
+    private static String outcome(Supplier<Object> read) {
+        try {
+            return String.valueOf(read.get());
+        } catch (RuntimeException e) {
+            return e.getClass().getName();
+        }
+    }
+
+    private static String randomInput(Random random) {
+        StringBuilder text = new StringBuilder();
+        if (random.nextBoolean())
+            text.append(SPACES[random.nextInt(SPACES.length)]);
+        int words = random.nextInt(20);
+        for (int i = 0; i < words; i++) {
+            if (i > 0)
+                text.append(SPACES[random.nextInt(SPACES.length)]);
+            text.append(random.nextInt(3) == 0 ? Integer.toString(random.nextInt(41) - 20)
+                    : WORDS[random.nextInt(WORDS.length)]);
+        }
+        if (random.nextBoolean())
+            text.append(SPACES[random.nextInt(SPACES.length)]);
+        return text.toString();
+    }
+
+    /**
+     * Entrada que entrega os bytes em blocos de tamanho aleatório, como uma ligação
+     * de rede em que os comandos chegam partidos em vários pacotes.
+     */
+    static final class Trickle extends InputStream {
+
+        private final byte[] bytes;
+        private final int maxChunk;
+        private final Random random;
+        private int position;
+
+        Trickle(byte[] bytes, int maxChunk, long seed) {
+            this.bytes = bytes;
+            this.maxChunk = maxChunk;
+            this.random = new Random(seed);
+        }
+
+        @Override
+        public int read() {
+            return position < bytes.length ? bytes[position++] & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (position == bytes.length)
+                return -1;
+            int n = Math.min(Math.min(len, bytes.length - position), random.nextInt(maxChunk) + 1);
+            System.arraycopy(bytes, position, b, off, n);
+            position += n;
+            return n;
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package iscteiul.ista.battleship;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Testes de stress do {@link ConcurrentGame}: vários jogadores disparam em
+ * simultâneo sobre a mesma frota e o estado final tem de coincidir com o de
+ * um jogo sequencial.
+ */
+class ConcurrentGameTest {
+
+    private static final int THREADS = 8;
+    private static final int ROUNDS = 200;
+
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newFixedThreadPool(THREADS);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        executor.shutdownNow();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Todos os jogadores disparam sobre todas as células, em ordens diferentes:
+     * cada célula é resolvida uma só vez e cada afundamento é visto por exatamente um jogador.
+     */
+    @Test
+    void everyCellResolvedOnceAndEverySinkObservedOnce() throws Exception {
+        FleetGenerator generator = new FleetGenerator(42);
+        for (int round = 0; round < ROUNDS; round++) {
+            Fleet fleet = generator.next();
+            ConcurrentGame game = new ConcurrentGame(fleet);
+            AtomicIntegerArray sinks = new AtomicIntegerArray(fleet.getShips().size());
+            CountDownLatch start = new CountDownLatch(1);
+
+            List<Future<int[]>> players = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                long seed = round * 31L + t;
+                players.add(executor.submit(() -> {
+                    int[] cells = shuffledCells(new Random(seed));
+                    int[] kinds = new int[ShotResult.INVALID + 1];
+                    start.await();
+                    for (int cell : cells) {
+                        int result = fireOne(game, cell / IFleet.BOARD_SIZE, cell % IFleet.BOARD_SIZE);
+                        kinds[ShotResult.kind(result)]++;
+                        if (ShotResult.kind(result) == ShotResult.SUNK)
+                            sinks.incrementAndGet(ShotResult.shipIndex(result));
+                    }
+                    return kinds;
+                }));
+            }
+            start.countDown();
+
+            int[] total = new int[ShotResult.INVALID + 1];
+            for (Future<int[]> player : players) {
+                int[] kinds = player.get(30, TimeUnit.SECONDS);
+                for (int k = 0; k < kinds.length; k++)
+                    total[k] += kinds[k];
+            }
+
+            int shipCells = 0;
+            for (IShip s : fleet.getShips())
+                shipCells += s.getSize();
+
+            for (int i = 0; i < sinks.length(); i++)
+                assertEquals(1, sinks.get(i), "navio " + i + " afundado por mais de um jogador");
+            assertEquals(shipCells, total[ShotResult.HIT] + total[ShotResult.SUNK]);
+            assertEquals(BitBoard.CELLS - shipCells, total[ShotResult.MISS]);
+            assertEquals((THREADS - 1) * BitBoard.CELLS, total[ShotResult.REPEATED]);
+            assertEquals(shipCells, game.getHits());
+            assertEquals(fleet.getShips().size(), game.getSunkShips());
+            assertEquals(0, game.getRemainingShips());
+            assertEquals((THREADS - 1) * BitBoard.CELLS, game.getRepeatedShots());
+            assertEquals(BitBoard.CELLS, new HashSet<>(game.getShots()).size());
+            assertTrue(fleet.getFloatingShips().isEmpty());
+            assertEquals(0, fleet.getFloatingCount());
+        }
+    }
+
+    /**
+     * Jogadores que disparam rajadas aleatórias, incluindo tiros inválidos,
+     * deixam o jogo no mesmo estado que um jogo sequencial com os mesmos tiros.
+     */
+    @Test
+    void concurrentSalvosMatchSequentialGame() throws Exception {
+        for (int round = 0; round < ROUNDS; round++) {
+            long fleetSeed = 1000L + round;
+            int[][] salvos = new int[THREADS][];
+            Random random = new Random(round);
+            for (int t = 0; t < THREADS; t++) {
+                salvos[t] = new int[60];
+                for (int i = 0; i < salvos[t].length; i++)
+                    salvos[t][i] = Position.pack(random.nextInt(12) - 1, random.nextInt(12) - 1);
+            }
+
+            ConcurrentGame concurrent = new ConcurrentGame(new FleetGenerator(fleetSeed).next());
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<Integer>> players = new ArrayList<>();
+            for (int[] salvo : salvos)
+                players.add(executor.submit(() -> {
+                    start.await();
+                    return concurrent.fireSalvo(salvo, new int[salvo.length]);
+                }));
+            start.countDown();
+            int sunk = 0;
+            for (Future<Integer> player : players)
+                sunk += player.get(30, TimeUnit.SECONDS);
+
+            Game sequential = new Game(new FleetGenerator(fleetSeed).next());
+            for (int[] salvo : salvos)
+                sequential.fireSalvo(salvo, new int[salvo.length]);
+
+            assertEquals(sequential.getSunkShips(), sunk);
+            assertEquals(sequential.getSunkShips(), concurrent.getSunkShips());
+            assertEquals(sequential.getHits(), concurrent.getHits());
+            assertEquals(sequential.getInvalidShots(), concurrent.getInvalidShots());
+            assertEquals(sequential.getRepeatedShots(), concurrent.getRepeatedShots());
+            assertEquals(sequential.getRemainingShips(), concurrent.getRemainingShips());
+            Set<IPosition> expected = new HashSet<>(sequential.getShots());
+            assertEquals(expected, new HashSet<>(concurrent.getShots()));
+            assertEquals(expected.size(), concurrent.getShots().size());
+        }
+    }
+
+    /**
+     * Um jogo concorrente usado por uma só thread comporta-se como {@link Game}.
+     */
+    @Test
+    void singleThreadedBehavesLikeGame() {
+        Random random = new Random(3);
+        for (int round = 0; round < ROUNDS; round++) {
+            ConcurrentGame concurrent = new ConcurrentGame(new FleetGenerator(round).next());
+            Game sequential = new Game(new FleetGenerator(round).next());
+            for (int i = 0; i < 150; i++) {
+                Position pos = Position.of(random.nextInt(12) - 1, random.nextInt(12) - 1);
+                IShip a = concurrent.fire(pos);
+                IShip b = sequential.fire(pos);
+                assertEquals(String.valueOf(b), String.valueOf(a));
+            }
+            assertEquals(sequential.getShots(), concurrent.getShots());
+            assertEquals(sequential.getHits(), concurrent.getHits());
+            assertEquals(sequential.getRemainingShips(), concurrent.getRemainingShips());
+        }
+    }
+
+    private static int fireOne(IGame game, int row, int column) {
+        int[] result = new int[1];
+        game.fireSalvo(new int[] { Position.pack(row, column) }, result);
+        return result[0];
+    }
+
+    private static int[] shuffledCells(Random random) {
+        int[] cells = new int[BitBoard.CELLS];
+        for (int i = 0; i < cells.length; i++)
+            cells[i] = i;
+        for (int i = cells.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int tmp = cells[i];
+            cells[i] = cells[j];
+            cells[j] = tmp;
+        }
+        return cells;
+    }
+}
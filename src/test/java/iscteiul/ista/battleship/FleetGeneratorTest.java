@@ -0,0 +1,62 @@
+package iscteiul.ista.battleship;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Testes de {@link FleetGenerator}.
+ */
+class FleetGeneratorTest {
+
+    /**
+     * As frotas geradas têm a composição padrão e são aceites, navio a navio,
+     * por uma frota nova.
+     */
+    @Test
+    void fleetsAreLegal() {
+        FleetGenerator generator = new FleetGenerator(5);
+        for (int i = 0; i < 1_000; i++) {
+            Fleet fleet = generator.next();
+            assertEquals(PlacementCatalog.STANDARD_FLEET.length, fleet.getShips().size());
+            Fleet copy = new Fleet();
+            for (IShip s : fleet.getShips())
+                assertTrue(copy.addShip(Ship.buildShip(PlacementCatalog.kindOf(s), s.getBearing(),
+                        (Position) s.getPosition())), "navio rejeitado: " + s);
+        }
+    }
+
+    /**
+     * Todas as categorias aparecem nas quatro orientações, incluindo as que ocupam
+     * as mesmas células em orientações opostas.
+     */
+    @Test
+    void everyCategoryUsesEveryBearing() {
+        Map<Category, Set<Compass>> bearings = new EnumMap<>(Category.class);
+        FleetGenerator generator = new FleetGenerator(6);
+        for (int i = 0; i < 1_000; i++)
+            for (IShip s : generator.next().getShips())
+                bearings.computeIfAbsent(s.getCategoryType(), c -> EnumSet.noneOf(Compass.class)).add(s.getBearing());
+
+        for (Category category : Category.values())
+            assertEquals(EnumSet.of(Compass.NORTH, Compass.SOUTH, Compass.EAST, Compass.WEST), bearings.get(category),
+                    category.getName());
+    }
+
+    /**
+     * A mesma semente dá as mesmas frotas.
+     */
+    @Test
+    void seedIsReproducible() {
+        FleetGenerator a = new FleetGenerator(7);
+        FleetGenerator b = new FleetGenerator(7);
+        for (int i = 0; i < 100; i++)
+            assertEquals(a.next().getShips().toString(), b.next().getShips().toString());
+    }
+}
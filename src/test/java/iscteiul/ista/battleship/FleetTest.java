@@ -0,0 +1,145 @@
+package iscteiul.ista.battleship;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Testes da contagem de navios a flutuar mantida por {@link Fleet}.
+ */
+class FleetTest {
+
+    /**
+     * O contador acompanha os afundamentos feitos por um jogo, por tiros diretos
+     * nos navios e pelos tiros desfeitos com {@link Game#unfire()}.
+     */
+    @Test
+    void floatingCountFollowsSinksAndRepairs() {
+        Fleet fleet = new Fleet();
+        fleet.addShip(new Caravel(Compass.EAST, Position.of(0, 0)));
+        fleet.addShip(new Barge(Compass.NORTH, Position.of(5, 5)));
+        Game game = new Game(fleet);
+        game.enableUndo();
+        assertEquals(2, fleet.getFloatingCount());
+
+        game.fire(5, 5);
+        assertEquals(1, fleet.getFloatingCount());
+        assertEquals(1, game.getRemainingShips());
+
+        IShip caravel = fleet.getShips().get(0);
+        caravel.shoot(Position.of(0, 0));
+        caravel.shoot(Position.of(0, 0));
+        assertEquals(1, fleet.getFloatingCount());
+        caravel.shoot(Position.of(0, 1));
+        assertEquals(0, fleet.getFloatingCount());
+        assertEquals(0, game.getRemainingShips());
+
+        game.unfire();
+        assertEquals(1, fleet.getFloatingCount());
+        assertEquals(fleet.getFloatingShips().size(), fleet.getFloatingCount());
+    }
+
+    /**
+     * {@link Fleet#printStatus()} escreve o mesmo que a versão original, que imprimia
+     * cada navio com {@code println}: todos, os que flutuam e os de cada categoria.
+     */
+    @Test
+    void printStatusMatchesPrintln() {
+        Fleet fleet = new FleetGenerator(8).next();
+        Game game = new Game(fleet);
+        Random random = new Random(8);
+        for (int i = 0; i < 60; i++)
+            game.fire(random.nextInt(IFleet.BOARD_SIZE), random.nextInt(IFleet.BOARD_SIZE));
+
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        PrintStream reference = new PrintStream(expected, true);
+        for (IShip s : fleet.getShips())
+            reference.println(s);
+        for (IShip s : fleet.getFloatingShips())
+            reference.println(s);
+        for (Category category : Category.values())
+            for (IShip s : fleet.getShipsLike(category))
+                reference.println(s);
+
+        ByteArrayOutputStream actual = new ByteArrayOutputStream();
+        PrintStream out = System.out;
+        System.setOut(new PrintStream(actual, true));
+        try {
+            fleet.printStatus();
+        } finally {
+            System.setOut(out);
+        }
+        assertEquals(expected.toString(), actual.toString());
+    }
+
+    /**
+     * Um navio acrescentado a duas frotas continua a contar certo em ambas, seja
+     * afundado pelo jogo de uma ou de outra.
+     */
+    @Test
+    void sharedShipIsCountedByBothFleets() {
+        Ship barge = new Barge(Compass.NORTH, Position.of(5, 5));
+        Ship caravel = new Caravel(Compass.EAST, Position.of(0, 0));
+        Fleet first = new Fleet();
+        first.addShip(barge);
+        first.addShip(caravel);
+        Fleet second = new Fleet();
+        second.addShip(barge);
+        Game game = new Game(second);
+        game.enableUndo();
+
+        game.fire(5, 5);
+        assertEquals(0, second.getFloatingCount());
+        assertEquals(0, second.countFloating(Category.BARCA));
+        assertEquals(0, game.getRemainingShips());
+        assertEquals(1, first.getFloatingCount());
+        assertEquals(0, first.countFloating(Category.BARCA));
+
+        game.unfire();
+        assertEquals(1, second.getFloatingCount());
+        assertEquals(1, second.countFloating(Category.BARCA));
+        assertEquals(2, first.getFloatingCount());
+        assertEquals(1, first.countFloating(Category.BARCA));
+    }
+
+    /**
+     * Ao longo de jogos aleatórios, com tiros desfeitos pelo meio, o contador é
+     * sempre igual ao tamanho de {@link Fleet#getFloatingShips()}, e o de cada
+     * categoria ao número de navios dessa categoria que ainda flutuam.
+     */
+    @Test
+    void floatingCountMatchesFloatingShips() {
+        Random random = new Random(4);
+        FleetGenerator generator = new FleetGenerator(4);
+        for (int round = 0; round < 100; round++) {
+            Fleet fleet = generator.next();
+            Game game = new Game(fleet);
+            game.enableUndo();
+            for (int step = 0; step < 300; step++) {
+                if (game.getHistorySize() > 0 && random.nextInt(4) == 0)
+                    game.unfire();
+                else
+                    game.fire(random.nextInt(IFleet.BOARD_SIZE), random.nextInt(IFleet.BOARD_SIZE));
+                assertEquals(fleet.getFloatingShips().size(), fleet.getFloatingCount());
+                assertEquals(fleet.getFloatingCount(), game.getRemainingShips());
+                for (Category category : Category.values())
+                    assertEquals(countFloating(fleet, category), fleet.countFloating(category), category.getName());
+            }
+        }
+    }
+
+    /**
+     * Conta, percorrendo a frota, os navios de uma categoria que ainda flutuam.
+     */
+    private static int countFloating(IFleet fleet, Category category) {
+        int count = 0;
+        for (IShip s : fleet.getShips())
+            if (s.getCategoryType() == category && s.stillFloating())
+                count++;
+        return count;
+    }
+}
@@ -0,0 +1,99 @@
+package iscteiul.ista.battleship;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Testes de {@link Game#fire(int, int)}: códigos de resultado e ausência de
+ * alocações no caminho de disparo.
+ */
+class GameFireTest {
+
+    private static final int GAMES = 2_000;
+
+    /** Lotes de jogos disparados antes da medição, para que o JIT estabilize. */
+    private static final int WARM_UP_ROUNDS = 5;
+
+    /**
+     * Cada tipo de tiro devolve o código certo e os contadores do jogo acompanham-no.
+     */
+    @Test
+    void outcomeCodes() {
+        Fleet fleet = new Fleet();
+        fleet.addShip(new Caravel(Compass.EAST, Position.of(0, 0)));
+        fleet.addShip(new Barge(Compass.NORTH, Position.of(5, 5)));
+        Game game = new Game(fleet);
+
+        assertEquals(ShotResult.MISS, game.fire(9, 9));
+        assertEquals(ShotResult.of(ShotResult.HIT, 0), game.fire(0, 0));
+        assertEquals(ShotResult.REPEATED, game.fire(0, 0));
+        assertEquals(ShotResult.INVALID, game.fire(-1, 3));
+        assertEquals(ShotResult.INVALID, game.fire(2, 10));
+        assertEquals(ShotResult.of(ShotResult.SUNK, 0), game.fire(0, 1));
+        assertEquals(ShotResult.of(ShotResult.SUNK, 1), game.fire(5, 5));
+
+        assertEquals(3, game.getHits());
+        assertEquals(2, game.getSunkShips());
+        assertEquals(1, game.getRepeatedShots());
+        assertEquals(2, game.getInvalidShots());
+        assertEquals(4, game.getShots().size());
+        assertEquals(Position.of(0, 1), game.getShots().get(2));
+    }
+
+    /**
+     * Jogos inteiros disparados com {@link Game#fire(int, int)} (todas as células,
+     * mais tiros repetidos e inválidos) não alocam nenhum byte.
+     */
+    @Test
+    void firingDoesNotAllocate() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+        assumeTrue(threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled());
+        long thread = Thread.currentThread().getId();
+
+        FleetGenerator generator = new FleetGenerator(7);
+        for (int round = 0; round < WARM_UP_ROUNDS; round++)
+            playAll(newGames(generator));
+        Game[] games = newGames(generator);
+
+        // custo da própria medição, descontado do resultado
+        long overhead = -threads.getThreadAllocatedBytes(thread);
+        overhead += threads.getThreadAllocatedBytes(thread);
+
+        long before = threads.getThreadAllocatedBytes(thread);
+        playAll(games);
+        long allocated = threads.getThreadAllocatedBytes(thread) - before - overhead;
+
+        assertEquals(0, allocated, "bytes alocados em " + GAMES + " jogos");
+        for (Game game : games) {
+            assertEquals(0, game.getRemainingShips());
+            assertEquals(BitBoard.CELLS, game.getShots().size());
+        }
+    }
+
+    private static Game[] newGames(FleetGenerator generator) {
+        Game[] games = new Game[GAMES];
+        for (int i = 0; i < GAMES; i++)
+            games[i] = new Game(generator.next());
+        return games;
+    }
+
+    /**
+     * Dispara sobre todas as células de cada jogo, duas vezes, mais um tiro inválido por linha.
+     */
+    private static void playAll(Game[] games) {
+        for (Game game : games)
+            for (int pass = 0; pass < 2; pass++)
+                for (int row = 0; row < IFleet.BOARD_SIZE; row++) {
+                    for (int column = 0; column < IFleet.BOARD_SIZE; column++)
+                        game.fire(row, column);
+                    game.fire(row, IFleet.BOARD_SIZE);
+                }
+    }
+}
@@ -0,0 +1,108 @@
+package iscteiul.ista.battleship;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Testes de {@link GameHttpApi} sobre a interface de rede local.
+ */
+class GameHttpApiTest {
+
+    private final HttpClient client = HttpClient.newHttpClient();
+    private ExecutorService executor;
+    private GameHttpApi api;
+
+    @BeforeEach
+    void start() throws IOException {
+        executor = Executors.newFixedThreadPool(2);
+        api = new GameHttpApi(new InetSocketAddress("127.0.0.1", 0), executor);
+        api.start();
+    }
+
+    @AfterEach
+    void stop() throws IOException {
+        api.close();
+        executor.shutdownNow();
+    }
+
+    /**
+     * Uma coluna que não cabe em 16 bits não é confundida com outra célula: num tiro
+     * simples conta como tiro inválido, numa rajada dá 400 sem efetuar nenhum tiro.
+     */
+    @Test
+    void outOfRangeColumnIsNotWrapped() throws Exception {
+        HttpResponse<String> created = send("POST", "/games", "barca 2 3 n\n");
+        assertEquals(201, created.statusCode(), created.body());
+        assertTrue(created.body().contains("\"ships\":1"), created.body());
+        String game = "/games/" + created.body().replaceAll(".*\"id\":(\\d+).*", "$1");
+
+        // 65539 = 3 + 2^16: se fosse codificada em 16 bits afundaria a barca em (2, 3)
+        HttpResponse<String> fired = send("POST", game + "/fire?row=2&col=65539", "");
+        assertEquals(200, fired.statusCode(), fired.body());
+        assertTrue(fired.body().contains("\"result\":\"invalid\""), fired.body());
+        assertTrue(fired.body().contains("\"remaining\":1"), fired.body());
+
+        HttpResponse<String> salvo = send("POST", game + "/salvo?shots=0,0,2,65539", "");
+        assertEquals(400, salvo.statusCode(), salvo.body());
+
+        HttpResponse<String> status = send("GET", game, null);
+        assertEquals(200, status.statusCode(), status.body());
+        assertTrue(status.body().contains("\"invalid\":1"), status.body());
+        assertTrue(status.body().contains("\"hits\":0"), status.body());
+        assertTrue(status.body().contains("\"remaining\":1"), status.body());
+
+        HttpResponse<String> sunk = send("POST", game + "/salvo?shots=0,0,2,3", "");
+        assertEquals(200, sunk.statusCode(), sunk.body());
+        assertTrue(sunk.body().contains("\"result\":\"sunk\""), sunk.body());
+        assertTrue(sunk.body().contains("\"remaining\":0"), sunk.body());
+    }
+
+    /**
+     * Uma falha inesperada, como o ficheiro de sessões fechado ao carregar um jogo
+     * que saiu de memória, dá o erro 500 em vez de a ligação ser cortada.
+     */
+    @Test
+    void unexpectedFailureGives500(@TempDir Path dir) throws Exception {
+        SessionStore sessions = new SessionStore(dir.resolve("s.bin"), 3_000, 60_000, 1);
+        GameHttpApi own = new GameHttpApi(new InetSocketAddress("127.0.0.1", 0), executor, sessions);
+        try {
+            own.start();
+            api.close();
+            api = own;
+            // cada jogo aleatório pesa mais de metade do orçamento: o segundo faz o primeiro sair de memória
+            HttpResponse<String> first = send("POST", "/games", "");
+            assertEquals(201, first.statusCode(), first.body());
+            assertEquals(201, send("POST", "/games", "").statusCode());
+            sessions.close();
+
+            String game = "/games/" + first.body().replaceAll(".*\"id\":(\\d+).*", "$1");
+            HttpResponse<String> status = send("GET", game, null);
+            assertEquals(500, status.statusCode(), status.body());
+            assertTrue(status.body().contains("ERROR!"), status.body());
+        } finally {
+            sessions.close();
+        }
+    }
+
+    private HttpResponse<String> send(String method, String path, String body) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + api.getPort() + path));
+        request.method(method, body == null ? HttpRequest.BodyPublishers.noBody()
+                : HttpRequest.BodyPublishers.ofString(body));
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+}
@@ -0,0 +1,105 @@
+package iscteiul.ista.battleship;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Testes de {@link GameJournal}: escrita, reconstrução e registos truncados.
+ */
+class GameJournalTest {
+
+    @TempDir
+    Path dir;
+
+    /**
+     * Jogos registados no diário são reconstruídos com o mesmo estado.
+     */
+    @Test
+    void writeThenRebuild() throws IOException {
+        Path file = dir.resolve("games.journal");
+        Random random = new Random(14);
+        FleetGenerator generator = new FleetGenerator(14);
+        Game[] games = new Game[20];
+        long[] shots = new long[ShotResult.INVALID + 1];
+        try (GameJournal journal = new GameJournal(file)) {
+            for (int g = 0; g < games.length; g++) {
+                games[g] = new Game(generator.next());
+                assertEquals(g, games[g].recordTo(journal));
+            }
+            for (int i = 0; i < 2_000; i++) {
+                Game game = games[random.nextInt(games.length)];
+                shots[ShotResult.kind(game.fire(random.nextInt(12) - 1, random.nextInt(12) - 1))]++;
+            }
+        }
+
+        for (int g = 0; g < games.length; g++) {
+            Game copy = GameJournal.rebuild(file, g);
+            assertNotNull(copy);
+            assertEquals(Arrays.toString(GameSnapshot.toBytes(games[g])), Arrays.toString(GameSnapshot.toBytes(copy)));
+            assertEquals(games[g].getRemainingShips(), copy.getRemainingShips());
+        }
+        assertNull(GameJournal.rebuild(file, games.length));
+        assertArrayEquals(shots, GameJournal.shotCounts(file));
+    }
+
+    /**
+     * Um registo cortado no fim do ficheiro, ou uma cauda preenchida a zeros, é ignorado
+     * na leitura e removido quando o diário é reaberto.
+     */
+    @Test
+    void tornTailIsSkipped() throws IOException {
+        Path file = dir.resolve("torn.journal");
+        Game game = new Game(new FleetGenerator(15).next());
+        try (GameJournal journal = new GameJournal(file)) {
+            game.recordTo(journal);
+            game.fire(0, 0);
+            journal.flush();
+        }
+        byte[] complete = Files.readAllBytes(file);
+        long valid = complete.length;
+
+        // um segundo tiro, acrescentado numa nova sessão, é depois cortado byte a byte
+        try (GameJournal journal = new GameJournal(file)) {
+            journal.recordShot(0, 1, 1, ShotResult.MISS);
+        }
+        byte[] withShot = Files.readAllBytes(file);
+        for (int length = complete.length; length < withShot.length; length++) {
+            Files.write(file, Arrays.copyOf(withShot, length));
+            assertEquals(valid, GameJournal.replay(file, new IJournalListener() {
+            }));
+            assertEquals(1, Arrays.stream(GameJournal.shotCounts(file)).sum());
+            new GameJournal(file).close();
+            assertEquals(valid, Files.size(file));
+        }
+
+        Files.write(file, Arrays.copyOf(complete, complete.length + 64));
+        assertEquals(valid, GameJournal.replay(file, new IJournalListener() {
+        }));
+        new GameJournal(file).close();
+        assertArrayEquals(complete, Files.readAllBytes(file));
+    }
+
+    /**
+     * Um registo cujo corpo é mais curto do que os seus campos dá {@link IllegalArgumentException}.
+     */
+    @Test
+    void shortRecordIsRejected() throws IOException {
+        Path file = dir.resolve("short.journal");
+        // registo de tiro com comprimento 3: tipo, jogo e linha, sem coluna nem resultado
+        Files.write(file, new byte[] { 3, 3, 0, 2, 3, 3, 0 });
+        assertThrows(IllegalArgumentException.class, () -> GameJournal.replay(file, new IJournalListener() {
+        }));
+    }
+}
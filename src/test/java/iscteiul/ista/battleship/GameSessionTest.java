@@ -0,0 +1,154 @@
+package iscteiul.ista.battleship;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Testes de {@link GameSession}, comparada com as sessões de {@link Tasks}.
+ */
+class GameSessionTest {
+
+    /**
+     * Um guião entregue aos bocados ao {@link CommandReader}, e daí palavra a palavra
+     * à sessão, produz as mesmas mensagens que {@link Tasks#playSession}.
+     */
+    @Test
+    void matchesTasksOnSplitInput() {
+        Random random = new Random(19);
+        FleetGenerator generator = new FleetGenerator(19);
+        for (int round = 0; round < 300; round++) {
+            String script = TasksTest.randomScript(random, generator, false);
+            byte[] bytes = script.getBytes(StandardCharsets.UTF_8);
+
+            GameSession session = new GameSession();
+            StringBuilder out = new StringBuilder(GameSession.PROMPT);
+            CommandReader reader = new CommandReader(new CommandReaderTest.Trickle(bytes, 5, round));
+            while (!session.isDone() && reader.hasNext()) {
+                reader.next();
+                byte[] token = reader.token().getBytes(StandardCharsets.UTF_8);
+                session.accept(token, token.length, out);
+            }
+
+            assertTrue(session.isDone(), script);
+            assertEquals(tasksOutput(bytes), withoutPrompts(out.toString()), script);
+        }
+    }
+
+    /**
+     * O mesmo, através do servidor, com o guião enviado em pacotes pequenos.
+     */
+    @Test
+    void serverMatchesTasksOnSplitPackets() throws IOException {
+        Random random = new Random(20);
+        FleetGenerator generator = new FleetGenerator(20);
+        try (GameServer server = new GameServer(new InetSocketAddress("127.0.0.1", 0), 1)) {
+            server.start();
+            for (int round = 0; round < 20; round++) {
+                String script = TasksTest.randomScript(random, generator, false);
+                byte[] bytes = script.getBytes(StandardCharsets.UTF_8);
+                String reply;
+                try (SocketChannel client = SocketChannel.open(new InetSocketAddress("127.0.0.1", server.getPort()))) {
+                    client.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                    for (int from = 0; from < bytes.length;) {
+                        int n = Math.min(bytes.length - from, random.nextInt(7) + 1);
+                        ByteBuffer packet = ByteBuffer.wrap(bytes, from, n);
+                        while (packet.hasRemaining())
+                            client.write(packet);
+                        from += n;
+                    }
+                    reply = readAll(client);
+                }
+                assertEquals(tasksOutput(bytes), withoutPrompts(reply), script);
+            }
+        }
+    }
+
+    /**
+     * Um cliente que envia os comandos e fecha a sua metade da ligação antes de ler
+     * recebe todas as respostas, incluindo as da última palavra, tratada só quando o
+     * servidor vê o fim da entrada.
+     */
+    @Test
+    void serverFlushesPendingOutputAfterHalfClose() throws Exception {
+        StringBuilder script = new StringBuilder("nova\n");
+        for (IShip s : new FleetGenerator(21).next().getShips())
+            script.append(PlacementCatalog.kindOf(s)).append(' ').append(s.getPosition().getRow()).append(' ')
+                    .append(s.getPosition().getColumn()).append(' ').append(s.getBearing().getDirection())
+                    .append('\n');
+        for (int i = 0; i < 2_000; i++)
+            script.append("mapa\n");
+        // sem separador final: a resposta só é produzida quando o servidor lê o fim da entrada
+        script.append("estado");
+        byte[] bytes = script.toString().getBytes(StandardCharsets.UTF_8);
+
+        GameSession session = new GameSession();
+        StringBuilder expected = new StringBuilder(GameSession.PROMPT);
+        for (String token : script.toString().split("\\s+")) {
+            byte[] word = token.getBytes(StandardCharsets.UTF_8);
+            session.accept(word, word.length, expected);
+        }
+
+        try (GameServer server = new GameServer(new InetSocketAddress("127.0.0.1", 0), 1);
+                SocketChannel client = SocketChannel.open(new InetSocketAddress("127.0.0.1", server.getPort()))) {
+            server.start();
+            Thread writer = new Thread(() -> {
+                try {
+                    ByteBuffer buffer = ByteBuffer.wrap(bytes);
+                    while (buffer.hasRemaining())
+                        client.write(buffer);
+                    client.shutdownOutput();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            writer.start();
+            // só lê depois de o cliente fechar a escrita, para que as respostas se acumulem no servidor
+            writer.join(1_000);
+            String reply = readAll(client);
+            writer.join();
+            assertEquals(expected.toString(), reply);
+        }
+    }
+
+    /**
+     * Mensagens de {@link Tasks#playSession} para um guião, uma por linha.
+     */
+    private static String tasksOutput(byte[] script) {
+        List<String> log = new ArrayList<>();
+        Tasks.playSession(new CommandReader(new CommandReaderTest.Trickle(script, 64, 0)),
+                (pattern, params) -> TasksTest.info(log, pattern, params), false);
+        StringBuilder text = new StringBuilder();
+        for (String line : log)
+            text.append(line).append('\n');
+        return text.toString();
+    }
+
+    private static String withoutPrompts(String output) {
+        assertTrue(output.startsWith(GameSession.PROMPT), output);
+        return output.replace(GameSession.PROMPT, "");
+    }
+
+    private static String readAll(SocketChannel client) throws IOException {
+        ByteArrayOutputStream reply = new ByteArrayOutputStream();
+        ByteBuffer buffer = ByteBuffer.allocate(4096);
+        while (client.read(buffer) >= 0) {
+            reply.write(buffer.array(), 0, buffer.position());
+            buffer.clear();
+        }
+        return reply.toString(StandardCharsets.UTF_8);
+    }
+}
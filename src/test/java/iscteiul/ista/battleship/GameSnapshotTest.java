@@ -0,0 +1,91 @@
+package iscteiul.ista.battleship;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Testes de {@link GameSnapshot}.
+ */
+class GameSnapshotTest {
+
+    /**
+     * Jogos aleatórios, com tiros válidos, repetidos e inválidos, sobrevivem à
+     * codificação e cabem em menos de 64 bytes.
+     */
+    @Test
+    void gameRoundTrip() {
+        Random random = new Random(13);
+        FleetGenerator generator = new FleetGenerator(13);
+        for (int round = 0; round < 2_000; round++) {
+            Game game = new Game(generator.next());
+            int shots = random.nextInt(150);
+            for (int i = 0; i < shots; i++)
+                game.fire(random.nextInt(12) - 1, random.nextInt(12) - 1);
+
+            byte[] bytes = GameSnapshot.toBytes(game);
+            assertTrue(bytes.length < 64, bytes.length + " bytes");
+            Game copy = GameSnapshot.fromBytes(bytes);
+
+            assertEquals(layout(game.getFleet()), layout(copy.getFleet()));
+            assertEquals(game.getFiredCells(), copy.getFiredCells());
+            assertEquals(game.getHits(), copy.getHits());
+            assertEquals(game.getSunkShips(), copy.getSunkShips());
+            assertEquals(game.getInvalidShots(), copy.getInvalidShots());
+            assertEquals(game.getRepeatedShots(), copy.getRepeatedShots());
+            assertEquals(game.getRemainingShips(), copy.getRemainingShips());
+            for (int s = 0; s < game.getFleet().getShips().size(); s++) {
+                IShip original = game.getFleet().getShips().get(s);
+                IShip restored = copy.getFleet().getShips().get(s);
+                for (IPosition p : original.getPositions())
+                    assertEquals(original.isHit(p), restored.isHit(p));
+            }
+        }
+    }
+
+    /**
+     * Navios de categoria desconhecida não podem ser codificados.
+     */
+    @Test
+    void unknownKindIsRejected() {
+        Ship raft = new Ship("Jangada", Compass.NORTH, Position.of(0, 0)) {
+            @Override
+            public Integer getSize() {
+                return 1;
+            }
+        };
+        assertThrows(IllegalArgumentException.class, () -> GameSnapshot.packShip(raft));
+    }
+
+    /**
+     * Dados truncados ou corrompidos dão {@link IllegalArgumentException}.
+     */
+    @Test
+    void truncatedOrCorruptSnapshotIsRejected() {
+        byte[] bytes = GameSnapshot.toBytes(new Game(new FleetGenerator(1).next()));
+        for (int length = 0; length < bytes.length; length++) {
+            byte[] truncated = Arrays.copyOf(bytes, length);
+            assertThrows(IllegalArgumentException.class, () -> GameSnapshot.fromBytes(truncated));
+        }
+
+        byte[] corrupt = bytes.clone();
+        corrupt[2] = (byte) 0xFF;
+        assertThrows(IllegalArgumentException.class, () -> GameSnapshot.fromBytes(corrupt));
+    }
+
+    /**
+     * Descrição da disposição de uma frota: categoria, orientação e origem de cada navio.
+     */
+    private static String layout(IFleet fleet) {
+        StringBuilder out = new StringBuilder();
+        for (IShip s : fleet.getShips())
+            out.append(s.getCategory()).append(' ').append(s.getBearing()).append(' ')
+                    .append(s.getPosition()).append('\n');
+        return out.toString();
+    }
+}
@@ -0,0 +1,149 @@
+package iscteiul.ista.battleship;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Testes de {@link Game#unfire()}: cada disparo desfeito repõe exatamente o estado anterior.
+ */
+class GameUnfireTest {
+
+    /**
+     * Um tiro seguido de {@link Game#unfire()} devolve o código do tiro e deixa o jogo como estava,
+     * incluindo o navio afundado, que volta a flutuar.
+     */
+    @Test
+    void unfireUndoesEachKindOfShot() {
+        Fleet fleet = new Fleet();
+        fleet.addShip(new Caravel(Compass.EAST, Position.of(0, 0)));
+        Game game = new Game(fleet);
+        game.enableUndo();
+        IShip caravel = fleet.getShips().get(0);
+
+        assertEquals(ShotResult.of(ShotResult.HIT, 0), game.fire(0, 0));
+        assertEquals(ShotResult.of(ShotResult.SUNK, 0), game.fire(0, 1));
+        assertEquals(ShotResult.REPEATED, game.fire(0, 1));
+        assertEquals(ShotResult.INVALID, game.fire(10, 0));
+        assertEquals(ShotResult.MISS, game.fire(5, 5));
+        assertEquals(5, game.getHistorySize());
+
+        assertEquals(ShotResult.MISS, game.unfire());
+        assertEquals(ShotResult.INVALID, game.unfire());
+        assertEquals(ShotResult.REPEATED, game.unfire());
+        assertEquals(0, game.getInvalidShots());
+        assertEquals(0, game.getRepeatedShots());
+        assertEquals(1, game.getSunkShips());
+
+        assertEquals(ShotResult.of(ShotResult.SUNK, 0), game.unfire());
+        assertTrue(caravel.stillFloating());
+        assertEquals(0, game.getSunkShips());
+        assertEquals(1, game.getHits());
+        assertEquals(ShotResult.of(ShotResult.SUNK, 0), game.fire(0, 1));
+
+        game.unfire();
+        game.unfire();
+        assertEquals(0, game.getHits());
+        assertEquals(0, game.getShots().size());
+        assertEquals(List.of(false, false), hitState(fleet));
+        assertThrows(IllegalStateException.class, game::unfire);
+    }
+
+    /**
+     * Sem {@link Game#enableUndo()} o jogo não guarda histórico e não desfaz tiros.
+     */
+    @Test
+    void undoIsOptIn() {
+        Game game = new Game(new FleetGenerator(2).next());
+        for (int i = 0; i < 500; i++)
+            game.fire(i % 12 - 1, i / 12 % 12 - 1);
+        assertEquals(0, game.getHistorySize());
+        assertThrows(IllegalStateException.class, game::unfire);
+
+        game.enableUndo();
+        game.fire(0, 0);
+        assertEquals(1, game.getHistorySize());
+        game.unfire();
+        assertThrows(IllegalStateException.class, game::unfire);
+    }
+
+    /**
+     * Uma sequência aleatória de tiros e desfazeres acompanha, passo a passo, o
+     * estado de um jogo de referência que só dispara.
+     */
+    @Test
+    void randomMakeUnmakeMatchesReplay() {
+        Random random = new Random(11);
+        FleetGenerator generator = new FleetGenerator(11);
+        for (int round = 0; round < 50; round++) {
+            Fleet fleet = generator.next();
+            Game game = new Game(fleet);
+            game.enableUndo();
+            List<int[]> played = new ArrayList<>();
+            for (int step = 0; step < 400; step++) {
+                if (!played.isEmpty() && random.nextInt(3) == 0) {
+                    game.unfire();
+                    played.remove(played.size() - 1);
+                } else {
+                    int[] shot = { random.nextInt(12) - 1, random.nextInt(12) - 1 };
+                    game.fire(shot[0], shot[1]);
+                    played.add(shot);
+                }
+                assertSameState(replay(fleet, played), game);
+            }
+        }
+    }
+
+    /**
+     * Um jogo a ser registado num diário não pode desfazer tiros.
+     */
+    @Test
+    void recordedGameCannotUnfire(@TempDir Path dir) throws IOException {
+        try (GameJournal journal = new GameJournal(dir.resolve("jogos.journal"))) {
+            Game game = new Game(new FleetGenerator(3).next());
+            game.enableUndo();
+            game.recordTo(journal);
+            game.fire(0, 0);
+            assertThrows(IllegalStateException.class, game::unfire);
+        }
+    }
+
+    private static Game replay(Fleet fleet, List<int[]> played) {
+        Fleet copy = new Fleet();
+        for (IShip s : fleet.getShips())
+            copy.addShip(Ship.buildShip(s.getCategory().toLowerCase(), s.getBearing(), (Position) s.getPosition()));
+        Game game = new Game(copy);
+        game.enableUndo();
+        for (int[] shot : played)
+            game.fire(shot[0], shot[1]);
+        return game;
+    }
+
+    private static void assertSameState(Game expected, Game actual) {
+        assertEquals(expected.getShots(), actual.getShots());
+        assertEquals(expected.getFiredCells(), actual.getFiredCells());
+        assertEquals(expected.getHits(), actual.getHits());
+        assertEquals(expected.getSunkShips(), actual.getSunkShips());
+        assertEquals(expected.getInvalidShots(), actual.getInvalidShots());
+        assertEquals(expected.getRepeatedShots(), actual.getRepeatedShots());
+        assertEquals(expected.getHistorySize(), actual.getHistorySize());
+        assertEquals(hitState(expected.getFleet()), hitState(actual.getFleet()));
+    }
+
+    private static List<Boolean> hitState(IFleet fleet) {
+        List<Boolean> state = new ArrayList<>();
+        for (IShip s : fleet.getShips())
+            for (IPosition p : s.getPositions())
+                state.add(s.isHit(p));
+        return state;
+    }
+}
@@ -0,0 +1,121 @@
+package iscteiul.ista.battleship;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import iscteiul.ista.battleship.PlacementCatalog.Placement;
+
+/**
+ * Testes de {@link PlacementCounter}, comparado com uma enumeração ingénua em que
+ * cada frota candidata é validada por {@link Fleet#addShip(IShip)}.
+ */
+class PlacementCounterTest {
+
+    private final PlacementCounter counter = new PlacementCounter();
+
+    /**
+     * Tabuleiro vazio, com navios diferentes e com navios repetidos (contados uma só vez).
+     */
+    @Test
+    void emptyBoardMatchesNaiveEnumeration() {
+        assertMatches(new String[] { "caravela", "nau" }, new BitBoard(), new BitBoard(), List.of());
+        assertMatches(new String[] { "barca", "galeao", "barca" }, new BitBoard(), new BitBoard(), List.of());
+    }
+
+    /**
+     * Com tiros na água, acertos por explicar e um navio afundado.
+     */
+    @Test
+    void shotHistoryMatchesNaiveEnumeration() {
+        Random random = new Random(9);
+        String[][] mixes = { { "nau", "caravela" }, { "caravela", "caravela", "barca" }, { "galeao", "barca" } };
+        for (String[] mix : mixes) {
+            BitBoard misses = new BitBoard();
+            for (int k = 0; k < 30; k++)
+                misses.set(random.nextInt(BitBoard.CELLS));
+            assertMatches(mix, misses, new BitBoard(), List.of());
+
+            BitBoard hits = new BitBoard();
+            int hit = random.nextInt(BitBoard.CELLS);
+            misses.clear(hit);
+            hits.set(hit);
+            assertMatches(mix, misses, hits, List.of());
+        }
+
+        // uma barca afundada num canto: a frota restante não lhe pode tocar
+        Ship sunk = Ship.buildShip("barca", Compass.NORTH, Position.of(0, 0));
+        sunk.shoot(Position.of(0, 0));
+        BitBoard misses = new BitBoard();
+        misses.set(BitBoard.index(5, 5));
+        BitBoard hits = new BitBoard();
+        hits.set(BitBoard.index(0, 0));
+        hits.set(BitBoard.index(3, 4));
+        assertMatches(new String[] { "nau", "barca", "caravela" }, misses, hits, List.of(sunk));
+    }
+
+    private void assertMatches(String[] mix, BitBoard misses, BitBoard hits, List<Ship> sunk) {
+        Observation observation = new Observation(mix, misses, hits, sunk);
+        // agrupa os navios iguais, para a enumeração os contar uma só vez
+        String[] remaining = observation.remaining.clone();
+        Arrays.sort(remaining);
+        long[] expected = new long[BitBoard.CELLS + 1];
+        enumerate(remaining, 0, 0, new ArrayList<>(), misses, observation.pendingHits, sunk, expected);
+
+        PlacementCounter.Result result = counter.count(mix, misses, hits, sunk);
+        long[] actual = new long[BitBoard.CELLS + 1];
+        for (int c = 0; c < BitBoard.CELLS; c++)
+            actual[c] = result.occupancy(c);
+        actual[BitBoard.CELLS] = result.total();
+        assertArrayEquals(expected, actual, String.join(",", mix));
+    }
+
+    /**
+     * Enumera as colocações dos navios restantes. Navios iguais seguidos usam colocações
+     * por ordem crescente, para que cada frota seja contada uma só vez.
+     *
+     * @param counts ocupação por célula, seguida do total de frotas
+     */
+    private static void enumerate(String[] kinds, int ship, int first, List<Ship> chosen, BitBoard misses,
+            BitBoard pendingHits, List<Ship> sunk, long[] counts) {
+        if (ship == kinds.length) {
+            BitBoard covered = new BitBoard();
+            for (Ship s : chosen)
+                covered.or(s.getFootprint());
+            if (!covered.containsAll(pendingHits))
+                return;
+            counts[BitBoard.CELLS]++;
+            for (int c = covered.nextSetBit(0); c >= 0; c = covered.nextSetBit(c + 1))
+                counts[c]++;
+            return;
+        }
+
+        Placement[] options = PlacementCatalog.placements(kinds[ship]);
+        int start = ship > 0 && kinds[ship].equals(kinds[ship - 1]) ? first : 0;
+        for (int j = start; j < options.length; j++) {
+            Ship candidate = options[j].build(0);
+            if (candidate.getFootprint().intersects(misses) || !legal(sunk, chosen, candidate))
+                continue;
+            chosen.add(candidate);
+            enumerate(kinds, ship + 1, j + 1, chosen, misses, pendingHits, sunk, counts);
+            chosen.remove(chosen.size() - 1);
+        }
+    }
+
+    /**
+     * Indica se uma frota com os navios afundados, os navios escolhidos e o candidato é aceite.
+     */
+    private static boolean legal(List<Ship> sunk, List<Ship> chosen, Ship candidate) {
+        Fleet fleet = new Fleet();
+        for (Ship s : sunk)
+            fleet.addShip(s);
+        for (Ship s : chosen)
+            fleet.addShip(s);
+        return fleet.addShip(candidate);
+    }
+}
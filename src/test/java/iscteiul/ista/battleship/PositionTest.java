@@ -0,0 +1,42 @@
+package iscteiul.ista.battleship;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Testes da codificação de coordenadas com {@link Position#pack(int, int)}.
+ */
+class PositionTest {
+
+    /**
+     * Coordenadas dentro e fora do tabuleiro, até aos limites de 16 bits, sobrevivem
+     * à codificação.
+     */
+    @Test
+    void packRoundTripsSixteenBitCoordinates() {
+        int[] values = { 0, 9, 10, -1, Short.MIN_VALUE, Short.MAX_VALUE, 1234, -4321 };
+        for (int row : values)
+            for (int column : values) {
+                int packed = Position.pack(row, column);
+                assertEquals(row, Position.unpackRow(packed));
+                assertEquals(column, Position.unpackColumn(packed));
+            }
+    }
+
+    /**
+     * Coordenadas que não cabem em 16 bits são rejeitadas em vez de confundidas com outras.
+     */
+    @Test
+    void packRejectsCoordinatesOutsideSixteenBits() {
+        assertFalse(Position.canPack(2, 65539));
+        assertFalse(Position.canPack(Short.MIN_VALUE - 1, 0));
+        assertTrue(Position.canPack(Short.MAX_VALUE, Short.MIN_VALUE));
+        assertThrows(IllegalArgumentException.class, () -> Position.pack(2, 65539));
+        assertThrows(IllegalArgumentException.class, () -> Position.pack(Short.MAX_VALUE + 1, 0));
+        assertThrows(IllegalArgumentException.class, () -> Position.pack(0, Integer.MIN_VALUE));
+    }
+}
@@ -0,0 +1,135 @@
+package iscteiul.ista.battleship;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Testes de {@link SessionStore}, com um único segmento para que a ordem LRU seja previsível.
+ */
+class SessionStoreTest {
+
+    /** Tempo de inatividade usado quando o teste não depende dele. */
+    private static final long NEVER = 3_600_000L;
+
+    @TempDir
+    Path dir;
+
+    private final FleetGenerator generator = new FleetGenerator(21);
+
+    /**
+     * Uma sessão retirada de memória volta do ficheiro com o mesmo estado.
+     */
+    @Test
+    void spillAndLoadRoundTrip() throws IOException {
+        Game game = new Game(generator.next());
+        for (int i = 0; i < 40; i++)
+            game.fire(i % 11, (i * 7) % 12 - 1);
+        String expected = Arrays.toString(GameSnapshot.toBytes(game));
+
+        try (SessionStore store = new SessionStore(dir.resolve("s.bin"), SessionStore.weigh(game), NEVER, 1)) {
+            long id = store.create(game);
+            store.create(new Game(generator.next()));
+            assertEquals(1, store.getSpillCount());
+            assertEquals(1, store.getResidentCount());
+            assertEquals(2, store.size());
+
+            assertEquals(expected, store.apply(id, g -> Arrays.toString(GameSnapshot.toBytes(g))));
+            assertEquals(1, store.getLoadCount());
+            assertEquals(game.getRemainingShips(), (int) store.apply(id, Game::getRemainingShips));
+            assertEquals(1, store.getLoadCount());
+        }
+    }
+
+    /**
+     * Quando o orçamento é excedido sai a sessão usada há mais tempo.
+     */
+    @Test
+    void evictsLeastRecentlyUsed() throws IOException {
+        int weight = SessionStore.weigh(new Game(generator.next()));
+        try (SessionStore store = new SessionStore(dir.resolve("s.bin"), 3L * weight + weight / 2, NEVER, 1)) {
+            long a = store.create(new Game(generator.next()));
+            long b = store.create(new Game(generator.next()));
+            long c = store.create(new Game(generator.next()));
+            store.apply(a, Game::getHits);
+
+            // ordem LRU: b, c, a; d empurra b para o ficheiro
+            long d = store.create(new Game(generator.next()));
+            assertEquals(1, store.getSpillCount());
+
+            // ordem: c, a, d; ler b empurra c
+            assertResident(store, b, false);
+            assertEquals(2, store.getSpillCount());
+            // ordem: a, d, b; usar d não retira nada
+            assertResident(store, d, true);
+            assertEquals(2, store.getSpillCount());
+            // ordem: a, b, d; ler c empurra a, e ler a empurra b
+            assertResident(store, c, false);
+            assertResident(store, a, false);
+            assertResident(store, d, true);
+            assertResident(store, c, true);
+            assertEquals(4, store.getSpillCount());
+            assertEquals(3, store.getResidentCount());
+        }
+    }
+
+    /**
+     * Uma sessão parada mais do que o tempo de inatividade sai de memória, mesmo sem tráfego.
+     */
+    @Test
+    void idleSessionsExpire() throws IOException, InterruptedException {
+        try (SessionStore store = new SessionStore(dir.resolve("s.bin"), 1L << 20, 50, 1)) {
+            long idle = store.create(new Game(generator.next()));
+            Thread.sleep(200);
+            long fresh = store.create(new Game(generator.next()));
+            store.expireIdle();
+            assertEquals(1, store.getResidentCount());
+            assertEquals(1, store.getSpillCount());
+            assertResident(store, fresh, true);
+            assertResident(store, idle, false);
+            assertEquals(2, store.getResidentCount());
+        }
+    }
+
+    /**
+     * Remover uma sessão que está no ficheiro apaga-a de lá, sem a carregar.
+     */
+    @Test
+    void removeSpilledSession() throws IOException {
+        Game game = new Game(generator.next());
+        try (SessionStore store = new SessionStore(dir.resolve("s.bin"), SessionStore.weigh(game), NEVER, 1)) {
+            long spilled = store.create(game);
+            long resident = store.create(new Game(generator.next()));
+            assertEquals(1, store.getSpillCount());
+
+            assertTrue(store.remove(spilled));
+            assertEquals(0, store.getLoadCount());
+            assertEquals(1, store.size());
+            assertNull(store.apply(spilled, Game::getHits));
+            assertFalse(store.remove(spilled));
+            assertEquals(1, store.size());
+
+            assertTrue(store.remove(resident));
+            assertNull(store.apply(resident, Game::getHits));
+            assertEquals(0, store.size());
+        }
+    }
+
+    /**
+     * Verifica, pelo contador de leituras, se uma sessão estava em memória; a sessão
+     * passa a ser a mais recente.
+     */
+    private static void assertResident(SessionStore store, long id, boolean resident) {
+        long loads = store.getLoadCount();
+        assertEquals(0, (int) store.apply(id, Game::getHits));
+        assertEquals(resident ? loads : loads + 1, store.getLoadCount(), "sessão " + id);
+    }
+}
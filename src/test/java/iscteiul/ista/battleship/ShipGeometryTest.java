@@ -0,0 +1,71 @@
+package iscteiul.ista.battleship;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Testes de {@link Ship#occupies(IPosition)} e {@link Ship#tooCloseTo}, comparados
+ * com a verificação geométrica original, posição a posição.
+ */
+class ShipGeometryTest {
+
+    private static final Compass[] BEARINGS = { Compass.NORTH, Compass.SOUTH, Compass.EAST, Compass.WEST };
+
+    /**
+     * Navios aleatórios, dentro, junto e fora do tabuleiro, contra todas as
+     * posições à sua volta e contra outros navios.
+     */
+    @Test
+    void randomShipsMatchGeometricCheck() {
+        Random random = new Random(22);
+        for (int round = 0; round < 20_000; round++) {
+            Ship a = randomShip(random);
+            Ship b = randomShip(random);
+
+            assertEquals(tooClose(a, b), a.tooCloseTo(b), a + " / " + b);
+            assertEquals(tooClose(b, a), b.tooCloseTo(a), b + " / " + a);
+
+            if (round % 20 == 0)
+                for (int row = -3; row <= IFleet.BOARD_SIZE + 2; row++)
+                    for (int column = -3; column <= IFleet.BOARD_SIZE + 2; column++) {
+                        Position p = Position.of(row, column);
+                        assertEquals(occupies(a, p), a.occupies(p), a + " " + p);
+                        assertEquals(tooClose(a, p), a.tooCloseTo(p), a + " " + p);
+                    }
+        }
+    }
+
+    private static Ship randomShip(Random random) {
+        String kind = PlacementCatalog.KINDS[random.nextInt(PlacementCatalog.KINDS.length)];
+        Position origin = Position.of(random.nextInt(IFleet.BOARD_SIZE + 4) - 2,
+                random.nextInt(IFleet.BOARD_SIZE + 4) - 2);
+        return Ship.buildShip(kind, BEARINGS[random.nextInt(BEARINGS.length)], origin);
+    }
+
+    // -----------------------------------------------------
+    // Verificação original: percorre as posições dos navios.
+
+    private static boolean occupies(IShip ship, IPosition pos) {
+        for (IPosition p : ship.getPositions())
+            if (p.getRow() == pos.getRow() && p.getColumn() == pos.getColumn())
+                return true;
+        return false;
+    }
+
+    private static boolean tooClose(IShip ship, IPosition pos) {
+        for (IPosition p : ship.getPositions())
+            if (Math.abs(p.getRow() - pos.getRow()) <= 1 && Math.abs(p.getColumn() - pos.getColumn()) <= 1)
+                return true;
+        return false;
+    }
+
+    private static boolean tooClose(IShip ship, IShip other) {
+        for (IPosition p : other.getPositions())
+            if (tooClose(ship, p))
+                return true;
+        return false;
+    }
+}
@@ -0,0 +1,89 @@
+package iscteiul.ista.battleship;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Testes de {@link TargetingEngine}, comparado com as probabilidades exatas de
+ * {@link PlacementCounter}.
+ */
+class TargetingEngineTest {
+
+    private static final String[] MIX = { "nau", "barca", "caravela" };
+
+    private final ForkJoinPool pool = new ForkJoinPool(2);
+
+    @AfterEach
+    void stop() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * Com tiros na água, um acerto por explicar e um navio afundado, o mapa de calor
+     * aproxima a fração exata das frotas compatíveis que ocupa cada célula.
+     */
+    @Test
+    void heatMapMatchesExactCount() {
+        // confiança infinita: a amostragem só pára no número máximo de amostras
+        TargetingEngine engine = new TargetingEngine(pool, MIX, 60_000, 200_000, Double.POSITIVE_INFINITY, 3);
+        Ship sunk = sunkBarge();
+        BitBoard misses = misses();
+        BitBoard hits = hits();
+
+        double[] heat = engine.heatMap(misses, hits, List.of(sunk));
+        PlacementCounter.Result exact = new PlacementCounter().count(MIX, misses, hits, List.of(sunk));
+        for (int c = 0; c < BitBoard.CELLS; c++) {
+            double expected = misses.get(c) || hits.get(c) ? 0 : exact.probability(c);
+            // sem pesos, as frotas que cobrem o acerto afastam-se mais de 0.01 do valor exato
+            assertEquals(expected, heat[c], 0.006, "célula " + c);
+        }
+    }
+
+    /**
+     * O tiro escolhido nunca é numa célula já atacada nem junto a um navio afundado.
+     */
+    @Test
+    void nextShotAvoidsFiredCellsAndSunkHalo() {
+        Ship sunk = sunkBarge();
+        BitBoard misses = misses();
+        BitBoard hits = hits();
+        for (long seed = 0; seed < 20; seed++) {
+            TargetingEngine engine = new TargetingEngine(pool, MIX, 20, 500, 2.58, seed);
+            Position shot = engine.nextShot(misses, hits, List.of(sunk));
+            assertNotNull(shot);
+            int cell = BitBoard.index(shot.getRow(), shot.getColumn());
+            assertFalse(misses.get(cell) || hits.get(cell), shot.toString());
+            assertFalse(Math.abs(shot.getRow()) <= 1 && Math.abs(shot.getColumn()) <= 1, shot.toString());
+        }
+    }
+
+    /** Uma barca afundada no canto (0, 0). */
+    private static Ship sunkBarge() {
+        Ship sunk = Ship.buildShip("barca", Compass.NORTH, Position.of(0, 0));
+        sunk.shoot(Position.of(0, 0));
+        return sunk;
+    }
+
+    private static BitBoard misses() {
+        BitBoard misses = new BitBoard();
+        misses.set(BitBoard.index(5, 5));
+        misses.set(BitBoard.index(2, 7));
+        misses.set(BitBoard.index(8, 1));
+        return misses;
+    }
+
+    /** O acerto da barca afundada e um acerto por explicar em (3, 4). */
+    private static BitBoard hits() {
+        BitBoard hits = new BitBoard();
+        hits.set(BitBoard.index(0, 0));
+        hits.set(BitBoard.index(3, 4));
+        return hits;
+    }
+}
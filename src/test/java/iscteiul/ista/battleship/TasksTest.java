@@ -0,0 +1,173 @@
+package iscteiul.ista.battleship;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Scanner;
+
+import org.apache.logging.log4j.message.ParameterizedMessage;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Testes das sessões de {@link Tasks}, comparadas com a versão original de
+ * {@code taskD}, que lia os comandos com um {@link Scanner}.
+ */
+class TasksTest {
+
+    /**
+     * Em sessões aleatórias, entregues aos bocados ao {@link CommandReader}, as
+     * mensagens e o estado final do jogo são os da versão com {@code Scanner}.
+     */
+    @Test
+    void sessionsMatchScannerVersion() {
+        Random random = new Random(15);
+        FleetGenerator generator = new FleetGenerator(15);
+        for (int round = 0; round < 300; round++) {
+            String script = randomScript(random, generator, true);
+            byte[] bytes = script.getBytes(StandardCharsets.UTF_8);
+
+            List<String> expected = new ArrayList<>();
+            IGame reference = scannerSession(new Scanner(new ByteArrayInputStream(bytes), StandardCharsets.UTF_8),
+                    expected);
+
+            List<String> actual = new ArrayList<>();
+            IGame game = Tasks.playSession(new CommandReader(new CommandReaderTest.Trickle(bytes, 7, round)),
+                    (pattern, params) -> info(actual, pattern, params), false);
+
+            assertEquals(expected, actual, script);
+            assertEquals(summary(reference), summary(game), script);
+        }
+    }
+
+    private static String summary(IGame game) {
+        return game == null ? "null"
+                : game.getHits() + " " + game.getInvalidShots() + " " + game.getRepeatedShots() + " "
+                        + game.getRemainingShips() + " " + game.getShots();
+    }
+
+    /**
+     * Guião aleatório: frotas com navios desconhecidos e sobrepostos pelo meio,
+     * rajadas dentro e fora do tabuleiro e comandos desconhecidos.
+     *
+     * @param views {@code true} para incluir os comandos que mostram a frota ou o tabuleiro
+     */
+    static String randomScript(Random random, FleetGenerator generator, boolean views) {
+        StringBuilder script = new StringBuilder();
+        int commands = random.nextInt(30);
+        for (int c = 0; c < commands; c++) {
+            switch (random.nextInt(8)) {
+                case 0:
+                case 1:
+                    script.append("nova\n");
+                    List<IShip> ships = generator.next().getShips();
+                    for (IShip s : ships) {
+                        if (random.nextInt(6) == 0)
+                            script.append("jangada 1 1 n\n");
+                        if (random.nextInt(6) == 0)
+                            appendShip(script, ships.get(0));
+                        appendShip(script, s);
+                    }
+                    break;
+                case 2:
+                case 3:
+                case 4:
+                    script.append("rajada");
+                    for (int i = 0; i < 6; i++)
+                        script.append(' ').append(random.nextInt(12) - 1);
+                    script.append('\n');
+                    break;
+                case 5:
+                    if (views)
+                        script.append(random.nextBoolean() ? "estado\n" : "ver\n");
+                    break;
+                case 6:
+                    if (views)
+                        script.append("mapa\n");
+                    break;
+                default:
+                    script.append("xpto\n");
+            }
+        }
+        return script.append("desisto\n").toString();
+    }
+
+    private static void appendShip(StringBuilder script, IShip s) {
+        script.append(PlacementCatalog.kindOf(s)).append(' ').append(s.getPosition().getRow()).append(' ')
+                .append(s.getPosition().getColumn()).append(' ').append(s.getBearing().getDirection()).append('\n');
+    }
+
+    // -----------------------------------------------------
+    // Versão original de taskD, sem consola, com as mensagens do LOGGER recolhidas.
+
+    private static IGame scannerSession(Scanner in, List<String> log) {
+        IFleet fleet = null;
+        IGame game = null;
+        String command = in.next();
+
+        while (!command.equals("desisto")) {
+            switch (command) {
+                case "nova":
+                    fleet = scannerFleet(in, log);
+                    game = new Game(fleet);
+                    break;
+                case "estado":
+                case "mapa":
+                case "ver":
+                    break;
+                case "rajada":
+                    if (game != null) {
+                        for (int i = 0; i < 3; i++) {
+                            IShip sh = game.fire(scannerPosition(in));
+                            if (sh != null)
+                                info(log, "Mas... mas... {}s nao sao a prova de bala? :-(", sh.getCategory());
+                        }
+                        info(log, "Hits: {} Inv: {} Rep: {} Restam {} navios.", game.getHits(),
+                                game.getInvalidShots(), game.getRepeatedShots(), game.getRemainingShips());
+                        if (game.getRemainingShips() == 0)
+                            info(log, "Maldito sejas, Java Sparrow, eu voltarei, glub glub glub...");
+                    }
+                    break;
+                default:
+                    info(log, "Que comando é esse??? Repete ...");
+            }
+            command = in.next();
+        }
+        info(log, "Bons ventos!");
+        return game;
+    }
+
+    private static Fleet scannerFleet(Scanner in, List<String> log) {
+        Fleet fleet = new Fleet();
+        int i = 0;
+        while (i <= Fleet.FLEET_SIZE) {
+            String shipKind = in.next();
+            Position pos = scannerPosition(in);
+            Compass bearing = Compass.charToCompass(in.next().charAt(0));
+            IShip s = Ship.buildShip(shipKind, bearing, pos);
+            if (s != null) {
+                if (fleet.addShip(s))
+                    i++;
+                else
+                    info(log, "Falha na criacao de {} {} {}", s.getCategory(), s.getBearing(), s.getPosition());
+            } else {
+                info(log, "Navio desconhecido!");
+            }
+        }
+        info(log, "{} navios adicionados com sucesso!", i);
+        return fleet;
+    }
+
+    private static Position scannerPosition(Scanner in) {
+        int row = in.nextInt();
+        int column = in.nextInt();
+        return Position.of(row, column);
+    }
+
+    static void info(List<String> log, String pattern, Object... params) {
+        log.add(ParameterizedMessage.format(pattern, params));
+    }
+}
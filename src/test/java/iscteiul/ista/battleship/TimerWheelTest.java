@@ -0,0 +1,36 @@
+package iscteiul.ista.battleship;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Testes de {@link TimerWheel}.
+ */
+class TimerWheelTest {
+
+    /**
+     * Com instantes negativos de {@link System#nanoTime()}, incluindo a passagem por
+     * zero, cada entrada é entregue exatamente no tick do seu prazo.
+     */
+    @Test
+    void negativeInstants() {
+        for (long start : new long[] { -350, -1_000_000_007L, Long.MIN_VALUE / 2 }) {
+            TimerWheel wheel = new TimerWheel(8, 100, start, (id, token) -> true);
+            for (long id = 1; id <= 7; id++)
+                wheel.schedule(id, -id, wheel.tickOf(start + id * 100));
+
+            for (long id = 1; id <= 7; id++) {
+                List<Long> visited = new ArrayList<>();
+                wheel.advance(start + id * 100, (i, token) -> {
+                    assertEquals(-i, token);
+                    visited.add(i);
+                });
+                assertEquals(List.of(id), visited, "início " + start);
+            }
+        }
+    }
+}